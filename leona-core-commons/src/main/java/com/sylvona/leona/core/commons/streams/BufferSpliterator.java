@@ -0,0 +1,39 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Batches of up to {@code maxSize} elements, a batch also being closed once {@code maxWaitNanos} have passed since its
+ * first element. Streams are pulled, so the wait is only checked as elements arrive: a batch is never held back for more
+ * elements once the wait is over, but a source blocking for its next element also holds back the batch.
+ */
+class BufferSpliterator<T> extends Spliterators.AbstractSpliterator<List<T>> {
+    private final Spliterator<T> upstream;
+    private final int maxSize;
+    private final long maxWaitNanos;
+
+    BufferSpliterator(Spliterator<T> upstream, int maxSize, long maxWaitNanos) {
+        super(upstream.estimateSize() == Long.MAX_VALUE ? Long.MAX_VALUE : upstream.estimateSize() / maxSize + 1,
+                (upstream.characteristics() & ORDERED) | NONNULL);
+        this.upstream = upstream;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super List<T>> action) {
+        List<T> batch = new ArrayList<>(Math.min(maxSize, 64));
+        if (!upstream.tryAdvance(batch::add)) return false;
+
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxSize && System.nanoTime() - deadline < 0) {
+            if (!upstream.tryAdvance(batch::add)) break;
+        }
+        action.accept(batch);
+        return true;
+    }
+}
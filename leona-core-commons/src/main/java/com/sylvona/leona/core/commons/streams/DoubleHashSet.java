@@ -0,0 +1,107 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Set of {@code double}s without boxing. Elements are compared like {@link Double#equals(Object)}: every NaN is the same
+ * element, while {@code 0.0} and {@code -0.0} are different ones. Not thread-safe.
+ */
+public final class DoubleHashSet {
+    // Elements are kept as their bit patterns, which is exactly what Double.equals compares
+    private final LongHashSet bits;
+
+    public DoubleHashSet() {
+        this.bits = new LongHashSet();
+    }
+
+    /**
+     * @param expectedSize the number of elements the set should hold without growing
+     */
+    public DoubleHashSet(int expectedSize) {
+        this.bits = new LongHashSet(expectedSize);
+    }
+
+    public static DoubleHashSet of(double... values) {
+        DoubleHashSet set = new DoubleHashSet(values.length);
+        for (double value : values) set.add(value);
+        return set;
+    }
+
+    public boolean add(double value) {
+        return bits.add(Double.doubleToLongBits(value));
+    }
+
+    public void addAll(DoubleHashSet other) {
+        bits.addAll(other.bits);
+    }
+
+    public boolean contains(double value) {
+        return bits.contains(Double.doubleToLongBits(value));
+    }
+
+    public boolean remove(double value) {
+        return bits.remove(Double.doubleToLongBits(value));
+    }
+
+    public int size() {
+        return bits.size();
+    }
+
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    public void clear() {
+        bits.clear();
+    }
+
+    public void forEach(DoubleConsumer action) {
+        bits.forEach(value -> action.accept(Double.longBitsToDouble(value)));
+    }
+
+    public double[] toArray() {
+        long[] values = bits.toArray();
+        double[] doubles = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            doubles[i] = Double.longBitsToDouble(values[i]);
+        }
+        return doubles;
+    }
+
+    public PrimitiveIterator.OfDouble iterator() {
+        PrimitiveIterator.OfLong iterator = bits.iterator();
+        return new PrimitiveIterator.OfDouble() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return Double.longBitsToDouble(iterator.nextLong());
+            }
+        };
+    }
+
+    public LINQDoubleStream stream() {
+        return bits.stream().mapToDouble(Double::longBitsToDouble);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof DoubleHashSet other && bits.equals(other.bits));
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as a Set<Double> of the same elements, Double.hashCode hashes the bits the same way
+        return bits.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,16 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The elements of a {@link Lookup} sharing the same key, in encounter order.
+ * @param key the key shared by the elements, may be null
+ * @param elements the elements of the group, never empty and unmodifiable
+ */
+public record Grouping<K, V>(K key, List<V> elements) implements Iterable<V> {
+    @Override
+    public Iterator<V> iterator() {
+        return elements.iterator();
+    }
+}
@@ -0,0 +1,211 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.StreamSupport;
+
+/**
+ * Set of {@code int}s without boxing, backed by a single open-addressing (linear probing) table. Zero marks free slots,
+ * so a zero element is tracked on its own. Not thread-safe, and its iterators do not detect concurrent modifications.
+ */
+public final class IntHashSet {
+    private static final int MINIMUM_CAPACITY = 8;
+
+    private int[] table;
+    private int mask;
+    private int resizeThreshold;
+    private boolean containsZero;
+    private int size;
+
+    public IntHashSet() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize the number of elements the set should hold without growing
+     */
+    public IntHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public static IntHashSet of(int... values) {
+        IntHashSet set = new IntHashSet(values.length);
+        for (int value : values) set.add(value);
+        return set;
+    }
+
+    public boolean add(int value) {
+        if (value == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int index = slot(value);
+        for (int current; (current = table[index]) != 0; index = (index + 1) & mask) {
+            if (current == value) return false;
+        }
+        table[index] = value;
+        if (++size > resizeThreshold) rehash(table.length * 2);
+        return true;
+    }
+
+    public void addAll(IntHashSet other) {
+        other.forEach(this::add);
+    }
+
+    public boolean contains(int value) {
+        if (value == 0) return containsZero;
+
+        for (int index = slot(value); ; index = (index + 1) & mask) {
+            int current = table[index];
+            if (current == 0) return false;
+            if (current == value) return true;
+        }
+    }
+
+    public boolean remove(int value) {
+        if (value == 0) {
+            if (!containsZero) return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+
+        int index = slot(value);
+        for (int current; (current = table[index]) != value; index = (index + 1) & mask) {
+            if (current == 0) return false;
+        }
+
+        // Backward shift deletion: pull later members of the probe run into the gap, so no tombstones are needed
+        int gap = index;
+        for (int next = (gap + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int current = table[next];
+            if (((next - slot(current)) & mask) >= ((next - gap) & mask)) {
+                table[gap] = current;
+                gap = next;
+            }
+        }
+        table[gap] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (containsZero) action.accept(0);
+        for (int value : table) {
+            if (value != 0) action.accept(value);
+        }
+    }
+
+    public int[] toArray() {
+        int[] values = new int[size];
+        int index = 0;
+        if (containsZero) values[index++] = 0;
+        for (int value : table) {
+            if (value != 0) values[index++] = value;
+        }
+        return values;
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = containsZero ? -1 : advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return index < table.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int value = index < 0 ? 0 : table[index];
+                index = advance(index + 1);
+                return value;
+            }
+
+            private int advance(int from) {
+                while (from < table.length && table[from] == 0) from++;
+                return from;
+            }
+        };
+    }
+
+    public LINQIntStream stream() {
+        Spliterator.OfInt spliterator = Spliterators.spliterator(iterator(), size, Spliterator.DISTINCT | Spliterator.NONNULL);
+        return new LINQIntStream(StreamSupport.intStream(spliterator, false));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntHashSet other) || other.size != size || other.containsZero != containsZero) return false;
+        for (int value : table) {
+            if (value != 0 && !other.contains(value)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as a Set<Integer> of the same elements
+        int hash = 0;
+        for (int value : table) hash += value;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private int slot(int value) {
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        int[] previous = table;
+        allocate(capacity);
+        for (int value : previous) {
+            if (value == 0) continue;
+            int index = slot(value);
+            while (table[index] != 0) index = (index + 1) & mask;
+            table[index] = value;
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        // At most half full keeps probe runs short
+        resizeThreshold = capacity / 2;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        long capacity = Math.max(MINIMUM_CAPACITY, Long.highestOneBit(Math.max(1, (long) expectedSize * 2) - 1) << 1);
+        if (capacity > 1 << 30) throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+        return (int) capacity;
+    }
+}
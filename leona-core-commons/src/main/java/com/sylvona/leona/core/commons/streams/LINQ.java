@@ -50,23 +50,26 @@ public final class LINQ {
     }
 
     public static <T> Optional<T> findLast(Stream<T> stream) {
+        // LINQStreams can often answer from their source without a traversal
+        if (stream instanceof LINQStream<T> linqStream) return linqStream.findLast();
         return Streams.findLast(stream);
     }
 
     public static <T> Optional<T> findLast(Stream<T> stream, Predicate<T> predicate) {
+        if (stream instanceof LINQStream<T> linqStream) return linqStream.findLast(predicate);
         return Streams.findLast(stream.filter(predicate));
     }
 
     public static <T> T last(Stream<T> stream) {
-        return Streams.findLast(stream).orElseThrow();
+        return findLast(stream).orElseThrow();
     }
 
     public static <T> T last(Stream<T> stream, Predicate<T> predicate) {
-        return Streams.findLast(stream.filter(predicate)).orElseThrow();
+        return findLast(stream, predicate).orElseThrow();
     }
 
     public static <T> T lastOrDefault(Stream<T> stream, Predicate<T> predicate, @Nullable T fallback) {
-        return Streams.findLast(stream.filter(predicate)).orElse(fallback);
+        return findLast(stream, predicate).orElse(fallback);
     }
 
     public static <T> T lastOrDefault(Stream<T> stream, Predicate<T> predicate) {
@@ -74,15 +77,15 @@ public final class LINQ {
     }
 
     public static <T> T lastOrDefault(Stream<T> stream, @Nullable T fallback) {
-        return Streams.findLast(stream).orElse(fallback);
+        return findLast(stream).orElse(fallback);
     }
 
     public static <T> T lastOrDefault(Stream<T> stream) {
-        return Streams.findLast(stream).orElse(null);
+        return findLast(stream).orElse(null);
     }
 
     public static <T> T lastOrGet(Stream<T> stream, Predicate<T> predicate, Supplier<T> fallback) {
-        return Streams.findLast(stream.filter(predicate)).orElseGet(fallback);
+        return findLast(stream, predicate).orElseGet(fallback);
     }
 
     public static <T> LINQStream<T> concat(Stream<? extends T> stream1, Stream<? extends T> stream2) {
@@ -107,6 +110,11 @@ public final class LINQ {
     }
 
     public static <T> LINQStream<T> reverse(Stream<T> stream) {
+        if (stream instanceof LINQStream<T> linqStream) return linqStream.reverse();
+        return reverseCopy(stream);
+    }
+
+    static <T> LINQStream<T> reverseCopy(Stream<T> stream) {
         return stream.collect(Collectors.collectingAndThen(Collectors.toList(), list -> {
             Collections.reverse(list);
             return new ListCollectedStream<>(list.stream(), list);
@@ -138,14 +146,27 @@ public final class LINQ {
     }
 
     public static <T> LINQStream<T> stream(T[] array) {
-        return new LINQStream<>(Arrays.stream(array));
+        return new LINQStream<>(Arrays.stream(array), Arrays.asList(array));
+    }
+
+    public static LINQIntStream stream(int[] array) {
+        return new LINQIntStream(Arrays.stream(array));
+    }
+
+    public static LINQLongStream stream(long[] array) {
+        return new LINQLongStream(Arrays.stream(array));
+    }
+
+    public static LINQDoubleStream stream(double[] array) {
+        return new LINQDoubleStream(Arrays.stream(array));
     }
 
     public static <T> LINQStream<T> stream(Collection<T> collection) {
-        return new LINQStream<>(collection.stream());
+        return new LINQStream<>(collection.stream(), collection);
     }
 
     public static <T> LINQStream<T> stream(Iterable<T> collection) {
+        if (collection instanceof Collection<T> actualCollection) return stream(actualCollection);
         return new LINQStream<>(StreamSupport.stream(collection.spliterator(), false));
     }
 
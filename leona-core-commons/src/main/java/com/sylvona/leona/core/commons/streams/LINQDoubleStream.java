@@ -0,0 +1,316 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * {@link DoubleStream} with the LINQ vocabulary of {@link LINQStream}, which never boxes its elements: lookups return
+ * {@code double}s or {@link OptionalDouble}s, and elements are collected into {@code double[]}s and
+ * {@link DoubleHashSet}s. The {@code OrDefault} operators fall back to zero unless given another fallback. Like
+ * {@link LINQStream}, a pipeline is a single instance, intermediate operators return the same stream.
+ */
+public class LINQDoubleStream implements DoubleStream {
+    private DoubleStream stream;
+
+    LINQDoubleStream(DoubleStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public LINQDoubleStream filter(DoublePredicate predicate) {
+        return then(stream.filter(predicate));
+    }
+
+    @Override
+    public LINQDoubleStream map(DoubleUnaryOperator mapper) {
+        return then(stream.map(mapper));
+    }
+
+    @Override
+    public <U> LINQStream<U> mapToObj(DoubleFunction<? extends U> mapper) {
+        return new LINQStream<>(stream.mapToObj(mapper));
+    }
+
+    @Override
+    public LINQIntStream mapToInt(DoubleToIntFunction mapper) {
+        return new LINQIntStream(stream.mapToInt(mapper));
+    }
+
+    @Override
+    public LINQLongStream mapToLong(DoubleToLongFunction mapper) {
+        return new LINQLongStream(stream.mapToLong(mapper));
+    }
+
+    @Override
+    public LINQDoubleStream flatMap(DoubleFunction<? extends DoubleStream> mapper) {
+        return then(stream.flatMap(mapper));
+    }
+
+    @Override
+    public LINQDoubleStream distinct() {
+        return then(stream.distinct());
+    }
+
+    @Override
+    public LINQDoubleStream sorted() {
+        return then(stream.sorted());
+    }
+
+    @Override
+    public LINQDoubleStream peek(DoubleConsumer action) {
+        return then(stream.peek(action));
+    }
+
+    @Override
+    public LINQDoubleStream limit(long maxSize) {
+        return then(stream.limit(maxSize));
+    }
+
+    @Override
+    public LINQDoubleStream skip(long n) {
+        return then(stream.skip(n));
+    }
+
+    @Override
+    public void forEach(DoubleConsumer action) {
+        stream.forEach(action);
+    }
+
+    @Override
+    public void forEachOrdered(DoubleConsumer action) {
+        stream.forEachOrdered(action);
+    }
+
+    @Override
+    public double[] toArray() {
+        return stream.toArray();
+    }
+
+    @Override
+    public double reduce(double identity, DoubleBinaryOperator op) {
+        return stream.reduce(identity, op);
+    }
+
+    @Override
+    public OptionalDouble reduce(DoubleBinaryOperator op) {
+        return stream.reduce(op);
+    }
+
+    @Override
+    public <R> R collect(Supplier<R> supplier, ObjDoubleConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        return stream.collect(supplier, accumulator, combiner);
+    }
+
+    @Override
+    public double sum() {
+        return stream.sum();
+    }
+
+    @Override
+    public OptionalDouble min() {
+        return stream.min();
+    }
+
+    @Override
+    public OptionalDouble max() {
+        return stream.max();
+    }
+
+    @Override
+    public long count() {
+        return stream.count();
+    }
+
+    @Override
+    public OptionalDouble average() {
+        return stream.average();
+    }
+
+    @Override
+    public DoubleSummaryStatistics summaryStatistics() {
+        return stream.summaryStatistics();
+    }
+
+    @Override
+    public boolean anyMatch(DoublePredicate predicate) {
+        return stream.anyMatch(predicate);
+    }
+
+    @Override
+    public boolean allMatch(DoublePredicate predicate) {
+        return stream.allMatch(predicate);
+    }
+
+    @Override
+    public boolean noneMatch(DoublePredicate predicate) {
+        return stream.noneMatch(predicate);
+    }
+
+    @Override
+    public OptionalDouble findFirst() {
+        return stream.findFirst();
+    }
+
+    @Override
+    public OptionalDouble findAny() {
+        return stream.findAny();
+    }
+
+    @Override
+    public LINQStream<Double> boxed() {
+        return new LINQStream<>(stream.boxed());
+    }
+
+    @Override
+    public LINQDoubleStream sequential() {
+        return then(stream.sequential());
+    }
+
+    @Override
+    public LINQDoubleStream parallel() {
+        return then(stream.parallel());
+    }
+
+    @Override
+    public LINQDoubleStream unordered() {
+        return then(stream.unordered());
+    }
+
+    @Override
+    public LINQDoubleStream onClose(Runnable closeHandler) {
+        return then(stream.onClose(closeHandler));
+    }
+
+    @Override
+    public PrimitiveIterator.OfDouble iterator() {
+        return stream.iterator();
+    }
+
+    @Override
+    public Spliterator.OfDouble spliterator() {
+        return stream.spliterator();
+    }
+
+    @Override
+    public boolean isParallel() {
+        return stream.isParallel();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    public long count(DoublePredicate predicate) {
+        return filter(predicate).count();
+    }
+
+    public OptionalDouble findFirst(DoublePredicate predicate) {
+        return filter(predicate).findFirst();
+    }
+
+    public double first() {
+        return findFirst().orElseThrow();
+    }
+
+    public double first(DoublePredicate predicate) {
+        return findFirst(predicate).orElseThrow();
+    }
+
+    public double firstOrDefault(DoublePredicate predicate, double fallback) {
+        return findFirst(predicate).orElse(fallback);
+    }
+
+    public double firstOrDefault(DoublePredicate predicate) {
+        return findFirst(predicate).orElse(0);
+    }
+
+    public double firstOrDefault(double fallback) {
+        return findFirst().orElse(fallback);
+    }
+
+    public double firstOrDefault() {
+        return findFirst().orElse(0);
+    }
+
+    public double firstOrGet(DoublePredicate predicate, DoubleSupplier fallback) {
+        return findFirst(predicate).orElseGet(fallback);
+    }
+
+    public OptionalDouble findLast() {
+        // Keeps the later of every two elements, without boxing either, and stays correct in parallel
+        return stream.reduce((first, second) -> second);
+    }
+
+    public OptionalDouble findLast(DoublePredicate predicate) {
+        return filter(predicate).findLast();
+    }
+
+    public double last() {
+        return findLast().orElseThrow();
+    }
+
+    public double last(DoublePredicate predicate) {
+        return findLast(predicate).orElseThrow();
+    }
+
+    public double lastOrDefault(DoublePredicate predicate, double fallback) {
+        return findLast(predicate).orElse(fallback);
+    }
+
+    public double lastOrDefault(double fallback) {
+        return findLast().orElse(fallback);
+    }
+
+    public double lastOrDefault(DoublePredicate predicate) {
+        return findLast(predicate).orElse(0);
+    }
+
+    public double lastOrDefault() {
+        return findLast().orElse(0);
+    }
+
+    public double lastOrGet(DoublePredicate predicate, DoubleSupplier fallback) {
+        return findLast(predicate).orElseGet(fallback);
+    }
+
+    public LINQDoubleStream concat(DoubleStream other) {
+        return then(DoubleStream.concat(stream, other));
+    }
+
+    public LINQDoubleStream reverse() {
+        double[] values = stream.toArray();
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            double value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+        return replace(DoubleStream.of(values));
+    }
+
+    public double[] toArray(DoublePredicate predicate) {
+        return filter(predicate).toArray();
+    }
+
+    public DoubleHashSet toSet() {
+        return stream.collect(DoubleHashSet::new, DoubleHashSet::add, DoubleHashSet::addAll);
+    }
+
+    public DoubleHashSet toSet(DoublePredicate predicate) {
+        return filter(predicate).toSet();
+    }
+
+    private LINQDoubleStream then(DoubleStream next) {
+        stream = next;
+        return this;
+    }
+
+    /**
+     * Continues the pipeline from a new stream of its elements, keeping its parallelism and close handlers.
+     */
+    private LINQDoubleStream replace(DoubleStream next) {
+        DoubleStream previous = stream;
+        return then((previous.isParallel() ? next.parallel() : next).onClose(previous::close));
+    }
+}
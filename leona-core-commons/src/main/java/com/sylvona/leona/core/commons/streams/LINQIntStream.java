@@ -0,0 +1,326 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * {@link IntStream} with the LINQ vocabulary of {@link LINQStream}, which never boxes its elements: lookups return
+ * {@code int}s or {@link OptionalInt}s, and elements are collected into {@code int[]}s and {@link IntHashSet}s. The
+ * {@code OrDefault} operators fall back to zero unless given another fallback. Like {@link LINQStream}, a pipeline is a
+ * single instance, intermediate operators return the same stream.
+ */
+public class LINQIntStream implements IntStream {
+    private IntStream stream;
+
+    LINQIntStream(IntStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public LINQIntStream filter(IntPredicate predicate) {
+        return then(stream.filter(predicate));
+    }
+
+    @Override
+    public LINQIntStream map(IntUnaryOperator mapper) {
+        return then(stream.map(mapper));
+    }
+
+    @Override
+    public <U> LINQStream<U> mapToObj(IntFunction<? extends U> mapper) {
+        return new LINQStream<>(stream.mapToObj(mapper));
+    }
+
+    @Override
+    public LINQLongStream mapToLong(IntToLongFunction mapper) {
+        return new LINQLongStream(stream.mapToLong(mapper));
+    }
+
+    @Override
+    public LINQDoubleStream mapToDouble(IntToDoubleFunction mapper) {
+        return new LINQDoubleStream(stream.mapToDouble(mapper));
+    }
+
+    @Override
+    public LINQIntStream flatMap(IntFunction<? extends IntStream> mapper) {
+        return then(stream.flatMap(mapper));
+    }
+
+    @Override
+    public LINQIntStream distinct() {
+        return then(stream.distinct());
+    }
+
+    @Override
+    public LINQIntStream sorted() {
+        return then(stream.sorted());
+    }
+
+    @Override
+    public LINQIntStream peek(IntConsumer action) {
+        return then(stream.peek(action));
+    }
+
+    @Override
+    public LINQIntStream limit(long maxSize) {
+        return then(stream.limit(maxSize));
+    }
+
+    @Override
+    public LINQIntStream skip(long n) {
+        return then(stream.skip(n));
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        stream.forEach(action);
+    }
+
+    @Override
+    public void forEachOrdered(IntConsumer action) {
+        stream.forEachOrdered(action);
+    }
+
+    @Override
+    public int[] toArray() {
+        return stream.toArray();
+    }
+
+    @Override
+    public int reduce(int identity, IntBinaryOperator op) {
+        return stream.reduce(identity, op);
+    }
+
+    @Override
+    public OptionalInt reduce(IntBinaryOperator op) {
+        return stream.reduce(op);
+    }
+
+    @Override
+    public <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        return stream.collect(supplier, accumulator, combiner);
+    }
+
+    @Override
+    public int sum() {
+        return stream.sum();
+    }
+
+    @Override
+    public OptionalInt min() {
+        return stream.min();
+    }
+
+    @Override
+    public OptionalInt max() {
+        return stream.max();
+    }
+
+    @Override
+    public long count() {
+        return stream.count();
+    }
+
+    @Override
+    public OptionalDouble average() {
+        return stream.average();
+    }
+
+    @Override
+    public IntSummaryStatistics summaryStatistics() {
+        return stream.summaryStatistics();
+    }
+
+    @Override
+    public boolean anyMatch(IntPredicate predicate) {
+        return stream.anyMatch(predicate);
+    }
+
+    @Override
+    public boolean allMatch(IntPredicate predicate) {
+        return stream.allMatch(predicate);
+    }
+
+    @Override
+    public boolean noneMatch(IntPredicate predicate) {
+        return stream.noneMatch(predicate);
+    }
+
+    @Override
+    public OptionalInt findFirst() {
+        return stream.findFirst();
+    }
+
+    @Override
+    public OptionalInt findAny() {
+        return stream.findAny();
+    }
+
+    @Override
+    public LINQLongStream asLongStream() {
+        return new LINQLongStream(stream.asLongStream());
+    }
+
+    @Override
+    public LINQDoubleStream asDoubleStream() {
+        return new LINQDoubleStream(stream.asDoubleStream());
+    }
+
+    @Override
+    public LINQStream<Integer> boxed() {
+        return new LINQStream<>(stream.boxed());
+    }
+
+    @Override
+    public LINQIntStream sequential() {
+        return then(stream.sequential());
+    }
+
+    @Override
+    public LINQIntStream parallel() {
+        return then(stream.parallel());
+    }
+
+    @Override
+    public LINQIntStream unordered() {
+        return then(stream.unordered());
+    }
+
+    @Override
+    public LINQIntStream onClose(Runnable closeHandler) {
+        return then(stream.onClose(closeHandler));
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return stream.iterator();
+    }
+
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return stream.spliterator();
+    }
+
+    @Override
+    public boolean isParallel() {
+        return stream.isParallel();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    public long count(IntPredicate predicate) {
+        return filter(predicate).count();
+    }
+
+    public OptionalInt findFirst(IntPredicate predicate) {
+        return filter(predicate).findFirst();
+    }
+
+    public int first() {
+        return findFirst().orElseThrow();
+    }
+
+    public int first(IntPredicate predicate) {
+        return findFirst(predicate).orElseThrow();
+    }
+
+    public int firstOrDefault(IntPredicate predicate, int fallback) {
+        return findFirst(predicate).orElse(fallback);
+    }
+
+    public int firstOrDefault(IntPredicate predicate) {
+        return findFirst(predicate).orElse(0);
+    }
+
+    public int firstOrDefault(int fallback) {
+        return findFirst().orElse(fallback);
+    }
+
+    public int firstOrDefault() {
+        return findFirst().orElse(0);
+    }
+
+    public int firstOrGet(IntPredicate predicate, IntSupplier fallback) {
+        return findFirst(predicate).orElseGet(fallback);
+    }
+
+    public OptionalInt findLast() {
+        // Keeps the later of every two elements, without boxing either, and stays correct in parallel
+        return stream.reduce((first, second) -> second);
+    }
+
+    public OptionalInt findLast(IntPredicate predicate) {
+        return filter(predicate).findLast();
+    }
+
+    public int last() {
+        return findLast().orElseThrow();
+    }
+
+    public int last(IntPredicate predicate) {
+        return findLast(predicate).orElseThrow();
+    }
+
+    public int lastOrDefault(IntPredicate predicate, int fallback) {
+        return findLast(predicate).orElse(fallback);
+    }
+
+    public int lastOrDefault(int fallback) {
+        return findLast().orElse(fallback);
+    }
+
+    public int lastOrDefault(IntPredicate predicate) {
+        return findLast(predicate).orElse(0);
+    }
+
+    public int lastOrDefault() {
+        return findLast().orElse(0);
+    }
+
+    public int lastOrGet(IntPredicate predicate, IntSupplier fallback) {
+        return findLast(predicate).orElseGet(fallback);
+    }
+
+    public LINQIntStream concat(IntStream other) {
+        return then(IntStream.concat(stream, other));
+    }
+
+    public LINQIntStream reverse() {
+        int[] values = stream.toArray();
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+        return replace(IntStream.of(values));
+    }
+
+    public int[] toArray(IntPredicate predicate) {
+        return filter(predicate).toArray();
+    }
+
+    public IntHashSet toSet() {
+        return stream.collect(IntHashSet::new, IntHashSet::add, IntHashSet::addAll);
+    }
+
+    public IntHashSet toSet(IntPredicate predicate) {
+        return filter(predicate).toSet();
+    }
+
+    private LINQIntStream then(IntStream next) {
+        stream = next;
+        return this;
+    }
+
+    /**
+     * Continues the pipeline from a new stream of its elements, keeping its parallelism and close handlers.
+     */
+    private LINQIntStream replace(IntStream next) {
+        IntStream previous = stream;
+        return then((previous.isParallel() ? next.parallel() : next).onClose(previous::close));
+    }
+}
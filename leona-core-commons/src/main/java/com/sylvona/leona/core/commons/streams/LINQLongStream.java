@@ -0,0 +1,321 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * {@link LongStream} with the LINQ vocabulary of {@link LINQStream}, which never boxes its elements: lookups return
+ * {@code long}s or {@link OptionalLong}s, and elements are collected into {@code long[]}s and {@link LongHashSet}s. The
+ * {@code OrDefault} operators fall back to zero unless given another fallback. Like {@link LINQStream}, a pipeline is a
+ * single instance, intermediate operators return the same stream.
+ */
+public class LINQLongStream implements LongStream {
+    private LongStream stream;
+
+    LINQLongStream(LongStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public LINQLongStream filter(LongPredicate predicate) {
+        return then(stream.filter(predicate));
+    }
+
+    @Override
+    public LINQLongStream map(LongUnaryOperator mapper) {
+        return then(stream.map(mapper));
+    }
+
+    @Override
+    public <U> LINQStream<U> mapToObj(LongFunction<? extends U> mapper) {
+        return new LINQStream<>(stream.mapToObj(mapper));
+    }
+
+    @Override
+    public LINQIntStream mapToInt(LongToIntFunction mapper) {
+        return new LINQIntStream(stream.mapToInt(mapper));
+    }
+
+    @Override
+    public LINQDoubleStream mapToDouble(LongToDoubleFunction mapper) {
+        return new LINQDoubleStream(stream.mapToDouble(mapper));
+    }
+
+    @Override
+    public LINQDoubleStream asDoubleStream() {
+        return new LINQDoubleStream(stream.asDoubleStream());
+    }
+
+    @Override
+    public LINQLongStream flatMap(LongFunction<? extends LongStream> mapper) {
+        return then(stream.flatMap(mapper));
+    }
+
+    @Override
+    public LINQLongStream distinct() {
+        return then(stream.distinct());
+    }
+
+    @Override
+    public LINQLongStream sorted() {
+        return then(stream.sorted());
+    }
+
+    @Override
+    public LINQLongStream peek(LongConsumer action) {
+        return then(stream.peek(action));
+    }
+
+    @Override
+    public LINQLongStream limit(long maxSize) {
+        return then(stream.limit(maxSize));
+    }
+
+    @Override
+    public LINQLongStream skip(long n) {
+        return then(stream.skip(n));
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        stream.forEach(action);
+    }
+
+    @Override
+    public void forEachOrdered(LongConsumer action) {
+        stream.forEachOrdered(action);
+    }
+
+    @Override
+    public long[] toArray() {
+        return stream.toArray();
+    }
+
+    @Override
+    public long reduce(long identity, LongBinaryOperator op) {
+        return stream.reduce(identity, op);
+    }
+
+    @Override
+    public OptionalLong reduce(LongBinaryOperator op) {
+        return stream.reduce(op);
+    }
+
+    @Override
+    public <R> R collect(Supplier<R> supplier, ObjLongConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        return stream.collect(supplier, accumulator, combiner);
+    }
+
+    @Override
+    public long sum() {
+        return stream.sum();
+    }
+
+    @Override
+    public OptionalLong min() {
+        return stream.min();
+    }
+
+    @Override
+    public OptionalLong max() {
+        return stream.max();
+    }
+
+    @Override
+    public long count() {
+        return stream.count();
+    }
+
+    @Override
+    public OptionalDouble average() {
+        return stream.average();
+    }
+
+    @Override
+    public LongSummaryStatistics summaryStatistics() {
+        return stream.summaryStatistics();
+    }
+
+    @Override
+    public boolean anyMatch(LongPredicate predicate) {
+        return stream.anyMatch(predicate);
+    }
+
+    @Override
+    public boolean allMatch(LongPredicate predicate) {
+        return stream.allMatch(predicate);
+    }
+
+    @Override
+    public boolean noneMatch(LongPredicate predicate) {
+        return stream.noneMatch(predicate);
+    }
+
+    @Override
+    public OptionalLong findFirst() {
+        return stream.findFirst();
+    }
+
+    @Override
+    public OptionalLong findAny() {
+        return stream.findAny();
+    }
+
+    @Override
+    public LINQStream<Long> boxed() {
+        return new LINQStream<>(stream.boxed());
+    }
+
+    @Override
+    public LINQLongStream sequential() {
+        return then(stream.sequential());
+    }
+
+    @Override
+    public LINQLongStream parallel() {
+        return then(stream.parallel());
+    }
+
+    @Override
+    public LINQLongStream unordered() {
+        return then(stream.unordered());
+    }
+
+    @Override
+    public LINQLongStream onClose(Runnable closeHandler) {
+        return then(stream.onClose(closeHandler));
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return stream.iterator();
+    }
+
+    @Override
+    public Spliterator.OfLong spliterator() {
+        return stream.spliterator();
+    }
+
+    @Override
+    public boolean isParallel() {
+        return stream.isParallel();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    public long count(LongPredicate predicate) {
+        return filter(predicate).count();
+    }
+
+    public OptionalLong findFirst(LongPredicate predicate) {
+        return filter(predicate).findFirst();
+    }
+
+    public long first() {
+        return findFirst().orElseThrow();
+    }
+
+    public long first(LongPredicate predicate) {
+        return findFirst(predicate).orElseThrow();
+    }
+
+    public long firstOrDefault(LongPredicate predicate, long fallback) {
+        return findFirst(predicate).orElse(fallback);
+    }
+
+    public long firstOrDefault(LongPredicate predicate) {
+        return findFirst(predicate).orElse(0);
+    }
+
+    public long firstOrDefault(long fallback) {
+        return findFirst().orElse(fallback);
+    }
+
+    public long firstOrDefault() {
+        return findFirst().orElse(0);
+    }
+
+    public long firstOrGet(LongPredicate predicate, LongSupplier fallback) {
+        return findFirst(predicate).orElseGet(fallback);
+    }
+
+    public OptionalLong findLast() {
+        // Keeps the later of every two elements, without boxing either, and stays correct in parallel
+        return stream.reduce((first, second) -> second);
+    }
+
+    public OptionalLong findLast(LongPredicate predicate) {
+        return filter(predicate).findLast();
+    }
+
+    public long last() {
+        return findLast().orElseThrow();
+    }
+
+    public long last(LongPredicate predicate) {
+        return findLast(predicate).orElseThrow();
+    }
+
+    public long lastOrDefault(LongPredicate predicate, long fallback) {
+        return findLast(predicate).orElse(fallback);
+    }
+
+    public long lastOrDefault(long fallback) {
+        return findLast().orElse(fallback);
+    }
+
+    public long lastOrDefault(LongPredicate predicate) {
+        return findLast(predicate).orElse(0);
+    }
+
+    public long lastOrDefault() {
+        return findLast().orElse(0);
+    }
+
+    public long lastOrGet(LongPredicate predicate, LongSupplier fallback) {
+        return findLast(predicate).orElseGet(fallback);
+    }
+
+    public LINQLongStream concat(LongStream other) {
+        return then(LongStream.concat(stream, other));
+    }
+
+    public LINQLongStream reverse() {
+        long[] values = stream.toArray();
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            long value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+        return replace(LongStream.of(values));
+    }
+
+    public long[] toArray(LongPredicate predicate) {
+        return filter(predicate).toArray();
+    }
+
+    public LongHashSet toSet() {
+        return stream.collect(LongHashSet::new, LongHashSet::add, LongHashSet::addAll);
+    }
+
+    public LongHashSet toSet(LongPredicate predicate) {
+        return filter(predicate).toSet();
+    }
+
+    private LINQLongStream then(LongStream next) {
+        stream = next;
+        return this;
+    }
+
+    /**
+     * Continues the pipeline from a new stream of its elements, keeping its parallelism and close handlers.
+     */
+    private LINQLongStream replace(LongStream next) {
+        LongStream previous = stream;
+        return then((previous.isParallel() ? next.parallel() : next).onClose(previous::close));
+    }
+}
@@ -1,253 +1,307 @@
 package com.sylvona.leona.core.commons.streams;
 
+import com.google.common.base.Suppliers;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Streams;
 import jakarta.annotation.Nullable;
-import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.function.*;
 import java.util.stream.*;
 
-@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+/**
+ * {@link Stream} with LINQ-style operators. A whole pipeline is a single {@code LINQStream}: intermediate operators
+ * return the same instance instead of wrapping it again, and runs of consecutive {@link #filter}, {@link #map} and
+ * {@link #peek} operators are fused into a single stage of the underlying stream. Runs without filters become one
+ * {@code map} (or {@code peek}) stage, which keeps the size of the stream known, runs with filters one {@code mapMulti}.
+ * <p>
+ * <b>Intermediate operators modify this stream and return it, they do not return a new stream.</b> Where a JDK stream
+ * throws {@link IllegalStateException} when an earlier step of its pipeline is reused, a reference to an earlier step
+ * of a {@code LINQStream} is the same object, and silently sees every operator added since:
+ * <pre>{@code
+ * LINQStream<User> users = LINQ.stream(list);
+ * LINQStream<User> active = users.filter(User::isActive);
+ * long count = users.count(); // counts the active users only, users == active
+ * }</pre>
+ * Only the result of the latest operator may be used, and a pipeline must not be branched: create a stream from the
+ * source again for every branch.
+ * <p>
+ * Streams created from a collection or array keep track of it, and answer {@link #count()}, {@link #skip(long)},
+ * {@link #reverse()} and the {@code last} family from the source itself (by size, index or descending iteration) for as
+ * long as no operator changing the order or number of elements came in between. Pending {@link #map}s are applied to
+ * the elements taken from the source, pending {@link #peek}s always make the pipeline traverse every element.
+ */
 public class LINQStream<T> implements Stream<T> {
-    private final Stream<T> stream;
+    private static final byte FILTER = 0;
+    private static final byte MAP = 1;
+    private static final byte PEEK = 2;
+    private static final Object FILTERED = new Object();
+
+    private Stream<Object> stream;
+    // The collection the stream was created from, valid while stream is still sourceStream
+    private @Nullable Collection<?> source;
+    private @Nullable Stream<Object> sourceStream;
+    // Operators not yet applied to the stream, fused into one stage by pipeline()
+    private byte[] kinds;
+    private Object[] operators;
+    private int pending;
+    // Whether the pipeline has a peek, which count() must not skip like JDK streams of a known size do
+    private boolean peeked;
+
+    @SuppressWarnings("unchecked")
+    LINQStream(Stream<T> stream) {
+        this.stream = (Stream<Object>) stream;
+    }
+
+    LINQStream(Stream<T> stream, Collection<? extends T> source) {
+        this(stream);
+        this.source = source;
+        this.sourceStream = this.stream;
+    }
 
     @Override
     public LINQStream<T> filter(Predicate<? super T> predicate) {
-        return new LINQStream<>(stream.filter(predicate));
+        return fuse(FILTER, Objects.requireNonNull(predicate));
     }
 
     @Override
     public <R> LINQStream<R> map(Function<? super T, ? extends R> mapper) {
-        return new LINQStream<>(stream.map(mapper));
+        return fuse(MAP, Objects.requireNonNull(mapper));
     }
 
     @Override
-    public IntStream mapToInt(ToIntFunction<? super T> mapper) {
-        return stream.mapToInt(mapper);
+    public LINQIntStream mapToInt(ToIntFunction<? super T> mapper) {
+        return new LINQIntStream(pipeline().mapToInt(mapper));
     }
 
     @Override
-    public LongStream mapToLong(ToLongFunction<? super T> mapper) {
-        return stream.mapToLong(mapper);
+    public LINQLongStream mapToLong(ToLongFunction<? super T> mapper) {
+        return new LINQLongStream(pipeline().mapToLong(mapper));
     }
 
     @Override
-    public DoubleStream mapToDouble(ToDoubleFunction<? super T> mapper) {
-        return stream.mapToDouble(mapper);
+    public LINQDoubleStream mapToDouble(ToDoubleFunction<? super T> mapper) {
+        return new LINQDoubleStream(pipeline().mapToDouble(mapper));
     }
 
     @Override
     public <R> LINQStream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper) {
-        return new LINQStream<>(stream.flatMap(mapper));
+        return then(pipeline().flatMap(mapper));
     }
 
     @Override
-    public IntStream flatMapToInt(Function<? super T, ? extends IntStream> mapper) {
-        return stream.flatMapToInt(mapper);
+    public LINQIntStream flatMapToInt(Function<? super T, ? extends IntStream> mapper) {
+        return new LINQIntStream(pipeline().flatMapToInt(mapper));
     }
 
     @Override
-    public LongStream flatMapToLong(Function<? super T, ? extends LongStream> mapper) {
-        return stream.flatMapToLong(mapper);
+    public LINQLongStream flatMapToLong(Function<? super T, ? extends LongStream> mapper) {
+        return new LINQLongStream(pipeline().flatMapToLong(mapper));
     }
 
     @Override
-    public DoubleStream flatMapToDouble(Function<? super T, ? extends DoubleStream> mapper) {
-        return stream.flatMapToDouble(mapper);
+    public LINQDoubleStream flatMapToDouble(Function<? super T, ? extends DoubleStream> mapper) {
+        return new LINQDoubleStream(pipeline().flatMapToDouble(mapper));
     }
 
     @Override
     public LINQStream<T> distinct() {
-        return new LINQStream<>(stream.distinct());
+        return then(pipeline().distinct());
     }
 
     @Override
     public LINQStream<T> sorted() {
-        return new LINQStream<>(stream.sorted());
+        return then(pipeline().sorted());
     }
 
     @Override
     public LINQStream<T> sorted(Comparator<? super T> comparator) {
-        return new LINQStream<>(stream.sorted(comparator));
+        return then(pipeline().sorted(comparator));
     }
 
     @Override
     public LINQStream<T> peek(Consumer<? super T> action) {
-        return new LINQStream<>(stream.peek(action));
+        peeked = true;
+        return fuse(PEEK, Objects.requireNonNull(action));
     }
 
     @Override
     public LINQStream<T> limit(long maxSize) {
-        return new LINQStream<>(stream.limit(maxSize));
+        return then(pipeline().limit(maxSize));
     }
 
     @Override
     public LINQStream<T> skip(long n) {
-        return new LINQStream<>(stream.skip(n));
+        if (n >= 0 && isSourceAligned(false) && source instanceof List<?> list) {
+            return resource(list.subList((int) Math.min(n, list.size()), list.size()));
+        }
+        return then(pipeline().skip(n));
     }
 
     @Override
     public void forEach(Consumer<? super T> action) {
-        stream.forEach(action);
+        pipeline().forEach(action);
     }
 
     @Override
     public void forEachOrdered(Consumer<? super T> action) {
-        stream.forEachOrdered(action);
+        pipeline().forEachOrdered(action);
     }
 
     @Override
     public Object[] toArray() {
-        return stream.toArray();
+        return pipeline().toArray();
     }
 
     @Override
     public <A> A[] toArray(IntFunction<A[]> generator) {
-        return stream.toArray(generator);
+        return pipeline().toArray(generator);
     }
 
     @Override
     public T reduce(T identity, BinaryOperator<T> accumulator) {
-        return stream.reduce(identity, accumulator);
+        return pipeline().reduce(identity, accumulator);
     }
 
     @Override
     public Optional<T> reduce(BinaryOperator<T> accumulator) {
-        return stream.reduce(accumulator);
+        return pipeline().reduce(accumulator);
     }
 
     @Override
     public <U> U reduce(U identity, BiFunction<U, ? super T, U> accumulator, BinaryOperator<U> combiner) {
-        return stream.reduce(identity, accumulator, combiner);
+        return pipeline().reduce(identity, accumulator, combiner);
     }
 
     @Override
     public <R> R collect(Supplier<R> supplier, BiConsumer<R, ? super T> accumulator, BiConsumer<R, R> combiner) {
-        return stream.collect(supplier, accumulator, combiner);
+        return pipeline().collect(supplier, accumulator, combiner);
     }
 
     @Override
     public <R, A> R collect(Collector<? super T, A, R> collector) {
-        return stream.collect(collector);
+        return pipeline().collect(collector);
     }
 
     @Override
     public Optional<T> min(Comparator<? super T> comparator) {
-        return stream.min(comparator);
+        return pipeline().min(comparator);
     }
 
     @Override
     public Optional<T> max(Comparator<? super T> comparator) {
-        return stream.max(comparator);
+        return pipeline().max(comparator);
     }
 
     @Override
     public long count() {
-        return stream.count();
+        if (isSourceAligned(false)) return source.size();
+        if (peeked) return pipeline().mapToLong(element -> 1).sum();
+        return pipeline().count();
     }
 
     public long count(Predicate<T> predicate) {
-        return LINQ.count(stream, predicate);
+        return LINQ.count(this, predicate);
     }
 
     @Override
     public boolean anyMatch(Predicate<? super T> predicate) {
-        return stream.anyMatch(predicate);
+        return pipeline().anyMatch(predicate);
     }
 
     @Override
     public boolean allMatch(Predicate<? super T> predicate) {
-        return stream.allMatch(predicate);
+        return pipeline().allMatch(predicate);
     }
 
     @Override
     public boolean noneMatch(Predicate<? super T> predicate) {
-        return stream.noneMatch(predicate);
+        return pipeline().noneMatch(predicate);
     }
 
     @Override
     public Optional<T> findFirst() {
-        return stream.findFirst();
+        return pipeline().findFirst();
     }
 
     public Optional<T> findFirst(Predicate<T> predicate) {
-        return LINQ.findFirst(stream, predicate);
+        return LINQ.findFirst(this, predicate);
     }
 
     @Override
     public Optional<T> findAny() {
-        return stream.findAny();
+        return pipeline().findAny();
     }
 
     public T first() {
-        return LINQ.first(stream);
+        return LINQ.first(this);
     }
 
     public T first(Predicate<T> predicate) {
-        return LINQ.first(stream, predicate);
+        return LINQ.first(this, predicate);
     }
 
     public T firstOrDefault(Predicate<T> predicate, @Nullable T fallback) {
-        return LINQ.firstOrDefault(stream, predicate, fallback);
+        return LINQ.firstOrDefault(this, predicate, fallback);
     }
 
     public T firstOrDefault(Predicate<T> predicate) {
-        return LINQ.firstOrDefault(stream, predicate);
+        return LINQ.firstOrDefault(this, predicate);
     }
 
     public T firstOrDefault() {
-        return LINQ.firstOrDefault(stream);
+        return LINQ.firstOrDefault(this);
     }
 
     public T firstOrGet(Predicate<T> predicate, Supplier<T> fallback) {
-        return LINQ.firstOrGet(stream, predicate, fallback);
+        return LINQ.firstOrGet(this, predicate, fallback);
     }
 
     public Optional<T> findLast() {
-        return LINQ.findLast(stream);
+        return findLastMatching(null);
     }
 
     public Optional<T> findLast(Predicate<T> predicate) {
-        return LINQ.findLast(stream, predicate);
+        return findLastMatching(Objects.requireNonNull(predicate));
     }
 
     public T last() {
-        return LINQ.last(stream);
+        return LINQ.last(this);
     }
 
     public T last(Predicate<T> predicate) {
-        return LINQ.last(stream, predicate);
+        return LINQ.last(this, predicate);
     }
 
     public T lastOrDefault(Predicate<T> predicate, @Nullable T fallback) {
-        return LINQ.lastOrDefault(stream, predicate, fallback);
+        return LINQ.lastOrDefault(this, predicate, fallback);
     }
 
     public T lastOrDefault(@Nullable T fallback) {
-        return LINQ.lastOrDefault(stream, fallback);
+        return LINQ.lastOrDefault(this, fallback);
     }
 
     public T lastOrDefault(Predicate<T> predicate) {
-        return LINQ.lastOrDefault(stream, predicate);
+        return LINQ.lastOrDefault(this, predicate);
     }
 
     public T lastOrDefault() {
-        return LINQ.lastOrDefault(stream);
+        return LINQ.lastOrDefault(this);
     }
 
     public T lastOrGet(Predicate<T> predicate, Supplier<T> fallback) {
-        return LINQ.lastOrGet(stream, predicate, fallback);
+        return LINQ.lastOrGet(this, predicate, fallback);
     }
 
     @Override
     public Iterator<T> iterator() {
-        return stream.iterator();
+        return pipeline().iterator();
     }
 
     @Override
     public Spliterator<T> spliterator() {
-        return stream.spliterator();
+        return pipeline().spliterator();
     }
 
     @Override
@@ -257,22 +311,27 @@ public class LINQStream<T> implements Stream<T> {
 
     @Override
     public LINQStream<T> sequential() {
-        return new LINQStream<>(stream.sequential());
+        // Applies to the whole pipeline, pending operators included, so there is no need to apply them first
+        stream = stream.sequential();
+        return this;
     }
 
     @Override
     public LINQStream<T> parallel() {
-        return new LINQStream<>(stream.parallel());
+        stream = stream.parallel();
+        return this;
     }
 
     @Override
     public LINQStream<T> unordered() {
-        return new LINQStream<>(stream.unordered());
+        stream = stream.unordered();
+        return this;
     }
 
     @Override
     public LINQStream<T> onClose(Runnable closeHandler) {
-        return new LINQStream<>(stream.onClose(closeHandler));
+        stream = stream.onClose(closeHandler);
+        return this;
     }
 
     @Override
@@ -281,43 +340,367 @@ public class LINQStream<T> implements Stream<T> {
     }
 
     public LINQStream<T> concat(Stream<? extends T> other) {
-        return LINQ.concat(stream, other);
+        return then(Stream.concat(pipeline(), other));
     }
 
     public LINQStream<T> concat(Collection<? extends T> collection) {
-        return LINQ.concat(stream, collection);
+        return concat(collection.stream());
     }
 
     @SafeVarargs
     public final LINQStream<T> join(Stream<? extends T>... streams) {
-        return LINQ.join(stream, streams);
+        Stream<T> joined = pipeline();
+        for (Stream<? extends T> other : streams) {
+            joined = Stream.concat(joined, other);
+        }
+        return then(joined);
+    }
+
+    /**
+     * Correlates the elements of this stream with those of {@code inner} having an equal key, like an SQL inner join.
+     * Elements with a null key match nothing. {@code inner} is indexed into a {@link Lookup} when the stream is consumed,
+     * and this stream is streamed through the index, so results follow the order of this stream. Unordered streams index
+     * whichever side is smaller when its size is known instead. Parallel streams build a hash partitioned index; only
+     * the indexed side is partitioned, the streamed side is split like that of any parallel stream.
+     * @param inner the elements to join with
+     * @param outerKeySelector computes the key of an element of this stream
+     * @param innerKeySelector computes the key of an inner element
+     * @param resultSelector combines two matching elements into a result
+     * @return a stream of the results of every matching pair
+     */
+    public <U, K, R> LINQStream<R> join(Stream<U> inner, Function<? super T, ? extends K> outerKeySelector,
+                                        Function<? super U, ? extends K> innerKeySelector,
+                                        BiFunction<? super T, ? super U, ? extends R> resultSelector) {
+        boolean parallel = stream.isParallel();
+        Spliterator<T> outerSpliterator = pipeline().spliterator();
+        Spliterator<U> innerSpliterator = inner.spliterator();
+        long outerSize = outerSpliterator.getExactSizeIfKnown();
+        long innerSize = innerSpliterator.getExactSizeIfKnown();
+        Stream<T> outer = StreamSupport.stream(outerSpliterator, parallel);
+        Stream<U> innerStream = StreamSupport.stream(innerSpliterator, parallel).onClose(inner::close);
+
+        // Streaming inner through an index of this stream would yield results in the order of inner
+        boolean ordered = outerSpliterator.hasCharacteristics(Spliterator.ORDERED);
+        if (!ordered && outerSize >= 0 && (innerSize < 0 || outerSize < innerSize)) {
+            Supplier<Lookup<K, T>> index = Suppliers.memoize(() -> outer.collect(Lookup.collector(outerKeySelector, Function.identity(), parallel)));
+            return reset(innerStream.<R>mapMulti((innerElement, downstream) -> {
+                K key = innerKeySelector.apply(innerElement);
+                if (key == null) return;
+                for (T outerElement : index.get().get(key)) downstream.accept(resultSelector.apply(outerElement, innerElement));
+            }), null);
+        }
+
+        Supplier<Lookup<K, U>> index = Suppliers.memoize(() -> innerStream.collect(Lookup.collector(innerKeySelector, Function.identity(), parallel)));
+        return reset(outer.<R>mapMulti((outerElement, downstream) -> {
+            K key = outerKeySelector.apply(outerElement);
+            if (key == null) return;
+            for (U innerElement : index.get().get(key)) downstream.accept(resultSelector.apply(outerElement, innerElement));
+        }).onClose(innerStream::close), null);
+    }
+
+    public <U, K, R> LINQStream<R> join(Collection<U> inner, Function<? super T, ? extends K> outerKeySelector,
+                                        Function<? super U, ? extends K> innerKeySelector,
+                                        BiFunction<? super T, ? super U, ? extends R> resultSelector) {
+        return join(inner.stream(), outerKeySelector, innerKeySelector, resultSelector);
+    }
+
+    /**
+     * Correlates every element of this stream with the (possibly empty) list of elements of {@code inner} having an equal
+     * key, like an SQL left outer join grouped by the outer element. {@code inner} is indexed into a {@link Lookup} when
+     * the stream is consumed, and results follow the order of this stream.
+     * @param inner the elements to join with
+     * @param outerKeySelector computes the key of an element of this stream
+     * @param innerKeySelector computes the key of an inner element
+     * @param resultSelector combines an element with its matching inner elements into a result
+     * @return a stream with one result per element of this stream
+     */
+    public <U, K, R> LINQStream<R> groupJoin(Stream<U> inner, Function<? super T, ? extends K> outerKeySelector,
+                                             Function<? super U, ? extends K> innerKeySelector,
+                                             BiFunction<? super T, ? super List<U>, ? extends R> resultSelector) {
+        boolean parallel = stream.isParallel();
+        Supplier<Lookup<K, U>> index = Suppliers.memoize(() -> inner.collect(Lookup.collector(innerKeySelector, Function.identity(), parallel)));
+        stream = stream.onClose(inner::close);
+        return map(outerElement -> {
+            K key = outerKeySelector.apply(outerElement);
+            return resultSelector.apply(outerElement, key == null ? List.of() : index.get().get(key));
+        });
+    }
+
+    public <U, K, R> LINQStream<R> groupJoin(Collection<U> inner, Function<? super T, ? extends K> outerKeySelector,
+                                             Function<? super U, ? extends K> innerKeySelector,
+                                             BiFunction<? super T, ? super List<U>, ? extends R> resultSelector) {
+        return groupJoin(inner.stream(), outerKeySelector, innerKeySelector, resultSelector);
+    }
+
+    /**
+     * Groups the elements by key when the stream is consumed, see {@link #toLookup(Function)}.
+     * @return a stream of the groups, in the order their keys were first encountered if this stream is ordered
+     */
+    public <K> LINQStream<Grouping<K, T>> groupBy(Function<? super T, ? extends K> keySelector) {
+        return groupBy(keySelector, Function.identity());
+    }
+
+    public <K, V> LINQStream<Grouping<K, V>> groupBy(Function<? super T, ? extends K> keySelector, Function<? super T, ? extends V> elementSelector) {
+        boolean parallel = stream.isParallel();
+        Spliterator<T> upstream = pipeline().spliterator();
+        // Partitioned lookups keep the first-encounter order within each partition only, ordered groups need a single one
+        boolean ordered = upstream.hasCharacteristics(Spliterator.ORDERED);
+        Supplier<Spliterator<Grouping<K, V>>> groups = () -> StreamSupport.stream(upstream, parallel)
+                .collect(Lookup.<T, K, V>collector(keySelector, elementSelector, parallel && !ordered))
+                .groupings().spliterator();
+        return reset(StreamSupport.stream(groups, (ordered ? Spliterator.ORDERED : 0) | Spliterator.NONNULL, parallel), null);
+    }
+
+    public <K> Lookup<K, T> toLookup(Function<? super T, ? extends K> keySelector) {
+        return toLookup(keySelector, Function.identity());
+    }
+
+    /**
+     * Groups the elements into an immutable {@link Lookup}, presized for the number of elements.
+     * @param keySelector computes the key of an element
+     * @param elementSelector computes the value kept for an element
+     * @return the lookup of the elements' values by key
+     */
+    public <K, V> Lookup<K, V> toLookup(Function<? super T, ? extends K> keySelector, Function<? super T, ? extends V> elementSelector) {
+        return pipeline().collect(Lookup.collector(keySelector, elementSelector, stream.isParallel()));
+    }
+
+    /**
+     * Splits the stream into consecutive chunks of {@code size} elements, the last chunk holding the remaining elements.
+     * Streams of random access lists chunk the list itself: chunks are unmodifiable views of it, and the stream splits
+     * exactly on chunk boundaries for parallel execution.
+     * @param size the number of elements per chunk
+     * @return a stream of the chunks
+     */
+    public LINQStream<List<T>> chunk(int size) {
+        return windowed(size, size, true);
+    }
+
+    /**
+     * Splits the stream into windows of {@code size} elements, every window starting {@code step} elements after the
+     * previous one: windows slide when {@code step < size}, are tumbling when {@code step == size} and skip elements
+     * when {@code step > size}. Only full windows are included, see {@link #chunk(int)} for the last partial one.
+     * Streams of random access lists are windowed without copying, like {@link #chunk(int)}.
+     * @param size the number of elements per window
+     * @param step the distance between the first elements of two consecutive windows
+     * @return a stream of the windows
+     */
+    public LINQStream<List<T>> window(int size, int step) {
+        return windowed(size, step, false);
+    }
+
+    /**
+     * Splits the stream into batches of at most {@code maxSize} elements, a batch being closed as soon as
+     * {@code maxWait} has passed since its first element. The wait is checked as elements arrive, so a source blocking
+     * for its next element also holds back the current batch.
+     * @param maxSize the maximum number of elements per batch
+     * @param maxWait the longest time elements wait in a batch for more elements
+     * @return a stream of the batches
+     */
+    public LINQStream<List<T>> buffer(int maxSize, Duration maxWait) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Buffer size must be positive: " + maxSize);
+        long maxWaitNanos = maxWait.toNanos();
+        return reset(StreamSupport.stream(new BufferSpliterator<>(pipeline().spliterator(), maxSize, maxWaitNanos), false), null);
+    }
+
+    /**
+     * Passes consecutive chunks of {@code size} elements to {@code action}, like {@code chunk(size).forEach(action)}
+     * but reusing one list for every chunk of sequential streams: the list is cleared once {@code action} returns, so
+     * {@code action} must not keep it.
+     * @param size the number of elements per chunk
+     * @param action receives every chunk
+     */
+    public void forEachChunk(int size, Consumer<? super List<T>> action) {
+        if (size <= 0) throw new IllegalArgumentException("Chunk size must be positive: " + size);
+        if (stream.isParallel()) {
+            chunk(size).forEach(action);
+            return;
+        }
+
+        List<T> chunk = new ArrayList<>(size);
+        pipeline().forEachOrdered(element -> {
+            chunk.add(element);
+            if (chunk.size() == size) {
+                action.accept(chunk);
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) action.accept(chunk);
+    }
+
+    @SuppressWarnings("unchecked")
+    private LINQStream<List<T>> windowed(int size, int step, boolean partial) {
+        if (size <= 0 || step <= 0) throw new IllegalArgumentException("Window size and step must be positive: %d, %d".formatted(size, step));
+
+        if (pending == 0 && isSourceAligned(false) && source instanceof List<?> list && list instanceof RandomAccess) {
+            return reset(StreamSupport.stream(new ListWindowSpliterator<>((List<T>) list, size, step, partial), false), null);
+        }
+        return reset(StreamSupport.stream(new WindowSpliterator<>(pipeline().spliterator(), size, step, partial), false), null);
     }
 
     public <R> LINQStream<R> ofType(Class<R> targetClass) {
-        return LINQ.ofType(stream, targetClass);
+        return filter(i -> targetClass.isAssignableFrom(i.getClass())).map(i -> (R) i);
     }
 
     public LINQStream<T> reverse() {
-        return LINQ.reverse(stream);
+        // Filters and maps apply to each element on its own, they stay pending on top of the reversed source
+        if (isSourceAligned(true) && source instanceof List<?> list) return resource(Lists.reverse(list));
+        if (isSourceAligned(true) && source instanceof Deque<?> deque) {
+            Spliterator<?> descending = Spliterators.spliterator(deque.descendingIterator(), deque.size(), Spliterator.ORDERED);
+            return reset(StreamSupport.stream(descending, false), null);
+        }
+        return LINQ.reverseCopy(pipeline());
     }
 
     public List<T> toList(Predicate<T> predicate) {
-        return LINQ.toList(stream, predicate);
+        return LINQ.toList(this, predicate);
     }
 
-    public Set<T> toSet() { return LINQ.toSet(stream); }
+    public Set<T> toSet() { return LINQ.toSet(this); }
 
-    public Set<T> toSet(Predicate<T> predicate) { return LINQ.toSet(stream, predicate); }
+    public Set<T> toSet(Predicate<T> predicate) { return LINQ.toSet(this, predicate); }
 
     public <TKey, TValue> Map<TKey, TValue> toMap(Function<T, TKey> keyFunction, Function<T, TValue> valueFunction) {
-        return LINQ.toMap(stream, keyFunction, valueFunction);
+        return LINQ.toMap(this, keyFunction, valueFunction);
     }
 
     public <TKey, TValue> Map<TKey, TValue> toMap(Function<T, TKey> keyFunction, Function<T, TValue> valueFunction, Supplier<Map<TKey, TValue>> mapSupplier) {
-        return LINQ.toMap(stream, keyFunction, valueFunction, mapSupplier);
+        return LINQ.toMap(this, keyFunction, valueFunction, mapSupplier);
     }
 
     public <C extends Collection<T>> C collect(Supplier<C> collection) {
-        return LINQ.collect(stream, collection);
+        return LINQ.collect(this, collection);
+    }
+
+    /**
+     * @return whether no operator was applied since this stream was created on top of {@code origin}
+     */
+    boolean isUnchanged(Stream<?> origin) {
+        return pending == 0 && stream == origin;
+    }
+
+    /**
+     * Tells whether the elements of the pipeline are still those of its source, in the same order and each transformed on
+     * its own by the pending maps (and filters, if allowed).
+     */
+    private boolean isSourceAligned(boolean filtersAllowed) {
+        if (source == null || stream != sourceStream) return false;
+        for (int i = 0; i < pending; i++) {
+            if (kinds[i] == PEEK || (kinds[i] == FILTER && !filtersAllowed)) return false;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<T> findLastMatching(@Nullable Predicate<? super T> predicate) {
+        if (!isSourceAligned(true) || !(source instanceof List<?> || source instanceof Deque<?>)) {
+            return Streams.findLast(predicate == null ? pipeline() : filter(predicate).pipeline());
+        }
+
+        Iterator<?> descending = source instanceof Deque<?> deque ? deque.descendingIterator() : Lists.reverse((List<?>) source).iterator();
+        while (descending.hasNext()) {
+            Object element = apply(kinds, operators, pending, descending.next());
+            if (element == FILTERED || (predicate != null && !predicate.test((T) element))) continue;
+            // Like a traversal, a null last element cannot be represented
+            return Optional.of((T) element);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Moves the pipeline onto a view of its source, keeping the pending operators and close handlers.
+     */
+    private LINQStream<T> resource(List<?> view) {
+        return reset(view.stream(), view);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> LINQStream<R> reset(Stream<?> next, @Nullable Collection<?> view) {
+        Stream<Object> previous = stream;
+        stream = (Stream<Object>) (previous.isParallel() ? next.parallel() : next);
+        stream = stream.onClose(previous::close);
+        source = view;
+        sourceStream = stream;
+        return (LINQStream<R>) this;
+    }
+
+    /**
+     * Applies the pending fused operators, if any, to the underlying stream.
+     * @return the underlying stream with every operator applied
+     */
+    @SuppressWarnings("unchecked")
+    private Stream<T> pipeline() {
+        if (pending > 0) {
+            stream = fused(stream, kinds, operators, pending);
+            // The stage keeps the arrays, later operators start a new run
+            kinds = null;
+            operators = null;
+            pending = 0;
+        }
+        return (Stream<T>) stream;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> LINQStream<R> then(Stream<? extends R> next) {
+        stream = (Stream<Object>) next;
+        return (LINQStream<R>) this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> LINQStream<R> fuse(byte kind, Object operator) {
+        if (operators == null) {
+            kinds = new byte[4];
+            operators = new Object[4];
+        } else if (pending == operators.length) {
+            kinds = Arrays.copyOf(kinds, pending * 2);
+            operators = Arrays.copyOf(operators, pending * 2);
+        }
+        kinds[pending] = kind;
+        operators[pending++] = operator;
+        return (LINQStream<R>) this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Stream<Object> fused(Stream<Object> stream, byte[] kinds, Object[] operators, int count) {
+        if (count == 1) {
+            return switch (kinds[0]) {
+                case FILTER -> stream.filter((Predicate<Object>) operators[0]);
+                case MAP -> stream.map((Function<Object, Object>) operators[0]);
+                default -> stream.peek((Consumer<Object>) operators[0]);
+            };
+        }
+
+        boolean filters = false;
+        boolean maps = false;
+        for (int i = 0; i < count; i++) {
+            filters |= kinds[i] == FILTER;
+            maps |= kinds[i] == MAP;
+        }
+        if (filters) {
+            return stream.mapMulti((element, downstream) -> {
+                Object result = apply(kinds, operators, count, element);
+                if (result != FILTERED) downstream.accept(result);
+            });
+        }
+        // One element in, one element out: unlike mapMulti, map and peek keep the stream SIZED
+        return maps ? stream.map(element -> apply(kinds, operators, count, element))
+                : stream.peek(element -> apply(kinds, operators, count, element));
+    }
+
+    /**
+     * @return the element after applying a run of fused operators, or {@link #FILTERED} if a filter rejected it
+     */
+    @SuppressWarnings("unchecked")
+    private static Object apply(byte[] kinds, Object[] operators, int count, Object element) {
+        for (int i = 0; i < count; i++) {
+            switch (kinds[i]) {
+                case FILTER -> {
+                    if (!((Predicate<Object>) operators[i]).test(element)) return FILTERED;
+                }
+                case MAP -> element = ((Function<Object, Object>) operators[i]).apply(element);
+                default -> ((Consumer<Object>) operators[i]).accept(element);
+            }
+        }
+        return element;
     }
 }
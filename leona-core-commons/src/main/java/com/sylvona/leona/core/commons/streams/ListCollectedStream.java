@@ -5,25 +5,27 @@ import java.util.function.IntFunction;
 import java.util.stream.Stream;
 
 class ListCollectedStream<T> extends LINQStream<T> {
+    private final Stream<T> origin;
     private final List<T> list;
 
     ListCollectedStream(Stream<T> stream, List<T> list) {
-        super(stream);
+        super(stream, list);
+        this.origin = stream;
         this.list = list;
     }
 
     @Override
     public List<T> toList() {
-        return list;
+        return isUnchanged(origin) ? list : super.toList();
     }
 
     @Override
     public Object[] toArray() {
-        return list.toArray();
+        return isUnchanged(origin) ? list.toArray() : super.toArray();
     }
 
     @Override
     public <A> A[] toArray(IntFunction<A[]> generator) {
-        return list.toArray(generator);
+        return isUnchanged(origin) ? list.toArray(generator) : super.toArray(generator);
     }
 }
@@ -0,0 +1,75 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Windows of an index-based (random access) list, as unmodifiable views of the list: no element is copied. Windows are
+ * numbered, window {@code k} starting at index {@code k * step}, so the spliterator splits exactly, on window boundaries.
+ */
+class ListWindowSpliterator<T> implements Spliterator<List<T>> {
+    private final List<T> list;
+    private final int size;
+    private final int step;
+    private long window;
+    private final long fence;
+
+    /**
+     * @param partial whether trailing windows shorter than {@code size} are included
+     */
+    ListWindowSpliterator(List<T> list, int size, int step, boolean partial) {
+        this(list, size, step, 0, windowCount(list.size(), size, step, partial));
+    }
+
+    private ListWindowSpliterator(List<T> list, int size, int step, long window, long fence) {
+        this.list = list;
+        this.size = size;
+        this.step = step;
+        this.window = window;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super List<T>> action) {
+        if (window >= fence) return false;
+        action.accept(view(window++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super List<T>> action) {
+        while (window < fence) action.accept(view(window++));
+    }
+
+    @Override
+    public Spliterator<List<T>> trySplit() {
+        long middle = (window + fence) >>> 1;
+        if (middle <= window) return null;
+
+        Spliterator<List<T>> prefix = new ListWindowSpliterator<>(list, size, step, window, middle);
+        window = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - window;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    private List<T> view(long window) {
+        int from = (int) (window * step);
+        return Collections.unmodifiableList(list.subList(from, Math.min(from + size, list.size())));
+    }
+
+    private static long windowCount(int elements, int size, int step, boolean partial) {
+        if (partial) return (elements + (long) step - 1) / step;
+        return elements < size ? 0 : (elements - size) / step + 1;
+    }
+}
@@ -0,0 +1,277 @@
+package com.sylvona.leona.core.commons.streams;
+
+import jakarta.annotation.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable multimap from keys to the elements sharing them, built by {@link LINQStream#toLookup} and used as the hash
+ * index of {@link LINQStream#join} and {@link LINQStream#groupJoin}. Null keys are allowed.
+ * <p>
+ * A lookup is laid out compactly: the elements of every group are stored contiguously in a single array, and the keys in
+ * an open-addressing index presized for the number of elements, so building never rehashes and a lookup holds a handful
+ * of arrays whatever its number of groups. Groups keep the order in which their keys were first encountered, and
+ * elements their encounter order.
+ * <p>
+ * Lookups built from parallel streams are hash partitioned, every partition being built by its own task. Groups then
+ * keep their first-encounter order within each partition only.
+ */
+public final class Lookup<K, V> implements Iterable<Grouping<K, V>> {
+    // Below this many elements, partitioning costs more than building a single index
+    private static final int PARTITIONING_THRESHOLD = 1 << 13;
+
+    private final Partition[] partitions;
+    private final int partitionShift;
+    private final int size;
+
+    private Lookup(Partition[] partitions) {
+        this.partitions = partitions;
+        this.partitionShift = Integer.SIZE - Integer.numberOfTrailingZeros(partitions.length);
+        int groups = 0;
+        for (Partition partition : partitions) groups += partition.groupKeys.length;
+        this.size = groups;
+    }
+
+    /**
+     * @param key a key, may be null
+     * @return the elements with the key, or an empty list if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> get(@Nullable Object key) {
+        int hash = hash(key);
+        Partition partition = partitions[partitionOf(hash)];
+        int group = partition.find(key, hash);
+        return group < 0 ? List.of() : (List<V>) partition.group(group);
+    }
+
+    public boolean contains(@Nullable Object key) {
+        int hash = hash(key);
+        return partitions[partitionOf(hash)].find(key, hash) >= 0;
+    }
+
+    /**
+     * @return the number of distinct keys
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return every group, see {@link Lookup} for their order
+     */
+    @SuppressWarnings("unchecked")
+    public List<Grouping<K, V>> groupings() {
+        List<Grouping<K, V>> groupings = new ArrayList<>(size);
+        for (Partition partition : partitions) {
+            for (int group = 0; group < partition.groupKeys.length; group++) {
+                groupings.add(new Grouping<>((K) partition.groupKeys[group], (List<V>) partition.group(group)));
+            }
+        }
+        return Collections.unmodifiableList(groupings);
+    }
+
+    @Override
+    public Iterator<Grouping<K, V>> iterator() {
+        return groupings().iterator();
+    }
+
+    public LINQStream<Grouping<K, V>> stream() {
+        return LINQ.stream(groupings());
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Grouping<K, V> grouping : this) joiner.add(grouping.key() + "=" + grouping.elements());
+        return joiner.toString();
+    }
+
+    /**
+     * Collects elements into a lookup, hash partitioning it when collecting a large parallel stream.
+     * @param parallel whether the collected stream is parallel, false to build a single partition whatever the stream
+     */
+    static <T, K, V> Collector<T, ?, Lookup<K, V>> collector(Function<? super T, ? extends K> keySelector,
+                                                            Function<? super T, ? extends V> elementSelector, boolean parallel) {
+        return Collector.of(Buffer::new, (buffer, element) -> buffer.add(keySelector.apply(element), elementSelector.apply(element)),
+                Buffer::addAll, buffer -> buffer.build(parallel));
+    }
+
+    private int partitionOf(int hash) {
+        // The partition takes the high bits of the hash, the partition's own index the low bits
+        return partitions.length == 1 ? 0 : hash >>> partitionShift;
+    }
+
+    private static int hash(@Nullable Object key) {
+        int hash = Objects.hashCode(key) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Keys and elements in encounter order, before being grouped.
+     */
+    private static final class Buffer {
+        private Object[] keys = new Object[16];
+        private Object[] elements = new Object[16];
+        private int count;
+
+        void add(Object key, Object element) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                elements = Arrays.copyOf(elements, count * 2);
+            }
+            keys[count] = key;
+            elements[count++] = element;
+        }
+
+        Buffer addAll(Buffer other) {
+            if (count + other.count > keys.length) {
+                keys = Arrays.copyOf(keys, count + other.count);
+                elements = Arrays.copyOf(elements, count + other.count);
+            }
+            System.arraycopy(other.keys, 0, keys, count, other.count);
+            System.arraycopy(other.elements, 0, elements, count, other.count);
+            count += other.count;
+            return this;
+        }
+
+        <K, V> Lookup<K, V> build(boolean parallel) {
+            int[] hashes = new int[count];
+            for (int i = 0; i < count; i++) hashes[i] = hash(keys[i]);
+
+            int partitionCount = parallel && count >= PARTITIONING_THRESHOLD
+                    ? Integer.highestOneBit(Math.max(1, ForkJoinPool.getCommonPoolParallelism())) : 1;
+            if (partitionCount == 1) return new Lookup<>(new Partition[] {new Partition(keys, elements, hashes, identityOrder(count))});
+
+            // Distributes element positions by partition, keeping encounter order within every partition
+            int shift = Integer.SIZE - Integer.numberOfTrailingZeros(partitionCount);
+            int[] starts = new int[partitionCount + 1];
+            for (int hash : hashes) starts[(hash >>> shift) + 1]++;
+            for (int i = 0; i < partitionCount; i++) starts[i + 1] += starts[i];
+            int[] positions = new int[count];
+            int[] cursors = Arrays.copyOf(starts, partitionCount);
+            for (int i = 0; i < count; i++) positions[cursors[hashes[i] >>> shift]++] = i;
+
+            Partition[] partitions = new Partition[partitionCount];
+            IntStream.range(0, partitionCount).parallel().forEach(p ->
+                    partitions[p] = new Partition(keys, elements, hashes, Arrays.copyOfRange(positions, starts[p], starts[p + 1])));
+            return new Lookup<>(partitions);
+        }
+
+        private static int[] identityOrder(int count) {
+            int[] positions = new int[count];
+            for (int i = 0; i < count; i++) positions[i] = i;
+            return positions;
+        }
+    }
+
+    /**
+     * The groups of one partition: group {@code g} has key {@code groupKeys[g]} and its elements are
+     * {@code elements[offsets[g]]} to {@code elements[offsets[g + 1]]} (excluded).
+     */
+    private static final class Partition {
+        private final Object[] groupKeys;
+        private final int[] groupHashes;
+        private final int[] offsets;
+        private final Object[] elements;
+        // Open-addressing index of group numbers plus one, zero marking free slots
+        private final int[] index;
+        private final int mask;
+
+        /**
+         * @param positions the positions, within {@code keys} and {@code values}, of the partition's elements
+         */
+        Partition(Object[] keys, Object[] values, int[] hashes, int[] positions) {
+            int capacity = Integer.highestOneBit(Math.max(2, positions.length * 2) - 1) << 1;
+            this.index = new int[capacity];
+            this.mask = capacity - 1;
+
+            Object[] groupKeys = new Object[positions.length];
+            int[] groupHashes = new int[positions.length];
+            int[] groupOf = new int[positions.length];
+            int[] counts = new int[positions.length + 1];
+            int groups = 0;
+
+            for (int i = 0; i < positions.length; i++) {
+                Object key = keys[positions[i]];
+                int hash = hashes[positions[i]];
+                int slot = hash & mask;
+                int group;
+                while (true) {
+                    int entry = index[slot];
+                    if (entry == 0) {
+                        group = groups++;
+                        groupKeys[group] = key;
+                        groupHashes[group] = hash;
+                        index[slot] = group + 1;
+                        break;
+                    }
+                    if (groupHashes[entry - 1] == hash && Objects.equals(groupKeys[entry - 1], key)) {
+                        group = entry - 1;
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                groupOf[i] = group;
+                counts[group + 1]++;
+            }
+
+            for (int group = 0; group < groups; group++) counts[group + 1] += counts[group];
+            int[] cursors = Arrays.copyOf(counts, groups);
+            Object[] elements = new Object[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                elements[cursors[groupOf[i]]++] = values[positions[i]];
+            }
+
+            this.groupKeys = Arrays.copyOf(groupKeys, groups);
+            this.groupHashes = Arrays.copyOf(groupHashes, groups);
+            this.offsets = Arrays.copyOf(counts, groups + 1);
+            this.elements = elements;
+        }
+
+        int find(Object key, int hash) {
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int entry = index[slot];
+                if (entry == 0) return -1;
+                if (groupHashes[entry - 1] == hash && Objects.equals(groupKeys[entry - 1], key)) return entry - 1;
+            }
+        }
+
+        List<Object> group(int group) {
+            return new GroupView(elements, offsets[group], offsets[group + 1]);
+        }
+    }
+
+    /**
+     * Unmodifiable view of a group's elements, without copying them.
+     */
+    private static final class GroupView extends AbstractList<Object> implements RandomAccess {
+        private final Object[] elements;
+        private final int from;
+        private final int to;
+
+        GroupView(Object[] elements, int from, int to) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Object get(int index) {
+            Objects.checkIndex(index, to - from);
+            return elements[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.sylvona.leona.core.commons.streams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Windows of any spliterator, read sequentially through a ring buffer holding the current window, so sliding windows read
+ * every element once. Splits by handing batches of windows to other threads, see {@link Spliterators.AbstractSpliterator}.
+ */
+class WindowSpliterator<T> extends Spliterators.AbstractSpliterator<List<T>> {
+    private final Spliterator<T> upstream;
+    private final int size;
+    private final int step;
+    private final boolean partial;
+    private final Object[] ring;
+    private int head;
+    private int count;
+    // Elements between two windows, when the step is larger than the size
+    private long gap;
+    private boolean exhausted;
+
+    /**
+     * @param partial whether trailing windows shorter than {@code size} are included
+     */
+    WindowSpliterator(Spliterator<T> upstream, int size, int step, boolean partial) {
+        super(estimate(upstream, step), (upstream.characteristics() & ORDERED) | NONNULL);
+        this.upstream = upstream;
+        this.size = size;
+        this.step = step;
+        this.partial = partial;
+        this.ring = new Object[size];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super List<T>> action) {
+        while (gap > 0 && !exhausted) {
+            if (upstream.tryAdvance(element -> {})) gap--;
+            else exhausted = true;
+        }
+        while (count < size && !exhausted) {
+            if (!upstream.tryAdvance(this::push)) exhausted = true;
+        }
+        if (count == 0 || (count < size && !partial)) return false;
+
+        List<T> window = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) window.add((T) ring[(head + i) % size]);
+
+        int dropped = Math.min(step, count);
+        for (int i = 0; i < dropped; i++) ring[(head + i) % size] = null;
+        head = (head + dropped) % size;
+        count -= dropped;
+        gap = step - dropped;
+
+        action.accept(window);
+        return true;
+    }
+
+    private void push(T element) {
+        ring[(head + count++) % size] = element;
+    }
+
+    private static long estimate(Spliterator<?> upstream, int step) {
+        long elements = upstream.estimateSize();
+        return elements == Long.MAX_VALUE ? Long.MAX_VALUE : (elements + step - 1) / step;
+    }
+}
@@ -0,0 +1,80 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The TTLs of a {@link TTLMethod} with adaptive expiration, adjusted on every reload of a key: halved when the value
+ * changed and grown by a quarter when it did not, always within the method's bounds. Every key adapts its own TTL, so a
+ * key whose value changes often does not shorten the TTL of the method's static keys.
+ * <p>
+ * Reloaded values are compared with the last value loaded for the same key, whether or not that value is still cached
+ * (it may have been evicted or expired by then). Only a hash of that value is remembered, along with the key's TTL, in a
+ * fixed size table shared by the method's keys: a key taking over the slot of a colliding key starts over from the
+ * initial TTL. Values are compared through their {@link Object#hashCode()}, so values of types which do not implement it
+ * consistently with {@link Object#equals(Object)} always count as changed.
+ */
+final class AdaptiveTTL {
+    private static final int FINGERPRINTS = 1 << 10;
+
+    private final long initialNanos;
+    private final long minimumNanos;
+    private final long maximumNanos;
+    private final AtomicLongArray fingerprints = new AtomicLongArray(FINGERPRINTS);
+    // The TTL of the key whose fingerprint shares the index, 0 until the key is first observed
+    private final AtomicLongArray ttls = new AtomicLongArray(FINGERPRINTS);
+
+    AdaptiveTTL(long initialNanos, long minimumNanos, long maximumNanos) {
+        this.initialNanos = initialNanos;
+        this.minimumNanos = minimumNanos;
+        this.maximumNanos = maximumNanos;
+    }
+
+    /**
+     * @param source the invoking object
+     * @param keyHash the hash code of a key of the method
+     * @return the key's current TTL, or the initial TTL if the key was not observed yet
+     */
+    long ttlNanos(Object source, int keyHash) {
+        keyHash = keyHash(source, keyHash);
+        int index = indexFor(keyHash);
+        long ttl = ttls.get(index);
+        return ttl != 0 && (int) (fingerprints.get(index) >>> 32) == keyHash ? ttl : initialNanos;
+    }
+
+    /**
+     * Remembers a loaded value, and adapts the key's TTL if a value was remembered for the same key
+     * @param source the invoking object
+     * @param key the key of the loaded value
+     * @param value the loaded value
+     * @return the key's TTL, adapted to the loaded value
+     */
+    long observe(Object source, TTLKey key, Object value) {
+        int keyHash = keyHash(source, key.hashCode());
+        int index = indexFor(keyHash);
+        // The upper half identifies the key, the lower half is the hash of its last value
+        long fingerprint = (long) keyHash << 32 | (Arrays.deepHashCode(new Object[]{value}) & 0xFFFFFFFFL);
+
+        long previous = fingerprints.getAndSet(index, fingerprint);
+        long ttl = initialNanos;
+        if (previous != 0 && (int) (previous >>> 32) == keyHash) {
+            long current = ttls.get(index);
+            ttl = adapt(current != 0 ? current : initialNanos, previous != fingerprint);
+        }
+        // Concurrent reloads of the same key may overwrite each other's adaptation, which merely skips an observation
+        ttls.set(index, ttl);
+        return ttl;
+    }
+
+    private long adapt(long ttl, boolean changed) {
+        return changed ? Math.max(minimumNanos, ttl / 2) : Math.min(maximumNanos, ttl + Math.max(1, ttl / 4));
+    }
+
+    private static int keyHash(Object source, int keyHash) {
+        return 31 * System.identityHashCode(source) + keyHash;
+    }
+
+    private static int indexFor(int keyHash) {
+        return (keyHash ^ (keyHash >>> 16)) & (FINGERPRINTS - 1);
+    }
+}
@@ -0,0 +1,16 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.io.Serializable;
+
+/**
+ * Marks a cached exception among the values of a {@link TTLStore}, see {@link TTLMethod#cacheExceptions()}.
+ * @param failure the exception every hit is caused by
+ * @param rethrown the exception thrown by every hit, built once
+ */
+record CachedFailure(Throwable failure, TTLCachedFailureException rethrown) implements Serializable {
+
+    CachedFailure(Throwable failure) {
+        // Neither a stack trace nor suppressed exceptions can be recorded on it, so every hit may safely share it
+        this(failure, new TTLCachedFailureException(failure));
+    }
+}
@@ -1,35 +1,98 @@
 package com.sylvona.leona.core.commons.ttl;
 
 import jakarta.annotation.Nullable;
-import org.aspectj.lang.reflect.MethodSignature;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * Complexity-Driven Safe Object Map (TTL Store)
  * Implements the basic functionality of {@link TTLStore<T>} using a {@link ComplexityDrivenSafeObjectMap<T>}.
  */
 class CdsoTTLStore<T> implements TTLStore<T> {
-    private final ComplexityDrivenSafeObjectMap<Map<Integer, TTLValue<T>>> objectMap = new ComplexityDrivenSafeObjectMap<>();
+    private final ComplexityDrivenSafeObjectMap<Map<TTLKey, TTLValue<T>>> objectMap = new ComplexityDrivenSafeObjectMap<>();
 
     @Override
-    public @Nullable TTLValue<T> fetchValue(Object source, MethodSignature signature) {
-        Map<Integer, TTLValue<T>> signatureMap = objectMap.get(source);
-        return signatureMap != null ? signatureMap.get(signatureHash(signature)) : null;
+    public @Nullable TTLValue<T> fetchValue(Object source, TTLKey key) {
+        Map<TTLKey, TTLValue<T>> keyMap = objectMap.get(source);
+        return keyMap != null ? keyMap.get(key) : null;
     }
 
     @Override
-    public TTLValue<T> storeValue(Object source, MethodSignature signature, T value, Duration lifetime) {
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, Duration lifetime) {
         TTLValue<T> ttlValue = new TTLValueRecord<>(value, Instant.now().plus(lifetime));
-        return objectMap.computeIfAbsent(source, o -> new HashMap<>()).put(signatureHash(signature), ttlValue);
+        return objectMap.computeIfAbsent(source, o -> new ConcurrentHashMap<>()).put(key, ttlValue);
     }
 
-    private int signatureHash(MethodSignature signature) {
-        return Objects.hash(signature.getMethod(), Arrays.hashCode(signature.getParameterTypes()));
+    @Override
+    public boolean removeValue(Object source, TTLKey key, T expectedValue) {
+        Map<TTLKey, TTLValue<T>> keyMap = objectMap.get(source);
+        if (keyMap == null) return false;
+
+        TTLValue<T> current = keyMap.get(key);
+        return current != null && current.value() == expectedValue && keyMap.remove(key, current);
+    }
+
+    @Override
+    public boolean invalidate(Object source, TTLKey key) {
+        Map<TTLKey, TTLValue<T>> keyMap = objectMap.get(source);
+        return keyMap != null && keyMap.remove(key) != null;
+    }
+
+    @Override
+    public long invalidateKey(TTLKey key) {
+        long removed = 0;
+        for (Map<TTLKey, TTLValue<T>> keyMap : objectMap.values()) {
+            if (keyMap.remove(key) != null) removed++;
+        }
+        return removed;
+    }
+
+    @Override
+    public long invalidateSource(Object source) {
+        Map<TTLKey, TTLValue<T>> keyMap = objectMap.remove(source);
+        return keyMap != null ? keyMap.size() : 0;
+    }
+
+    @Override
+    public long invalidateMethod(Method method) {
+        long removed = 0;
+        for (Map<TTLKey, TTLValue<T>> keyMap : objectMap.values()) {
+            removed += removeIf(keyMap, key -> key.method().equals(method));
+        }
+        return removed;
+    }
+
+    @Override
+    public long invalidateMethod(Object source, Method method) {
+        Map<TTLKey, TTLValue<T>> keyMap = objectMap.get(source);
+        return keyMap != null ? removeIf(keyMap, key -> key.method().equals(method)) : 0;
+    }
+
+    @Override
+    public long invalidateTag(String tag) {
+        long removed = 0;
+        for (Map<TTLKey, TTLValue<T>> keyMap : objectMap.values()) {
+            removed += removeIf(keyMap, key -> hasTag(key.method(), tag));
+        }
+        return removed;
+    }
+
+    private static boolean hasTag(Method method, String tag) {
+        TTLMethod ttlMethod = method.getAnnotation(TTLMethod.class);
+        return ttlMethod != null && Arrays.asList(ttlMethod.tags()).contains(tag);
+    }
+
+    private static <T> long removeIf(Map<TTLKey, TTLValue<T>> keyMap, Predicate<TTLKey> predicate) {
+        long removed = 0;
+        for (TTLKey key : keyMap.keySet()) {
+            if (predicate.test(key) && keyMap.remove(key) != null) removed++;
+        }
+        return removed;
     }
 }
@@ -1,38 +1,50 @@
 package com.sylvona.leona.core.commons.ttl;
 
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
-class ComplexityDrivenSafeObjectMap<T> implements Map<Object, T> {
-    private final Map<Class<?>, Map<Integer, Long>> classHashMap = new HashMap<>();
-    private final Map<Long, T> backingObjectMap = new HashMap<>();
-    private long counter;
+/**
+ * Concurrent map keyed by object identity which holds its keys weakly.
+ * <p>
+ * Keys are compared with {@code ==} rather than by identity hash alone, so two objects sharing an identity hash never
+ * share a value. Keys are only weakly reachable from the map: once a key is garbage collected its entry is cleared
+ * through a {@link ReferenceQueue}, which is drained on every write. {@link #keySet()}, {@link #values()} and
+ * {@link #entrySet()} are live views of the map.
+ */
+class ComplexityDrivenSafeObjectMap<T> extends AbstractMap<Object, T> {
+    private final ConcurrentHashMap<IdentityKey, T> backingObjectMap = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+
+    private Set<Object> keySet;
+    private Set<Entry<Object, T>> entrySet;
 
     @Override
     public int size() {
+        expungeStaleEntries();
         return backingObjectMap.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return backingObjectMap.isEmpty();
+        return size() == 0;
     }
 
     @Override
     public boolean containsKey(Object key) {
-        Class<?> cls = key.getClass();
-        Map<Integer, Long> hashes = classHashMap.get(cls);
-        if (hashes == null) return false;
-
-        int objectHash = System.identityHashCode(key);
-        return hashes.get(objectHash) != null;
+        return key != null && backingObjectMap.containsKey(new LookupKey(key));
     }
 
     @Override
@@ -42,17 +54,28 @@ class ComplexityDrivenSafeObjectMap<T> implements Map<Object, T> {
 
     @Override
     public T get(Object key) {
-        return getTFromObject(key);
+        return key != null ? backingObjectMap.get(new LookupKey(key)) : null;
     }
 
     @Override
     public T put(Object key, T value) {
-        return putFromObject(key, value);
+        expungeStaleEntries();
+        return backingObjectMap.put(new WeakKey(Objects.requireNonNull(key, "key"), referenceQueue), value);
+    }
+
+    @Override
+    public T computeIfAbsent(Object key, Function<? super Object, ? extends T> mappingFunction) {
+        T value = get(key);
+        if (value != null) return value;
+
+        expungeStaleEntries();
+        return backingObjectMap.computeIfAbsent(new WeakKey(Objects.requireNonNull(key, "key"), referenceQueue), k -> mappingFunction.apply(key));
     }
 
     @Override
     public T remove(Object key) {
-        return removeFromObject(key);
+        expungeStaleEntries();
+        return key != null ? backingObjectMap.remove(new LookupKey(key)) : null;
     }
 
     @Override
@@ -62,13 +85,14 @@ class ComplexityDrivenSafeObjectMap<T> implements Map<Object, T> {
 
     @Override
     public void clear() {
-        classHashMap.clear();
         backingObjectMap.clear();
+        expungeStaleEntries();
     }
 
     @Override
     public @NotNull Set<Object> keySet() {
-        return classHashMap.values().stream().flatMap(map -> map.keySet().stream()).collect(Collectors.toSet());
+        Set<Object> keySet = this.keySet;
+        return keySet != null ? keySet : (this.keySet = new KeySet());
     }
 
     @Override
@@ -78,51 +102,177 @@ class ComplexityDrivenSafeObjectMap<T> implements Map<Object, T> {
 
     @Override
     public @NotNull Set<Entry<Object, T>> entrySet() {
-        return backingObjectMap.entrySet().stream().map(e -> new LazyEntry<>((Object)e.getKey(), e.getValue())).collect(Collectors.toSet());
+        Set<Entry<Object, T>> entrySet = this.entrySet;
+        return entrySet != null ? entrySet : (this.entrySet = new EntrySet());
     }
 
-    private T getTFromObject(Object key) {
-        Long identifier = getObjectIdentifier(key);
-        if (identifier == null) return null;
+    private void expungeStaleEntries() {
+        Reference<?> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            backingObjectMap.remove((WeakKey) reference);
+        }
+    }
 
-        return backingObjectMap.get(identifier);
+    private interface IdentityKey {
+        Object referent();
     }
 
-    private T putFromObject(Object key, T value) {
-        Class<?> cls = key.getClass();
-        Map<Integer, Long> hashes = classHashMap.computeIfAbsent(cls, c -> new HashMap<>());
+    private static final class WeakKey extends WeakReference<Object> implements IdentityKey {
+        private final int hash;
+
+        WeakKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            // A cleared key only equals itself, which is how the reference queue removes it
+            Object referent = get();
+            return referent != null && o instanceof IdentityKey other && other.referent() == referent;
+        }
+    }
 
-        int objectHash = System.identityHashCode(key);
-        Long identifier = hashes.computeIfAbsent(objectHash, h -> counter++);
+    private record LookupKey(Object referent) implements IdentityKey {
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(referent);
+        }
 
-        return backingObjectMap.put(identifier, value);
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey other && other.referent() == referent;
+        }
     }
 
-    private T removeFromObject(Object key) {
-        Long identifier = getObjectIdentifier(key);
-        return identifier != null ? backingObjectMap.remove(identifier) : null;
+    private final class KeySet extends AbstractSet<Object> {
+        @Override
+        public @NotNull Iterator<Object> iterator() {
+            Iterator<Entry<Object, T>> entries = new EntryIterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    return entries.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    entries.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ComplexityDrivenSafeObjectMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return ComplexityDrivenSafeObjectMap.this.remove(o) != null;
+        }
+
+        @Override
+        public void clear() {
+            ComplexityDrivenSafeObjectMap.this.clear();
+        }
     }
 
-    private Long getObjectIdentifier(Object key) {
-        Class<?> cls = key.getClass();
-        Map<Integer, Long> hashes = classHashMap.get(cls);
-        if (hashes == null) return null;
+    private final class EntrySet extends AbstractSet<Entry<Object, T>> {
+        @Override
+        public @NotNull Iterator<Entry<Object, T>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ComplexityDrivenSafeObjectMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry<?, ?> entry) || entry.getKey() == null) return false;
+            T value = get(entry.getKey());
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry<?, ?> entry) || entry.getKey() == null) return false;
+            return backingObjectMap.remove(new LookupKey(entry.getKey()), entry.getValue());
+        }
 
-        int objectHash = System.identityHashCode(key);
-        return hashes.get(objectHash);
+        @Override
+        public void clear() {
+            ComplexityDrivenSafeObjectMap.this.clear();
+        }
     }
 
+    /**
+     * Iterates the backing map, skipping keys which have been collected but not yet expunged. Each returned entry holds
+     * a strong reference to its key, so the key cannot be collected while the caller uses the entry.
+     */
+    private final class EntryIterator implements Iterator<Entry<Object, T>> {
+        private final Iterator<Entry<IdentityKey, T>> backingIterator = backingObjectMap.entrySet().iterator();
+        private Entry<Object, T> next;
+        private Entry<Object, T> last;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && backingIterator.hasNext()) {
+                Entry<IdentityKey, T> candidate = backingIterator.next();
+                Object key = candidate.getKey().referent();
+                if (key != null) next = new WriteThroughEntry(key, candidate.getValue());
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<Object, T> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            last = next;
+            next = null;
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            ComplexityDrivenSafeObjectMap.this.remove(last.getKey());
+            last = null;
+        }
+    }
 
-    @Getter
-    @AllArgsConstructor
-    private static class LazyEntry<TKey, TValue> implements Entry<TKey, TValue> {
-        private TKey key;
-        private TValue value;
+    private final class WriteThroughEntry extends SimpleEntry<Object, T> {
+        WriteThroughEntry(Object key, T value) {
+            super(key, value);
+        }
 
         @Override
-        public TValue setValue(TValue value) {
-            TValue previous = this.value;
-            this.value = value;
+        public T setValue(T value) {
+            T previous = super.setValue(value);
+            put(getKey(), value);
             return previous;
         }
     }
@@ -0,0 +1,634 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Default {@link TTLStore<T>} built for many threads hitting the same beans at once.
+ * <p>
+ * Entries are spread over a power-of-two number of segments, each owning its own hash table. Reads never lock: tables are
+ * published through volatile writes and hash chains are immutable, so a reader always walks a consistent chain. Writes
+ * only lock the single segment owning the entry, which keeps contention proportional to the segment count rather than
+ * to the number of callers.
+ * <p>
+ * Invoking objects are compared by identity, never by {@link Object#equals(Object)}, and are only weakly referenced:
+ * once an invoking object (for instance a request scoped or prototype bean) is garbage collected, its entries are
+ * reclaimed through a {@link ReferenceQueue} drained on writes and by {@link #cleanUp()}.
+ * <p>
+ * The store can be bounded by entry count and/or total weight, either store-wide or per {@link TTLMethod}. Bounded
+ * entries are evicted with the CLOCK (second chance) policy: a hit only flags the entry as referenced, and eviction
+ * sweeps a lock-free queue, giving referenced entries another round and dropping expired entries first. Methods which
+ * declare their own bound are evicted within that bound only and do not count towards the store-wide bound.
+ * <p>
+ * When given a {@link TTLExpirationWheel}, every stored entry is also scheduled on the wheel and removed once it expires
+ * (or once it is too stale to be served, see {@link TTLMethod#maximumStaleness()}), whether or not it is ever read again.
+ * Entries replaced, invalidated or evicted before then cancel their timeout, so neither the wheel nor the CLOCK queue
+ * keeps a retired value reachable.
+ * <p>
+ * Every method keeps an index of its live entries, and every tag an index of the methods declaring it, so invalidating a
+ * method, key or tag only visits the entries concerned. Invalidating an invoking object scans the segments.
+ */
+class ConcurrentTTLStore<T> implements TTLStore<T> {
+    static final long UNBOUNDED = -1;
+
+    private static final int MAXIMUM_SEGMENTS = 1 << 12;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    // Durations are capped so that deadlines, and their differences with nanoTime, never overflow
+    static final long MAXIMUM_NANOS = Long.MAX_VALUE / 2;
+
+    private final Segment<T>[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+
+    private final TTLWeigher<? super T> weigher;
+    private final Region globalRegion;
+    private final Map<Method, MethodPolicy> methodPolicies = new ConcurrentHashMap<>();
+    private final Map<String, Set<Method>> tagIndex = new ConcurrentHashMap<>();
+    private final LongAdder evictionCount = new LongAdder();
+    private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+    private final @Nullable TTLExpirationWheel expirationWheel;
+    private final @Nullable Consumer<? super T> retirementListener;
+
+    ConcurrentTTLStore() {
+        this(Runtime.getRuntime().availableProcessors() * 4, UNBOUNDED, UNBOUNDED, TTLWeigher.singleton(), null);
+    }
+
+    ConcurrentTTLStore(int concurrencyLevel, long maximumSize, long maximumWeight, TTLWeigher<? super T> weigher,
+                       @Nullable TTLExpirationWheel expirationWheel) {
+        this(concurrencyLevel, maximumSize, maximumWeight, weigher, expirationWheel, null);
+    }
+
+    /**
+     * @param retirementListener invoked with the value of every entry once it is replaced, invalidated, evicted, expired by
+     *                           the wheel or reclaimed, exactly once per stored entry
+     */
+    @SuppressWarnings("unchecked")
+    ConcurrentTTLStore(int concurrencyLevel, long maximumSize, long maximumWeight, TTLWeigher<? super T> weigher,
+                       @Nullable TTLExpirationWheel expirationWheel, @Nullable Consumer<? super T> retirementListener) {
+        int segmentBits = 0;
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel && segmentCount < MAXIMUM_SEGMENTS) {
+            segmentCount <<= 1;
+            segmentBits++;
+        }
+
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>();
+        }
+        segmentShift = 32 - segmentBits;
+        segmentMask = segmentCount - 1;
+
+        this.weigher = weigher;
+        this.globalRegion = new Region(maximumSize, maximumWeight);
+        this.expirationWheel = expirationWheel;
+        this.retirementListener = retirementListener;
+    }
+
+    @Override
+    public @Nullable TTLValue<T> fetchValue(Object source, TTLKey key) {
+        int hash = hash(source, key);
+        Entry<T> entry = segmentFor(hash).get(source, key, hash);
+        if (entry == null) return null;
+
+        if (!entry.referenced) entry.referenced = true;
+        return entry;
+    }
+
+    @Override
+    public @Nullable TTLValue<T> fetchValue(Object source, Method method, Object[] arguments, int[] keyParameters) {
+        int hash = hash(source, TTLKey.hashOf(method, arguments, keyParameters));
+        Entry<T> entry = segmentFor(hash).get(source, method, arguments, keyParameters, hash);
+        if (entry == null) return null;
+
+        if (!entry.referenced) entry.referenced = true;
+        return entry;
+    }
+
+    @Override
+    public @Nullable TTLValue<T> peekValue(Object source, TTLKey key) {
+        int hash = hash(source, key);
+        return segmentFor(hash).get(source, key, hash);
+    }
+
+    @Override
+    public void recordAccess(TTLValue<T> value) {
+        if (value instanceof Entry<T> entry && !entry.referenced) entry.referenced = true;
+    }
+
+    @Override
+    public boolean tracksCurrentValues() {
+        return true;
+    }
+
+    @Override
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, Duration lifetime) {
+        return storeValue(source, key, value, saturatedNanos(lifetime));
+    }
+
+    @Override
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, long lifetimeNanos) {
+        cleanUp();
+
+        int hash = hash(source, key);
+        MethodPolicy policy = policyFor(key);
+        Region region = policy.region;
+        int weight = weigher.weigh(key, value);
+        long bytes = TTLSizeEstimator.ENTRY_OVERHEAD + TTLSizeEstimator.estimate(value);
+        long now = System.nanoTime();
+        long lifetime = Math.min(lifetimeNanos, MAXIMUM_NANOS);
+        Entry<T> entry = new Entry<>(source, referenceQueue, key, hash, value, now + lifetime, weight, bytes, policy);
+
+        Entry<T> previous = segmentFor(hash).put(entry);
+        if (previous != null) previous.region.removed(previous);
+        region.admitted(entry);
+        if (expirationWheel != null) {
+            entry.timeout = expirationWheel.schedule(entry, now + saturatedSum(lifetime, policy.stalenessNanos));
+            // The entry may have been retired before its timeout was known, and must not be held by the wheel
+            if (entry.retired) entry.timeout.cancel();
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean removeValue(Object source, TTLKey key, T expectedValue) {
+        int hash = hash(source, key);
+        Entry<T> entry = segmentFor(hash).get(source, key, hash);
+        return entry != null && entry.value == expectedValue && entry.region.remove(entry);
+    }
+
+    /**
+     * @return the number of entries currently held, summed over all segments without locking
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<T> segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean invalidate(Object source, TTLKey key) {
+        int hash = hash(source, key);
+        Entry<T> entry = segmentFor(hash).get(source, key, hash);
+        return entry != null && entry.region.remove(entry);
+    }
+
+    @Override
+    public long invalidateKey(TTLKey key) {
+        MethodPolicy policy = methodPolicies.get(key.method());
+        if (policy == null) return 0;
+
+        long removed = 0;
+        for (Entry<T> entry : policy.members) {
+            if (entry.key.equals(key) && entry.region.remove(entry)) removed++;
+        }
+        return removed;
+    }
+
+    @Override
+    public long invalidateSource(Object source) {
+        long removed = 0;
+        for (Segment<T> segment : segments) {
+            AtomicReferenceArray<Node<T>> table = segment.table;
+            for (int i = 0; i < table.length(); i++) {
+                for (Node<T> node = table.get(i); node != null; node = node.next) {
+                    Entry<T> entry = node.entry;
+                    if (entry.get() == source && entry.region.remove(entry)) removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public long invalidateMethod(Method method) {
+        MethodPolicy policy = methodPolicies.get(method);
+        if (policy == null) return 0;
+
+        long removed = 0;
+        for (Entry<T> entry : policy.members) {
+            if (entry.region.remove(entry)) removed++;
+        }
+        return removed;
+    }
+
+    @Override
+    public long invalidateMethod(Object source, Method method) {
+        MethodPolicy policy = methodPolicies.get(method);
+        if (policy == null) return 0;
+
+        long removed = 0;
+        for (Entry<T> entry : policy.members) {
+            if (entry.get() == source && entry.region.remove(entry)) removed++;
+        }
+        return removed;
+    }
+
+    @Override
+    public long invalidateTag(String tag) {
+        long removed = 0;
+        for (Method method : tagIndex.getOrDefault(tag, Set.of())) {
+            removed += invalidateMethod(method);
+        }
+        return removed;
+    }
+
+    @Override
+    public long entryCount(Method method) {
+        MethodPolicy policy = methodPolicies.get(method);
+        return policy != null ? policy.entries.sum() : 0;
+    }
+
+    @Override
+    public long estimatedBytes(Method method) {
+        MethodPolicy policy = methodPolicies.get(method);
+        return policy != null ? policy.bytes.sum() : 0;
+    }
+
+    /**
+     * @param method a cached method
+     * @return the total weight (see {@link TTLWeigher}) of the entries cached for the method
+     */
+    long weight(Method method) {
+        MethodPolicy policy = methodPolicies.get(method);
+        return policy != null ? policy.weight.sum() : 0;
+    }
+
+    /**
+     * Removes the entries of every invoking object which has been garbage collected since the last clean up.
+     */
+    public void cleanUp() {
+        Reference<?> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            @SuppressWarnings("unchecked")
+            Entry<T> entry = (Entry<T>) reference;
+            entry.region.remove(entry);
+        }
+    }
+
+    @Override
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    private Segment<T> segmentFor(int hash) {
+        // High bits select the segment, low bits select the bucket inside it
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    private MethodPolicy policyFor(TTLKey key) {
+        MethodPolicy policy = methodPolicies.get(key.method());
+        return policy != null ? policy : methodPolicies.computeIfAbsent(key.method(), this::createPolicy);
+    }
+
+    private MethodPolicy createPolicy(Method method) {
+        TTLMethod ttlMethod = method.getAnnotation(TTLMethod.class);
+        if (ttlMethod == null) return new MethodPolicy(globalRegion, 0);
+
+        for (String tag : ttlMethod.tags()) {
+            tagIndex.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(method);
+        }
+
+        boolean ownBound = ttlMethod.maximumSize() >= 0 || ttlMethod.maximumWeight() >= 0;
+        Region region = ownBound ? new Region(ttlMethod.maximumSize(), ttlMethod.maximumWeight()) : globalRegion;
+        return new MethodPolicy(region, saturatedNanos(ttlMethod.unit(), ttlMethod.maximumStaleness()));
+    }
+
+    private boolean evict(Entry<T> entry) {
+        if (!entry.region.remove(entry)) return false;
+        evictionCount.increment();
+        return true;
+    }
+
+    static long saturatedNanos(Duration duration) {
+        return duration.compareTo(Duration.ofNanos(MAXIMUM_NANOS)) >= 0 ? MAXIMUM_NANOS : duration.toNanos();
+    }
+
+    static long saturatedNanos(TimeUnit unit, long duration) {
+        return Math.min(unit.toNanos(duration), MAXIMUM_NANOS);
+    }
+
+    /**
+     * @return the sum of two durations of at most {@link #MAXIMUM_NANOS} each, saturated to {@link #MAXIMUM_NANOS}
+     */
+    static long saturatedSum(long firstNanos, long secondNanos) {
+        return Math.min(firstNanos + secondNanos, MAXIMUM_NANOS);
+    }
+
+    private static int hash(Object source, TTLKey key) {
+        return hash(source, key.hashCode());
+    }
+
+    private static int hash(Object source, int keyHash) {
+        int h = 31 * System.identityHashCode(source) + keyHash;
+        // Murmur3 finalizer, keys built from small integers would otherwise cluster in few segments
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * The storage settings of a single {@link TTLMethod}, read from its annotation once, along with its statistics.
+     */
+    private final class MethodPolicy {
+        private final Region region;
+        private final long stalenessNanos;
+        private final LongAdder entries = new LongAdder();
+        private final LongAdder weight = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final Set<Entry<T>> members = ConcurrentHashMap.newKeySet();
+
+        MethodPolicy(Region region, long stalenessNanos) {
+            this.region = region;
+            this.stalenessNanos = stalenessNanos;
+        }
+    }
+
+    /**
+     * A bound on entries (of the whole store, or of a single method) along with its CLOCK queue.
+     */
+    private final class Region {
+        private final long maximumSize;
+        private final long maximumWeight;
+        private final AtomicLong size = new AtomicLong();
+        private final AtomicLong weight = new AtomicLong();
+        private final AtomicLong retiredSincePurge = new AtomicLong();
+        private final ConcurrentLinkedQueue<Entry<T>> clock = new ConcurrentLinkedQueue<>();
+
+        Region(long maximumSize, long maximumWeight) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+        }
+
+        boolean bounded() {
+            return maximumSize >= 0 || maximumWeight >= 0;
+        }
+
+        void admitted(Entry<T> entry) {
+            entry.policy.entries.increment();
+            entry.policy.weight.add(entry.weight);
+            entry.policy.bytes.add(entry.bytes);
+            entry.policy.members.add(entry);
+            // The entry may have been removed between being put and being admitted, and must not linger in the index
+            if (entry.retired) entry.policy.members.remove(entry);
+            if (!bounded()) return;
+            size.incrementAndGet();
+            weight.addAndGet(entry.weight);
+            clock.offer(entry);
+            evictIfNeeded();
+        }
+
+        boolean remove(Entry<T> entry) {
+            if (!segmentFor(entry.hash).remove(entry)) return false;
+            removed(entry);
+            return true;
+        }
+
+        void removed(Entry<T> entry) {
+            if (retirementListener != null) retirementListener.accept(entry.value);
+            entry.policy.members.remove(entry);
+            entry.policy.entries.decrement();
+            entry.policy.weight.add(-entry.weight);
+            entry.policy.bytes.add(-entry.bytes);
+            if (!bounded()) return;
+            size.decrementAndGet();
+            weight.addAndGet(-entry.weight);
+            purgeIfNeeded();
+        }
+
+        /**
+         * Retired entries are only skipped once the sweep reaches them, a region kept under its bound by replacements and
+         * invalidations would otherwise hold every value it ever stored. Purging once as many entries retired as are live
+         * keeps the queue within twice the region's size, for an amortized O(1) cost per removal.
+         */
+        private void purgeIfNeeded() {
+            long retired = retiredSincePurge.incrementAndGet();
+            if (retired < Math.max(size.get(), INITIAL_SEGMENT_CAPACITY) || !retiredSincePurge.compareAndSet(retired, 0)) return;
+            clock.removeIf(entry -> entry.retired);
+        }
+
+        private boolean overBound() {
+            return (maximumSize >= 0 && size.get() > maximumSize) || (maximumWeight >= 0 && weight.get() > maximumWeight);
+        }
+
+        private void evictIfNeeded() {
+            // Every entry gets at most one second chance per sweep, so two passes over the queue always make progress
+            long budget = 2 * size.get() + 1;
+            Entry<T> candidate;
+            while (overBound() && budget-- > 0 && (candidate = clock.poll()) != null) {
+                if (candidate.retired) continue;
+
+                if (candidate.referenced && !candidate.isExpired() && candidate.get() != null) {
+                    candidate.referenced = false;
+                    clock.offer(candidate);
+                    continue;
+                }
+
+                if (!evict(candidate) && !candidate.retired) clock.offer(candidate);
+            }
+        }
+    }
+
+    private static final class Entry<T> extends WeakReference<Object> implements TTLValue<T>, TTLExpirationWheel.Expiring {
+        final TTLKey key;
+        final int hash;
+        final T value;
+        final long expirationNanos;
+        final int weight;
+        final long bytes;
+        final ConcurrentTTLStore<T>.MethodPolicy policy;
+        final ConcurrentTTLStore<T>.Region region;
+        volatile boolean referenced;
+        volatile boolean retired;
+        volatile TTLExpirationWheel.Timeout timeout;
+
+        Entry(Object source, ReferenceQueue<Object> queue, TTLKey key, int hash, T value, long expirationNanos, int weight,
+              long bytes, ConcurrentTTLStore<T>.MethodPolicy policy) {
+            super(source, queue);
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.expirationNanos = expirationNanos;
+            this.weight = weight;
+            this.bytes = bytes;
+            this.policy = policy;
+            this.region = policy.region;
+        }
+
+        @Override
+        public T value() {
+            return value;
+        }
+
+        @Override
+        public Instant expiration() {
+            return Instant.now().plusNanos(expirationNanos - System.nanoTime());
+        }
+
+        @Override
+        public long expirationNanos() {
+            return expirationNanos;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return System.nanoTime() - expirationNanos >= 0;
+        }
+
+        @Override
+        public boolean isCurrent() {
+            return !retired;
+        }
+
+        @Override
+        public boolean expire() {
+            return region.remove(this);
+        }
+
+        /**
+         * Marks the entry as no longer held by its segment, called under the segment's lock.
+         */
+        void retire() {
+            retired = true;
+            TTLExpirationWheel.Timeout timeout = this.timeout;
+            if (timeout != null) timeout.cancel();
+        }
+
+        boolean matches(Object source, TTLKey key, int hash) {
+            return this.hash == hash && get() == source && this.key.equals(key);
+        }
+    }
+
+    private static final class Node<T> {
+        final Node<T> next;
+        volatile Entry<T> entry;
+
+        Node(Entry<T> entry, Node<T> next) {
+            this.entry = entry;
+            this.next = next;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Segment<T> extends ReentrantLock {
+        private volatile AtomicReferenceArray<Node<T>> table = new AtomicReferenceArray<>(INITIAL_SEGMENT_CAPACITY);
+        private volatile int count;
+
+        Entry<T> get(Object source, TTLKey key, int hash) {
+            if (count == 0) return null;
+
+            AtomicReferenceArray<Node<T>> table = this.table;
+            for (Node<T> node = table.get(hash & (table.length() - 1)); node != null; node = node.next) {
+                Entry<T> entry = node.entry;
+                if (entry.matches(source, key, hash)) return entry;
+            }
+            return null;
+        }
+
+        Entry<T> get(Object source, Method method, Object[] arguments, int[] keyParameters, int hash) {
+            if (count == 0) return null;
+
+            AtomicReferenceArray<Node<T>> table = this.table;
+            for (Node<T> node = table.get(hash & (table.length() - 1)); node != null; node = node.next) {
+                Entry<T> entry = node.entry;
+                if (entry.hash == hash && entry.get() == source && entry.key.matches(method, arguments, keyParameters)) return entry;
+            }
+            return null;
+        }
+
+        Entry<T> put(Entry<T> entry) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<T>> table = this.table;
+                int index = entry.hash & (table.length() - 1);
+                Node<T> first = table.get(index);
+
+                for (Node<T> node = first; node != null; node = node.next) {
+                    Entry<T> previous = node.entry;
+                    if (previous.hash == entry.hash && previous.get() == entry.get() && previous.key.equals(entry.key)) {
+                        node.entry = entry;
+                        previous.retire();
+                        return previous;
+                    }
+                }
+
+                int newCount = count + 1;
+                if (newCount > table.length() * 3 / 4) {
+                    table = rehash(table);
+                    index = entry.hash & (table.length() - 1);
+                    first = table.get(index);
+                }
+
+                table.set(index, new Node<>(entry, first));
+                count = newCount;
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        boolean remove(Entry<T> entry) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<T>> table = this.table;
+                int index = entry.hash & (table.length() - 1);
+                Node<T> first = table.get(index);
+
+                for (Node<T> node = first; node != null; node = node.next) {
+                    if (node.entry != entry) continue;
+
+                    // Chains are immutable, rebuild the part in front of the removed node
+                    Node<T> newFirst = node.next;
+                    for (Node<T> prefix = first; prefix != node; prefix = prefix.next) {
+                        newFirst = new Node<>(prefix.entry, newFirst);
+                    }
+                    table.set(index, newFirst);
+                    count--;
+                    entry.retire();
+                    return true;
+                }
+                return false;
+            } finally {
+                unlock();
+            }
+        }
+
+        private AtomicReferenceArray<Node<T>> rehash(AtomicReferenceArray<Node<T>> oldTable) {
+            AtomicReferenceArray<Node<T>> newTable = new AtomicReferenceArray<>(oldTable.length() << 1);
+            int mask = newTable.length() - 1;
+
+            // Chains are immutable, so nodes are copied into the new table while readers keep walking the old one
+            for (int i = 0; i < oldTable.length(); i++) {
+                for (Node<T> node = oldTable.get(i); node != null; node = node.next) {
+                    Entry<T> entry = node.entry;
+                    int index = entry.hash & mask;
+                    newTable.set(index, new Node<>(entry, newTable.get(index)));
+                }
+            }
+
+            table = newTable;
+            return newTable;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Default {@link TTLCodec}, encoding values with Java serialization. Values must be {@link java.io.Serializable}.
+ * <p>
+ * Values are decoded through an {@link ObjectInputFilter}, as snapshots are read back from files anyone with access to
+ * the disk may have written. The filter is combined with the JVM-wide filter ({@code jdk.serialFilter}), if any.
+ */
+class JavaSerializationTTLCodec implements TTLCodec<Object> {
+    /**
+     * Bounds the graphs a value may decode to, without restricting its classes.
+     */
+    static final String DEFAULT_FILTER = "maxdepth=64;maxrefs=1000000;maxarray=16777216";
+
+    private final ObjectInputFilter filter;
+
+    JavaSerializationTTLCodec() {
+        this(DEFAULT_FILTER);
+    }
+
+    /**
+     * @param filter the pattern of the filter values are decoded through, see {@link ObjectInputFilter.Config#createFilter(String)}
+     * @throws IllegalArgumentException if the pattern is malformed
+     */
+    JavaSerializationTTLCodec(String filter) {
+        ObjectInputFilter configured = ObjectInputFilter.Config.createFilter(filter);
+        ObjectInputFilter serialFilter = ObjectInputFilter.Config.getSerialFilter();
+        this.filter = serialFilter == null ? configured : ObjectInputFilter.merge(configured, serialFilter);
+    }
+
+    @Override
+    public void encode(Object value, OutputStream output) throws IOException {
+        ObjectOutputStream objectOutput = new ObjectOutputStream(output);
+        objectOutput.writeObject(value);
+        objectOutput.flush();
+    }
+
+    @Override
+    public Object decode(InputStream input) throws IOException {
+        ObjectInputStream objectInput = new ObjectInputStream(input);
+        objectInput.setObjectInputFilter(filter);
+        try {
+            return objectInput.readObject();
+        } catch (ClassNotFoundException e) {
+            InvalidClassException invalidClass = new InvalidClassException("Cached value refers to an unknown class");
+            invalidClass.initCause(e);
+            throw invalidClass;
+        }
+    }
+}
@@ -1,20 +1,126 @@
 package com.sylvona.leona.core.commons.ttl;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.context.annotation.Import;
 
-@Import(TTLMethodAspect.class)
-@AutoConfiguration
+@Import({TTLMethodAspect.class, TTLEvictAspect.class})
+@AutoConfiguration(beforeName = "org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration")
 @EnableAspectJAutoProxy
+@EnableConfigurationProperties(TTLProperties.class)
 class LeonaCommonsTTLAutoConfiguration {
 
+    @Bean
+    @ConditionalOnMissingBean(TTLStore.class)
+    @ConditionalOnProperty(prefix = "leona.ttl.off-heap", name = "enabled", havingValue = "true")
+    public TTLStore<Object> offHeapTtlStoreForTtlMethodAspects(TTLProperties properties, ObjectProvider<TTLCodec<Object>> codec,
+                                                              ObjectProvider<TTLExpirationWheel> expirationWheel, TTLMetrics metrics) {
+        TTLProperties.OffHeap offHeap = properties.getOffHeap();
+        TTLCodec<Object> ttlCodec = codec.getIfAvailable(() -> defaultCodec(properties));
+        return decorate(properties, ttlCodec, metrics, new OffHeapTTLStore<>(properties.getConcurrencyLevel(), properties.getMaximumSize(),
+                offHeap.getMemoryBudget().toBytes(), ttlCodec, offHeap.isCompression(), expirationWheel.getIfAvailable()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TTLStore<Object> ttlStoreForTtlMethodAspects(TTLProperties properties, ObjectProvider<TTLWeigher<Object>> weigher,
+                                                       ObjectProvider<TTLExpirationWheel> expirationWheel,
+                                                       ObjectProvider<TTLCodec<Object>> codec, TTLMetrics metrics) {
+        return decorate(properties, codec.getIfAvailable(() -> defaultCodec(properties)), metrics, new ConcurrentTTLStore<>(
+                properties.getConcurrencyLevel(), properties.getMaximumSize(), properties.getMaximumWeight(),
+                weigher.getIfAvailable(TTLWeigher::singleton), expirationWheel.getIfAvailable()));
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "leona.ttl.expiration", name = "enabled", havingValue = "true")
+    public TTLExpirationWheel ttlExpirationWheel(TTLProperties properties) {
+        return new TTLExpirationWheel(properties.getExpiration().getTick());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public SingleFlightLoader singleFlightLoaderForTtlMethodAspects(TTLProperties properties, TTLMetrics metrics) {
+        return new SingleFlightLoader(properties.getRefreshThreads(), metrics);
+    }
+
     @Bean
     @ConditionalOnMissingBean
-    public TTLStore<Object> ttlStoreForTtlMethodAspects() {
-        return new CdsoTTLStore<>();
+    public TTLMetrics ttlMetrics() {
+        return new TTLMetrics();
     }
 
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class TTLMicrometerConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        public TTLMetricsMeterBinder ttlMetricsMeterBinder(TTLMetrics metrics, TTLStore<Object> ttlStore) {
+            return new TTLMetricsMeterBinder(metrics, ttlStore);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(CacheManager.class)
+    @Conditional(CachingEnabledCondition.class)
+    @ConditionalOnProperty(prefix = "leona.ttl.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class TTLCacheConfiguration {
+        @Bean
+        @ConditionalOnMissingBean(CacheManager.class)
+        public TTLCacheManager cacheManager(TTLStore<Object> ttlStore, SingleFlightLoader singleFlightLoader, TTLMetrics metrics,
+                                            TTLProperties properties) {
+            return new TTLCacheManager(ttlStore, singleFlightLoader, metrics, properties.getCache());
+        }
+    }
+
+    /**
+     * Matches when caching is enabled by an {@code @EnableCaching} configuration, or when the cache is explicitly enabled.
+     * Unlike the interceptor beans {@code @EnableCaching} imports, its configuration classes are registered before any
+     * configuration is loaded, so this does not depend on whether this class is auto-configured or imported by
+     * {@link EnableTTL}.
+     */
+    static class CachingEnabledCondition extends AnyNestedCondition {
+        CachingEnabledCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnBean(annotation = EnableCaching.class)
+        static class OnEnableCaching {
+        }
+
+        @ConditionalOnProperty(prefix = "leona.ttl.cache", name = "enabled", havingValue = "true")
+        static class OnCacheEnabled {
+        }
+    }
+
+    private static TTLCodec<Object> defaultCodec(TTLProperties properties) {
+        return new JavaSerializationTTLCodec(properties.getPersistence().getDeserializationFilter());
+    }
+
+    private static TTLStore<Object> decorate(TTLProperties properties, TTLCodec<Object> codec, TTLMetrics metrics, TTLStore<Object> store) {
+        // The snapshot is written by the store's close(), which Spring infers as the bean's destroy method
+        TTLProperties.Persistence persistence = properties.getPersistence();
+        if (persistence.isEnabled()) {
+            store = new PersistentTTLStore<>(store, codec, persistence.getFile(), persistence.getSnapshotInterval());
+        }
+
+        TTLProperties.NearCache nearCache = properties.getNearCache();
+        if (nearCache.isEnabled()) {
+            store = new NearCacheTTLStore<>(store, nearCache.getSize(), metrics);
+        }
+        return store;
+    }
 }
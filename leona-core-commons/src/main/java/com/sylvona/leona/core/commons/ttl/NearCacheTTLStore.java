@@ -0,0 +1,174 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.time.Duration;
+
+/**
+ * {@link TTLStore<T>} decorator adding a small per-thread (L1) tier in front of a shared (L2) store, for values read far
+ * more often than they change.
+ * <p>
+ * Each thread keeps a direct-mapped table of the values it fetched last. An L1 hit neither hashes into the shared store
+ * nor touches any shared state besides the value itself: a value is only served from L1 while it is still
+ * {@link TTLValue#isCurrent() current}, which for the default and off-heap stores is a single volatile read of a flag the
+ * shared store sets as soon as the value is replaced, invalidated, evicted or expired. Values served from L1 are therefore
+ * never staler than those of the shared store. Writes and invalidations always go to the shared store, and L1 hits are
+ * reported to it through {@link TTLStore#recordAccess(TTLValue)} so its eviction policy still sees the hottest keys.
+ * <p>
+ * Only stores which {@link TTLStore#tracksCurrentValues() track} whether their values are current can be wrapped, the
+ * values of any other store would be served from L1 forever.
+ * <p>
+ * Each thread gets its own tier, virtual threads included, so the near cache pays off for long-lived platform threads
+ * such as those of a servlet container's pool.
+ */
+class NearCacheTTLStore<T> implements TTLStore<T>, AutoCloseable {
+    private final TTLStore<T> delegate;
+    private final @Nullable TTLMetrics metrics;
+    private final int mask;
+    private final ThreadLocal<Slot<T>[]> slots;
+
+    @SuppressWarnings("unchecked")
+    NearCacheTTLStore(TTLStore<T> delegate, int size, @Nullable TTLMetrics metrics) {
+        if (!delegate.tracksCurrentValues()) {
+            throw new IllegalArgumentException("A near cache cannot be put in front of %s, its values never stop being current"
+                    .formatted(delegate.getClass().getName()));
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.mask = capacity - 1;
+        this.slots = ThreadLocal.withInitial(() -> new Slot[capacity]);
+    }
+
+    @Override
+    public @Nullable TTLValue<T> fetchValue(Object source, TTLKey key) {
+        Slot<T>[] table = slots.get();
+        int index = index(source, key);
+        Slot<T> slot = table[index];
+
+        if (slot != null && slot.source.get() == source && slot.key.equals(key) && slot.value.isCurrent()) {
+            if (slot.metrics != null && !slot.value.isExpired()) slot.metrics.recordNearHit();
+            delegate.recordAccess(slot.value);
+            return slot.value;
+        }
+
+        TTLValue<T> value = delegate.fetchValue(source, key);
+        if (value == null) {
+            table[index] = null;
+        } else if (slot == null || slot.source.get() != source || !slot.key.equals(key)) {
+            table[index] = new Slot<>(source, key, value, metrics != null ? metrics.forMethod(key.method()) : null);
+        } else {
+            slot.value = value;
+        }
+        return value;
+    }
+
+    @Override
+    public @Nullable TTLValue<T> peekValue(Object source, TTLKey key) {
+        return delegate.peekValue(source, key);
+    }
+
+    @Override
+    public void recordAccess(TTLValue<T> value) {
+        delegate.recordAccess(value);
+    }
+
+    @Override
+    public boolean tracksCurrentValues() {
+        return true;
+    }
+
+    @Override
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, Duration lifetime) {
+        return delegate.storeValue(source, key, value, lifetime);
+    }
+
+    @Override
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, long lifetimeNanos) {
+        return delegate.storeValue(source, key, value, lifetimeNanos);
+    }
+
+    @Override
+    public boolean removeValue(Object source, TTLKey key, T expectedValue) {
+        return delegate.removeValue(source, key, expectedValue);
+    }
+
+    @Override
+    public boolean invalidate(Object source, TTLKey key) {
+        return delegate.invalidate(source, key);
+    }
+
+    @Override
+    public long invalidateKey(TTLKey key) {
+        return delegate.invalidateKey(key);
+    }
+
+    @Override
+    public long invalidateSource(Object source) {
+        return delegate.invalidateSource(source);
+    }
+
+    @Override
+    public long invalidateMethod(Method method) {
+        return delegate.invalidateMethod(method);
+    }
+
+    @Override
+    public long invalidateMethod(Object source, Method method) {
+        return delegate.invalidateMethod(source, method);
+    }
+
+    @Override
+    public long invalidateTag(String tag) {
+        return delegate.invalidateTag(tag);
+    }
+
+    @Override
+    public long entryCount(Method method) {
+        return delegate.entryCount(method);
+    }
+
+    @Override
+    public long estimatedBytes(Method method) {
+        return delegate.estimatedBytes(method);
+    }
+
+    @Override
+    public long evictionCount() {
+        return delegate.evictionCount();
+    }
+
+    /**
+     * Closes the shared store, if it needs closing.
+     */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) closeable.close();
+    }
+
+    private int index(Object source, TTLKey key) {
+        int h = 31 * System.identityHashCode(source) + key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * A thread's cached value. Slots are only ever touched by their own thread, the source is held weakly so a thread
+     * never keeps a collected invoking object alive.
+     */
+    private static final class Slot<T> {
+        final WeakReference<Object> source;
+        final TTLKey key;
+        final @Nullable TTLMethodMetrics metrics;
+        TTLValue<T> value;
+
+        Slot(Object source, TTLKey key, TTLValue<T> value, @Nullable TTLMethodMetrics metrics) {
+            this.source = new WeakReference<>(source);
+            this.key = key;
+            this.value = value;
+            this.metrics = metrics;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Native memory of an {@link OffHeapTTLStore}, split into fixed-size pages. Pages are carved out of direct buffers
+ * allocated one slab at a time, never beyond the arena's capacity, and freed pages are reused by later allocations
+ * rather than released by the garbage collector, so the native memory taken by the store is bounded by its budget.
+ * <p>
+ * A value spans as many pages as it needs, which need not be contiguous. A reader may still hold a value whose pages
+ * were freed and reused meanwhile, so every page records the allocation owning it, and {@link #read(Allocation)} checks,
+ * once the bytes are copied out, that the allocation still owns all of its pages.
+ */
+final class OffHeapArena {
+    static final int PAGE_SIZE = 1 << 10;
+    static final long UNBOUNDED = -1;
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int SLAB_SHIFT = 10;
+    private static final int PAGES_PER_SLAB = 1 << SLAB_SHIFT;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long maximumPages;
+    private volatile Slab[] slabs = new Slab[4];
+    // Guarded by the lock
+    private int carvedPages;
+    private int[] freePages = new int[PAGES_PER_SLAB];
+    private int freeCount;
+    private long lastAllocation;
+
+    /**
+     * @param capacity the number of bytes the arena may allocate, or {@link #UNBOUNDED}
+     */
+    OffHeapArena(long capacity) {
+        this.maximumPages = capacity < 0 ? Integer.MAX_VALUE : Math.min(Integer.MAX_VALUE, (capacity + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    /**
+     * @param length a number of bytes
+     * @return the number of bytes taken by an allocation of that length, whole pages included
+     */
+    static long allocatedBytes(int length) {
+        return (long) pageCount(length) << PAGE_SHIFT;
+    }
+
+    /**
+     * Copies bytes into newly allocated pages.
+     * @param bytes the bytes to copy, from the start of the array
+     * @param length the number of bytes to copy
+     * @return the allocation holding the bytes, or null if the arena has not enough free pages left
+     */
+    @Nullable Allocation allocate(byte[] bytes, int length) {
+        int[] pages = new int[pageCount(length)];
+        long id;
+        lock.lock();
+        try {
+            if (pages.length > freeCount + (maximumPages - carvedPages)) return null;
+
+            id = ++lastAllocation;
+            for (int i = 0; i < pages.length; i++) {
+                int page = freeCount > 0 ? freePages[--freeCount] : carvePage();
+                pages[i] = page;
+                slab(page).owners.set(page & (PAGES_PER_SLAB - 1), id);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // A reader of the pages' previous allocation must see them claimed before seeing any of the new bytes
+        VarHandle.storeStoreFence();
+        Slab[] slabs = this.slabs;
+        for (int i = 0; i < pages.length; i++) {
+            int offset = i << PAGE_SHIFT;
+            slabs[pages[i] >>> SLAB_SHIFT].buffer.put((pages[i] & (PAGES_PER_SLAB - 1)) << PAGE_SHIFT, bytes, offset,
+                    Math.min(PAGE_SIZE, length - offset));
+        }
+        return new Allocation(id, pages, length);
+    }
+
+    /**
+     * Copies the bytes of an allocation out of the arena.
+     * @param allocation an allocation of this arena
+     * @return the allocation's bytes, or null if the allocation was freed and its pages reused meanwhile
+     */
+    @Nullable byte[] read(Allocation allocation) {
+        byte[] bytes = new byte[allocation.length];
+        Slab[] slabs = this.slabs;
+        for (int i = 0; i < allocation.pages.length; i++) {
+            int page = allocation.pages[i];
+            int offset = i << PAGE_SHIFT;
+            slabs[page >>> SLAB_SHIFT].buffer.get((page & (PAGES_PER_SLAB - 1)) << PAGE_SHIFT, bytes, offset,
+                    Math.min(PAGE_SIZE, allocation.length - offset));
+        }
+
+        // The owners must be checked after every byte was read, bytes of a later allocation then fail the check
+        VarHandle.acquireFence();
+        for (int page : allocation.pages) {
+            if (slabs[page >>> SLAB_SHIFT].owners.get(page & (PAGES_PER_SLAB - 1)) != allocation.id) return null;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the pages of an allocation to the arena, for later allocations to reuse. Freeing an allocation twice is a no-op.
+     * @param allocation an allocation of this arena
+     */
+    void free(Allocation allocation) {
+        lock.lock();
+        try {
+            for (int page : allocation.pages) {
+                AtomicLongArray owners = slab(page).owners;
+                int index = page & (PAGES_PER_SLAB - 1);
+                if (owners.get(index) != allocation.id) continue;
+
+                owners.set(index, 0);
+                if (freeCount == freePages.length) freePages = Arrays.copyOf(freePages, freeCount * 2);
+                freePages[freeCount++] = page;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of bytes of native memory allocated so far, which the arena keeps until it is collected
+     */
+    long reservedBytes() {
+        lock.lock();
+        try {
+            long bytes = 0;
+            for (Slab slab : slabs) {
+                if (slab != null) bytes += slab.buffer.capacity();
+            }
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int pageCount(int length) {
+        return (length + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+    }
+
+    private Slab slab(int page) {
+        return slabs[page >>> SLAB_SHIFT];
+    }
+
+    /**
+     * Takes a page never allocated before, allocating its slab first if needed. Called under the lock.
+     */
+    private int carvePage() {
+        int page = carvedPages++;
+        int slabIndex = page >>> SLAB_SHIFT;
+        if ((page & (PAGES_PER_SLAB - 1)) == 0) {
+            // The last slab only holds the pages left within the capacity
+            int pages = (int) Math.min(PAGES_PER_SLAB, maximumPages - page);
+            Slab[] slabs = this.slabs;
+            if (slabIndex == slabs.length) slabs = Arrays.copyOf(slabs, slabs.length * 2);
+            slabs[slabIndex] = new Slab(ByteBuffer.allocateDirect(pages << PAGE_SHIFT), new AtomicLongArray(pages));
+            this.slabs = slabs;
+        }
+        return page;
+    }
+
+    /**
+     * The pages holding a value, and the identifier its pages are owned by.
+     */
+    record Allocation(long id, int[] pages, int length) {
+    }
+
+    private record Slab(ByteBuffer buffer, AtomicLongArray owners) {
+    }
+}
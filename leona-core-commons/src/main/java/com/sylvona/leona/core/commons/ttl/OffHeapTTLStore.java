@@ -0,0 +1,316 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * {@link TTLStore<T>} keeping cached values outside the Java heap, for large payloads which would otherwise inflate the
+ * old generation and GC pauses.
+ * <p>
+ * Values are encoded with a {@link TTLCodec}, optionally deflated, and copied into the pages of an {@link OffHeapArena}.
+ * Only small index entries referencing those pages stay on the heap, held by a {@link ConcurrentTTLStore} weighed by the
+ * pages' size, and the pages of every entry the index retires are reused by later values. The arena never allocates
+ * more native memory than the budget, and the index's CLOCK eviction keeps the live values within it: a value which
+ * finds no free pages, until eviction makes room, keeps its encoded bytes on the heap instead. Every read decodes a
+ * fresh copy of the value, which is why {@link #removeValue(Object, TTLKey, Object)} compares values by equality.
+ * <p>
+ * Completed futures of async methods are stored by their result. Values which cannot be encoded, in-flight and failed
+ * futures among them, are kept on the heap in their index entry, weighed by their estimated size, so that such methods
+ * are still cached and their concurrent calls still share a single in-flight future.
+ */
+@Slf4j
+class OffHeapTTLStore<T> implements TTLStore<T> {
+    private final OffHeapArena arena;
+    private final ConcurrentTTLStore<OffHeapSlot> index;
+    private final TTLCodec<T> codec;
+    private final boolean compression;
+    private final Set<Method> unencodableMethods = ConcurrentHashMap.newKeySet();
+
+    OffHeapTTLStore(int concurrencyLevel, long maximumSize, long memoryBudget, TTLCodec<T> codec, boolean compression,
+                    @Nullable TTLExpirationWheel expirationWheel) {
+        this.arena = new OffHeapArena(memoryBudget);
+        this.index = new ConcurrentTTLStore<>(concurrencyLevel, maximumSize, memoryBudget, (key, slot) -> slot.weight(), expirationWheel,
+                this::retired);
+        this.codec = codec;
+        this.compression = compression;
+    }
+
+    @Override
+    public @Nullable TTLValue<T> fetchValue(Object source, TTLKey key) {
+        return read(index.fetchValue(source, key));
+    }
+
+    @Override
+    public @Nullable TTLValue<T> peekValue(Object source, TTLKey key) {
+        return read(index.peekValue(source, key));
+    }
+
+    @Override
+    public void recordAccess(TTLValue<T> value) {
+        if (value instanceof OffHeapValue offHeapValue) index.recordAccess(offHeapValue.indexEntry);
+    }
+
+    @Override
+    public boolean tracksCurrentValues() {
+        return true;
+    }
+
+    @Override
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, Duration lifetime) {
+        return storeValue(source, key, value, ConcurrentTTLStore.saturatedNanos(lifetime));
+    }
+
+    /**
+     * {@inheritDoc} The pages of the previous value are reused as soon as it is replaced, so its value can no longer be
+     * read, only its expiration.
+     */
+    @Override
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, long lifetimeNanos) {
+        OffHeapSlot slot = slotFor(key, value);
+        TTLValue<OffHeapSlot> previous = index.storeValue(source, key, slot, lifetimeNanos);
+        return previous != null ? new OffHeapValue(previous, previous.value().bytes()) : null;
+    }
+
+    @Override
+    public boolean removeValue(Object source, TTLKey key, T expectedValue) {
+        TTLValue<OffHeapSlot> slot = index.fetchValue(source, key);
+        if (slot == null) return false;
+        if (!slot.value().encoded()) return slot.value().heapValue == expectedValue && index.removeValue(source, key, slot.value());
+
+        byte[] bytes = bytesOf(slot.value());
+        if (bytes == null) return false;
+        T current;
+        try {
+            current = decode(slot.value(), bytes);
+        } catch (IOException e) {
+            return index.removeValue(source, key, slot.value());
+        }
+        return Objects.equals(current, expectedValue) && index.removeValue(source, key, slot.value());
+    }
+
+    @Override
+    public boolean invalidate(Object source, TTLKey key) {
+        return index.invalidate(source, key);
+    }
+
+    @Override
+    public long invalidateKey(TTLKey key) {
+        return index.invalidateKey(key);
+    }
+
+    @Override
+    public long invalidateSource(Object source) {
+        return index.invalidateSource(source);
+    }
+
+    @Override
+    public long invalidateMethod(Method method) {
+        return index.invalidateMethod(method);
+    }
+
+    @Override
+    public long invalidateMethod(Object source, Method method) {
+        return index.invalidateMethod(source, method);
+    }
+
+    @Override
+    public long invalidateTag(String tag) {
+        return index.invalidateTag(tag);
+    }
+
+    @Override
+    public long entryCount(Method method) {
+        return index.entryCount(method);
+    }
+
+    /**
+     * {@inheritDoc} Both the heap-resident index entries and the off-heap values are accounted for.
+     */
+    @Override
+    public long estimatedBytes(Method method) {
+        return index.estimatedBytes(method) + index.weight(method);
+    }
+
+    @Override
+    public long evictionCount() {
+        return index.evictionCount();
+    }
+
+    /**
+     * @return the number of values currently held off-heap
+     */
+    public long size() {
+        return index.size();
+    }
+
+    /**
+     * @return the bytes of native memory allocated by the store, which never exceed its memory budget
+     */
+    long reservedBytes() {
+        return arena.reservedBytes();
+    }
+
+    private @Nullable TTLValue<T> read(@Nullable TTLValue<OffHeapSlot> indexEntry) {
+        if (indexEntry == null) return null;
+        if (!indexEntry.value().encoded()) return new OffHeapValue(indexEntry, null);
+
+        // Copied out right away: the entry may be retired, and its pages reused, as soon as it was fetched
+        byte[] bytes = bytesOf(indexEntry.value());
+        return bytes != null ? new OffHeapValue(indexEntry, bytes) : null;
+    }
+
+    private @Nullable byte[] bytesOf(OffHeapSlot slot) {
+        return slot.allocation != null ? arena.read(slot.allocation) : slot.bytes;
+    }
+
+    private void retired(OffHeapSlot slot) {
+        if (slot.allocation != null) arena.free(slot.allocation);
+    }
+
+    @SuppressWarnings("unchecked")
+    private OffHeapSlot slotFor(TTLKey key, T value) {
+        boolean future = false;
+        T encoded = value;
+        if (value instanceof CompletableFuture<?> completableFuture) {
+            // Only the result of a completed future can be restored, as a new completed future, by decoding
+            if (!completableFuture.isDone() || completableFuture.isCompletedExceptionally()) return OffHeapSlot.onHeap(value);
+            future = true;
+            encoded = (T) completableFuture.join();
+        }
+
+        try {
+            return encode(encoded, future);
+        } catch (IOException e) {
+            if (unencodableMethods.add(key.method())) {
+                log.debug("Values of {} cannot be encoded, they are cached on the heap", key.method(), e);
+            }
+            return OffHeapSlot.onHeap(value);
+        }
+    }
+
+    private OffHeapSlot encode(T value, boolean future) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (compression) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (OutputStream output = new DeflaterOutputStream(bytes, deflater)) {
+                codec.encode(value, output);
+            } finally {
+                deflater.end();
+            }
+        } else {
+            codec.encode(value, bytes);
+        }
+
+        byte[] encoded = bytes.toByteArray();
+        OffHeapArena.Allocation allocation = arena.allocate(encoded, encoded.length);
+        return new OffHeapSlot(allocation, allocation == null ? encoded : null, compression, future, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T decode(OffHeapSlot slot, @Nullable byte[] bytes) throws IOException {
+        if (!slot.encoded()) return (T) slot.heapValue;
+        if (bytes == null) throw new IOException("The pages of the value were reused once it was replaced");
+
+        T value;
+        InputStream input = new ByteArrayInputStream(bytes);
+        if (!slot.compressed) {
+            value = codec.decode(input);
+        } else {
+            try (InputStream inflated = new InflaterInputStream(input)) {
+                value = codec.decode(inflated);
+            }
+        }
+        return slot.future ? (T) CompletableFuture.completedFuture(value) : value;
+    }
+
+    /**
+     * The heap-resident index entry of an off-heap value. Encoded values the arena had no room for keep their bytes on
+     * the heap, and values which cannot be encoded are kept as they are.
+     */
+    record OffHeapSlot(@Nullable OffHeapArena.Allocation allocation, @Nullable byte[] bytes, boolean compressed, boolean future,
+                       @Nullable Object heapValue) {
+        static OffHeapSlot onHeap(Object value) {
+            return new OffHeapSlot(null, null, false, false, value);
+        }
+
+        boolean encoded() {
+            return allocation != null || bytes != null;
+        }
+
+        int weight() {
+            if (allocation != null) return (int) Math.min(Integer.MAX_VALUE, OffHeapArena.allocatedBytes(allocation.length()));
+            return bytes != null ? bytes.length : (int) Math.min(Integer.MAX_VALUE, TTLSizeEstimator.estimate(heapValue));
+        }
+    }
+
+    /**
+     * Decodes its value lazily, and only once, so callers inspecting just the expiration never pay for decoding.
+     */
+    private final class OffHeapValue implements TTLValue<T> {
+        private final TTLValue<OffHeapSlot> indexEntry;
+        private final OffHeapSlot slot;
+        private final @Nullable byte[] bytes;
+        private final long expirationNanos;
+        private T value;
+        private boolean decoded;
+
+        /**
+         * @param bytes the encoded value copied out of the arena, null if the value is not encoded or could not be copied
+         */
+        OffHeapValue(TTLValue<OffHeapSlot> indexEntry, @Nullable byte[] bytes) {
+            this.indexEntry = indexEntry;
+            this.slot = indexEntry.value();
+            this.bytes = bytes;
+            this.expirationNanos = indexEntry.expirationNanos();
+        }
+
+        @Override
+        public T value() {
+            if (!decoded) {
+                try {
+                    value = decode(slot, bytes);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not decode off-heap value", e);
+                }
+                decoded = true;
+            }
+            return value;
+        }
+
+        @Override
+        public Instant expiration() {
+            return Instant.now().plusNanos(expirationNanos - System.nanoTime());
+        }
+
+        @Override
+        public long expirationNanos() {
+            return expirationNanos;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return System.nanoTime() - expirationNanos >= 0;
+        }
+
+        @Override
+        public boolean isCurrent() {
+            return indexEntry.isCurrent();
+        }
+    }
+}
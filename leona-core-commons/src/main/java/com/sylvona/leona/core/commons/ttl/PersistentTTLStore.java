@@ -0,0 +1,496 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TTLStore<T>} decorator which snapshots cached values into a memory-mapped file, so a restarted application starts
+ * warm instead of hitting every downstream service at once.
+ * <p>
+ * Snapshots are written periodically and on {@link #close()}. Since source objects do not survive a restart, only the
+ * entries of {@link TTLScope#CLASS} and {@link TTLScope#GLOBAL} methods (and of static methods) are persisted, along with
+ * those of {@link TTLCache}s, whose keys name their cache: they are identified by the class they are cached for, the
+ * method and its serialized key arguments, and restored with whatever lifetime they had left. Entries cached for a single
+ * object, as by {@link TTLScope#INSTANCE} methods, could be handed to another object after a restart and are never
+ * persisted. Expirations are persisted as
+ * wall clock time, entries which expired while the application was down are never decoded. A snapshot which cannot be
+ * read in full, whether truncated or corrupted, is discarded as a whole.
+ * <p>
+ * Values are encoded with a {@link TTLCodec}, key arguments with Java serialization. Entries with values or arguments
+ * which cannot be encoded, such as in-flight futures, are simply not persisted.
+ */
+@Slf4j
+class PersistentTTLStore<T> implements TTLStore<T>, AutoCloseable {
+    private static final int MAGIC = 0x4C54544C; // "LTTL"
+    private static final int VERSION = 1;
+
+    private final TTLStore<T> delegate;
+    private final TTLCodec<T> codec;
+    private final Path file;
+    private final ComplexityDrivenSafeObjectMap<Set<TTLKey>> written = new ComplexityDrivenSafeObjectMap<>();
+    private final Map<PersistentKey, RestoredValue> restored = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    PersistentTTLStore(TTLStore<T> delegate, TTLCodec<T> codec, Path file, Duration snapshotInterval) {
+        this.delegate = delegate;
+        this.codec = codec;
+        this.file = file;
+        restore();
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leona-ttl-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = Math.max(1, snapshotInterval.toNanos());
+        executor.scheduleWithFixedDelay(this::snapshotQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public @Nullable TTLValue<T> fetchValue(Object source, TTLKey key) {
+        TTLValue<T> value = delegate.fetchValue(source, key);
+        if (value != null || restored.isEmpty() || !isPersisted(source)) return value;
+
+        PersistentKey persistentKey = PersistentKey.of(source, key);
+        RestoredValue restoredValue = persistentKey != null ? restored.remove(persistentKey) : null;
+        if (restoredValue == null) return null;
+
+        long remainingMillis = restoredValue.expiresAtMillis - System.currentTimeMillis();
+        if (remainingMillis <= 0) return null;
+
+        T decoded;
+        try {
+            decoded = codec.decode(new ByteArrayInputStream(restoredValue.value));
+        } catch (IOException e) {
+            log.warn("Could not decode persisted value of {}, it is not restored", key, e);
+            return null;
+        }
+
+        storeValue(source, key, decoded, Duration.ofMillis(remainingMillis));
+        return delegate.fetchValue(source, key);
+    }
+
+    @Override
+    public @Nullable TTLValue<T> peekValue(Object source, TTLKey key) {
+        return delegate.peekValue(source, key);
+    }
+
+    @Override
+    public void recordAccess(TTLValue<T> value) {
+        delegate.recordAccess(value);
+    }
+
+    @Override
+    public boolean tracksCurrentValues() {
+        return delegate.tracksCurrentValues();
+    }
+
+    @Override
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, Duration lifetime) {
+        if (isPersisted(source)) written.computeIfAbsent(source, s -> ConcurrentHashMap.newKeySet()).add(key);
+        return delegate.storeValue(source, key, value, lifetime);
+    }
+
+    @Override
+    public TTLValue<T> storeValue(Object source, TTLKey key, T value, long lifetimeNanos) {
+        if (isPersisted(source)) written.computeIfAbsent(source, s -> ConcurrentHashMap.newKeySet()).add(key);
+        return delegate.storeValue(source, key, value, lifetimeNanos);
+    }
+
+    @Override
+    public boolean removeValue(Object source, TTLKey key, T expectedValue) {
+        return delegate.removeValue(source, key, expectedValue);
+    }
+
+    @Override
+    public boolean invalidate(Object source, TTLKey key) {
+        PersistentKey persistentKey = restored.isEmpty() || !isPersisted(source) ? null : PersistentKey.of(source, key);
+        boolean removed = persistentKey != null && restored.remove(persistentKey) != null;
+        return delegate.invalidate(source, key) || removed;
+    }
+
+    @Override
+    public long invalidateKey(TTLKey key) {
+        if (!restored.isEmpty()) {
+            PersistentKey persistentKey = PersistentKey.of(Object.class, key);
+            if (persistentKey != null) {
+                restored.keySet().removeIf(restoredKey -> restoredKey.method.equals(persistentKey.method)
+                        && Arrays.equals(restoredKey.arguments, persistentKey.arguments));
+            }
+        }
+        return delegate.invalidateKey(key);
+    }
+
+    @Override
+    public long invalidateSource(Object source) {
+        if (isPersisted(source)) {
+            restored.keySet().removeIf(restoredKey -> restoredKey.sourceType.equals(PersistentKey.sourceType(source)));
+        }
+        return delegate.invalidateSource(source);
+    }
+
+    @Override
+    public long invalidateMethod(Method method) {
+        String description = PersistentKey.describe(method);
+        restored.keySet().removeIf(restoredKey -> restoredKey.method.equals(description));
+        return delegate.invalidateMethod(method);
+    }
+
+    @Override
+    public long invalidateMethod(Object source, Method method) {
+        if (isPersisted(source)) {
+            String description = PersistentKey.describe(method);
+            restored.keySet().removeIf(restoredKey -> restoredKey.method.equals(description)
+                    && restoredKey.sourceType.equals(PersistentKey.sourceType(source)));
+        }
+        return delegate.invalidateMethod(source, method);
+    }
+
+    @Override
+    public long invalidateTag(String tag) {
+        // Restored entries do not know the tags of their method, dropping them all is the only safe choice
+        restored.clear();
+        return delegate.invalidateTag(tag);
+    }
+
+    @Override
+    public long entryCount(Method method) {
+        return delegate.entryCount(method);
+    }
+
+    @Override
+    public long estimatedBytes(Method method) {
+        return delegate.estimatedBytes(method);
+    }
+
+    @Override
+    public long evictionCount() {
+        return delegate.evictionCount();
+    }
+
+    /**
+     * Writes every live entry to the snapshot file, replacing the previous snapshot atomically.
+     * @throws IOException if the snapshot cannot be written
+     */
+    public synchronized void snapshot() throws IOException {
+        long now = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotOutput output = new SnapshotOutput(channel);
+            output.begin();
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+
+            for (Map.Entry<Object, Set<TTLKey>> sourceKeys : written.entrySet()) {
+                Object source = sourceKeys.getKey();
+                for (TTLKey key : sourceKeys.getValue()) {
+                    // Peeking, as snapshots must not make every entry look recently used to the eviction policy
+                    TTLValue<T> value = delegate.peekValue(source, key);
+                    if (value == null || value.isExpired()) {
+                        sourceKeys.getValue().remove(key);
+                        continue;
+                    }
+                    PersistentKey persistentKey = PersistentKey.of(source, key);
+                    if (persistentKey == null) continue;
+                    long expiresAtMillis = now + TimeUnit.NANOSECONDS.toMillis(value.expirationNanos() - nowNanos);
+                    writeEntry(output, persistentKey, expiresAtMillis, valueOutput -> codec.encode(value.value(), valueOutput));
+                }
+            }
+
+            // Restored entries nobody asked for yet are carried over, until they expire
+            restored.entrySet().removeIf(entry -> entry.getValue().expiresAtMillis <= now);
+            for (Map.Entry<PersistentKey, RestoredValue> entry : restored.entrySet()) {
+                byte[] value = entry.getValue().value;
+                writeEntry(output, entry.getKey(), entry.getValue().expiresAtMillis, valueOutput -> valueOutput.write(value));
+            }
+            output.finish();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return whether the entries of the source are persisted, see {@link PersistentTTLStore}
+     */
+    private static boolean isPersisted(Object source) {
+        return TTLScope.isShared(source) || source instanceof TTLCache;
+    }
+
+    /**
+     * Writes a final snapshot and stops the periodic snapshots.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        snapshotQuietly();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write TTL snapshot to {}", file, e);
+        }
+    }
+
+    /**
+     * Writes an entry, or nothing at all if its value cannot be encoded. An entry which does not fit in the mapped region
+     * is written again into a larger one.
+     */
+    private static void writeEntry(SnapshotOutput output, PersistentKey key, long expiresAtMillis, ValueWriter value) throws IOException {
+        while (true) {
+            output.begin();
+            writeBytes(output, key.sourceType.getBytes(StandardCharsets.UTF_8));
+            writeBytes(output, key.method.getBytes(StandardCharsets.UTF_8));
+            writeBytes(output, key.arguments);
+            output.writeLong(expiresAtMillis);
+            int valueLength = output.reserveInt();
+            try {
+                value.writeTo(output);
+            } catch (IOException e) {
+                if (!output.overflowed()) {
+                    log.debug("Value of {} cannot be encoded, it is not persisted", key.method, e);
+                    output.rollback();
+                    return;
+                }
+            }
+            if (!output.overflowed()) {
+                output.completeLength(valueLength);
+                return;
+            }
+            output.rollback();
+            output.grow();
+        }
+    }
+
+    private static void writeBytes(SnapshotOutput output, byte[] bytes) {
+        output.writeInt(bytes.length);
+        output.write(bytes, 0, bytes.length);
+    }
+
+    private void restore() {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("Could not read TTL snapshot {}, starting cold", file, e);
+            return;
+        }
+
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                log.warn("{} is not a TTL snapshot, starting cold", file);
+                return;
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                log.info("TTL snapshot {} has version {}, expected {}, starting cold", file, version, VERSION);
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            Map<PersistentKey, RestoredValue> entries = new HashMap<>();
+            while (buffer.hasRemaining()) {
+                PersistentKey key = new PersistentKey(readString(buffer), readString(buffer), readBytes(buffer));
+                long expiresAtMillis = buffer.getLong();
+                int valueLength = readLength(buffer);
+                if (expiresAtMillis <= now) {
+                    // Expired entries are skipped without copying, let alone decoding, their values
+                    buffer.position(buffer.position() + valueLength);
+                    continue;
+                }
+
+                byte[] value = new byte[valueLength];
+                buffer.get(value);
+                entries.put(key, new RestoredValue(value, expiresAtMillis));
+            }
+
+            restored.putAll(entries);
+            log.info("Restored {} entries from TTL snapshot {}", restored.size(), file);
+        } catch (RuntimeException e) {
+            // Entries read before the damage could themselves be corrupt, starting cold is the only safe choice
+            log.warn("TTL snapshot {} is corrupted, starting cold", file, e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[readLength(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a length and checks it against the bytes left, a corrupted length must not allocate a huge array.
+     */
+    private static int readLength(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+        return length;
+    }
+
+    private record RestoredValue(byte[] value, long expiresAtMillis) {
+    }
+
+    private interface ValueWriter {
+        void writeTo(OutputStream output) throws IOException;
+    }
+
+    /**
+     * Writes a snapshot straight into its file through a mapped region. Writes which do not fit are dropped and flag the
+     * current entry as overflowed, the entry is then rolled back and written again into a larger region mapped from its
+     * start, so entries never span two regions.
+     */
+    private static final class SnapshotOutput extends OutputStream {
+        private static final int INITIAL_REGION_SIZE = 1 << 20;
+        private static final int MAXIMUM_REGION_SIZE = Integer.MAX_VALUE - 8;
+
+        private final FileChannel channel;
+        private MappedByteBuffer region;
+        private long regionStart;
+        private int entryStart;
+        private boolean overflowed;
+
+        SnapshotOutput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.region = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_REGION_SIZE);
+        }
+
+        void begin() {
+            entryStart = region.position();
+            overflowed = false;
+        }
+
+        boolean overflowed() {
+            return overflowed;
+        }
+
+        void rollback() {
+            region.position(entryStart);
+        }
+
+        void grow() throws IOException {
+            int available = region.capacity() - entryStart;
+            if (available >= MAXIMUM_REGION_SIZE) throw new IOException("Snapshot entry is too large to be mapped");
+            long start = regionStart + entryStart;
+            int size = (int) Math.min(MAXIMUM_REGION_SIZE, Math.max(region.capacity(), available * 2L));
+            region.force();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+            regionStart = start;
+            entryStart = 0;
+        }
+
+        /**
+         * Flushes the snapshot and trims the file to the bytes written.
+         */
+        void finish() throws IOException {
+            region.force();
+            channel.truncate(regionStart + region.position());
+        }
+
+        /**
+         * @return the position of an int to be set by {@link #completeLength(int)}
+         */
+        int reserveInt() {
+            int position = region.position();
+            writeInt(0);
+            return position;
+        }
+
+        void completeLength(int position) {
+            region.putInt(position, region.position() - position - Integer.BYTES);
+        }
+
+        void writeInt(int value) {
+            if (fits(Integer.BYTES)) region.putInt(value);
+        }
+
+        void writeLong(long value) {
+            if (fits(Long.BYTES)) region.putLong(value);
+        }
+
+        @Override
+        public void write(int b) {
+            if (fits(1)) region.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            if (fits(length)) region.put(bytes, offset, length);
+        }
+
+        private boolean fits(int length) {
+            if (!overflowed && region.remaining() >= length) return true;
+            overflowed = true;
+            return false;
+        }
+    }
+
+    /**
+     * Restart-stable identity of an entry, comparing serialized arguments byte by byte.
+     */
+    private record PersistentKey(String sourceType, String method, byte[] arguments) {
+        @Nullable
+        static PersistentKey of(Object source, TTLKey key) {
+            ByteArrayOutputStream arguments = new ByteArrayOutputStream();
+            try (ObjectOutputStream output = new ObjectOutputStream(arguments)) {
+                output.writeObject(key.arguments());
+            } catch (IOException e) {
+                return null;
+            }
+            return new PersistentKey(sourceType(source), describe(key.method()), arguments.toByteArray());
+        }
+
+        static String sourceType(Object source) {
+            // Class scoped values are cached for the class itself
+            return source instanceof Class<?> type ? type.getName() : source.getClass().getName();
+        }
+
+        static String describe(Method method) {
+            return method.getDeclaringClass().getName() + '#' + method.getName() + Arrays.toString(method.getParameterTypes());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PersistentKey other && sourceType.equals(other.sourceType) && method.equals(other.method)
+                    && Arrays.equals(arguments, other.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * sourceType.hashCode() + method.hashCode()) + Arrays.hashCode(arguments);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent loads of the same cache entry so that exactly one caller invokes the underlying method.
+ * <p>
+ * The first caller for a given invoking object and {@link TTLKey} becomes the leader and performs the load, every other
+ * caller arriving while the load is in flight waits for the leader's result (or failure) instead of loading on its own.
+ * Loads can also be started in the background through {@link #refresh(Object, TTLKey, Loader)}, callers needing the
+ * entry while such a refresh is running join it like any other load. A refresh whose loader returns a
+ * {@link CompletionStage} stays in flight until the stage completes, so that an async method is not refreshed again on
+ * every hit while its previous refresh is still pending.
+ */
+@Slf4j
+public class SingleFlightLoader implements AutoCloseable {
+    private final ConcurrentHashMap<Flight, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder deduplicatedLoads = new LongAdder();
+    private final LongAdder backgroundRefreshes = new LongAdder();
+    private final ExecutorService refreshExecutor;
+    private final @Nullable TTLMetrics metrics;
+
+    public SingleFlightLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param refreshThreads the number of daemon threads performing background refreshes
+     */
+    public SingleFlightLoader(int refreshThreads) {
+        this(refreshThreads, null);
+    }
+
+    /**
+     * @param refreshThreads the number of daemon threads performing background refreshes
+     * @param metrics the metrics recording deduplicated loads and background refreshes per method, if any
+     */
+    public SingleFlightLoader(int refreshThreads, @Nullable TTLMetrics metrics) {
+        this.metrics = metrics;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(Math.max(1, refreshThreads), runnable -> {
+            Thread thread = new Thread(runnable, "leona-ttl-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads a value, or joins a load of the same entry which is already in progress
+     * @param source the invoking object
+     * @param key the key of the entry being loaded
+     * @param timeout the longest time a joining caller waits for the leader
+     * @param loader performs the actual load, only invoked by the leader
+     * @return the loaded value
+     * @throws TTLLoadTimeoutException if a joining caller waited longer than {@code timeout}
+     * @throws Throwable the failure of the leader's load, shared with every joining caller
+     */
+    public Object load(Object source, TTLKey key, Duration timeout, Loader loader) throws Throwable {
+        Flight flight = new Flight(source, key);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flight, result);
+
+        if (existing != null) {
+            deduplicatedLoads.increment();
+            if (metrics != null) metrics.forMethod(key.method()).recordDeduplicatedLoad();
+            return await(existing, key, timeout);
+        }
+
+        try {
+            Object value = loader.load();
+            result.complete(value);
+            return value;
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flight, result);
+        }
+    }
+
+    /**
+     * Starts loading an entry in the background, unless a load of the same entry is already in flight
+     * @param source the invoking object
+     * @param key the key of the entry being loaded
+     * @param loader performs the actual load on a refresh thread
+     * @return true if a refresh was started by this call
+     */
+    public boolean refresh(Object source, TTLKey key, Loader loader) {
+        Flight flight = new Flight(source, key);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(flight, result) != null) return false;
+
+        try {
+            refreshExecutor.execute(() -> {
+                Object value;
+                try {
+                    value = loader.load();
+                } catch (Throwable e) {
+                    log.warn("Background refresh of {} failed, the cached value is kept until it is too stale", key, e);
+                    result.completeExceptionally(e);
+                    inFlight.remove(flight, result);
+                    return;
+                }
+
+                // Callers joining the refresh get the pending stage right away, later refreshes wait for it to complete
+                result.complete(value);
+                if (value instanceof CompletionStage<?> stage) {
+                    stage.whenComplete((completed, failure) -> inFlight.remove(flight, result));
+                } else {
+                    inFlight.remove(flight, result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(flight, result);
+            result.completeExceptionally(e);
+            return false;
+        }
+
+        backgroundRefreshes.increment();
+        if (metrics != null) metrics.forMethod(key.method()).recordBackgroundRefresh();
+        return true;
+    }
+
+    /**
+     * @return the number of calls which were served by another caller's load instead of loading themselves
+     */
+    public long getDeduplicatedLoads() {
+        return deduplicatedLoads.sum();
+    }
+
+    /**
+     * @return the number of loads currently in progress
+     */
+    public int getInFlightLoads() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return the number of background refreshes started so far
+     */
+    public long getBackgroundRefreshes() {
+        return backgroundRefreshes.sum();
+    }
+
+    @Override
+    public void close() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static Object await(CompletableFuture<Object> result, TTLKey key, Duration timeout) throws Throwable {
+        try {
+            return result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new TTLLoadTimeoutException("Timed out after %s waiting for in-flight load of %s".formatted(timeout, key), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        Object load() throws Throwable;
+    }
+
+    private record Flight(Object source, TTLKey key) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Flight other && source == other.source && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(source) + key.hashCode();
+        }
+    }
+}
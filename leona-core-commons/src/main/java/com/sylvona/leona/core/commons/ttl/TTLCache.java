@@ -0,0 +1,144 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Spring {@link Cache} backed by the same {@link TTLStore} as the {@link TTLMethod}s, so {@code @Cacheable} methods share
+ * its bounds, eviction and metrics. Every entry lives for the cache's time-to-live.
+ * <p>
+ * Entries are keyed by {@link #CACHE_METHOD} along with the cache's name and the Spring cache key, and are cached for the
+ * cache itself, so a cache can be cleared without touching any other. Every cache has its own {@link TTLMethodMetrics},
+ * registered under its name, but being keyed by the same method, Spring caches count towards the store-wide bounds together.
+ */
+class TTLCache extends AbstractValueAdaptingCache {
+    static final Method CACHE_METHOD = cacheMethod();
+
+    private final String name;
+    private final TTLStore<Object> store;
+    private final SingleFlightLoader singleFlightLoader;
+    private final TTLMethodMetrics metrics;
+    private final long ttlNanos;
+    private final Duration loadTimeout;
+
+    TTLCache(String name, TTLStore<Object> store, SingleFlightLoader singleFlightLoader, TTLMetrics metrics, Duration timeToLive,
+             Duration loadTimeout, boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.store = store;
+        this.singleFlightLoader = singleFlightLoader;
+        this.metrics = metrics.forCache(name);
+        this.ttlNanos = ConcurrentTTLStore.saturatedNanos(timeToLive);
+        this.loadTimeout = loadTimeout;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public TTLStore<Object> getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = fetchFresh(keyFor(key));
+        if (value != null) {
+            metrics.recordHit();
+        } else {
+            metrics.recordMiss();
+        }
+        return value;
+    }
+
+    /**
+     * Loads missing values through the {@link SingleFlightLoader}, so concurrent callers missing the same key invoke the
+     * loader once, as {@code @Cacheable(sync = true)} expects.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = lookup(key);
+        if (cached != null) return (T) fromStoreValue(cached);
+
+        TTLKey ttlKey = keyFor(key);
+        try {
+            return (T) fromStoreValue(singleFlightLoader.load(this, ttlKey, loadTimeout, () -> {
+                // Another leader may have stored a fresh value between our lookup and winning the flight
+                Object current = fetchFresh(ttlKey);
+                if (current != null) return current;
+
+                long loadStart = System.nanoTime();
+                Object loaded;
+                try {
+                    loaded = toStoreValue(valueLoader.call());
+                } catch (Throwable e) {
+                    metrics.recordLoad(System.nanoTime() - loadStart, false);
+                    throw e;
+                }
+                metrics.recordLoad(System.nanoTime() - loadStart, true);
+                store.storeValue(this, ttlKey, loaded, ttlNanos);
+                return loaded;
+            }));
+        } catch (TTLLoadTimeoutException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store.storeValue(this, keyFor(key), toStoreValue(value), ttlNanos);
+    }
+
+    @Override
+    public void evict(Object key) {
+        store.invalidate(this, keyFor(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return store.invalidate(this, keyFor(key));
+    }
+
+    @Override
+    public void clear() {
+        store.invalidateMethod(this, CACHE_METHOD);
+    }
+
+    @Override
+    public boolean invalidate() {
+        return store.invalidateMethod(this, CACHE_METHOD) > 0;
+    }
+
+    private Object fetchFresh(TTLKey key) {
+        TTLValue<Object> value = store.fetchValue(this, key);
+        if (value == null || System.nanoTime() - value.expirationNanos() >= 0) return null;
+        return value.value();
+    }
+
+    private TTLKey keyFor(Object key) {
+        // The name keeps entries of different caches apart in persisted snapshots, which only record the source's type
+        return TTLKey.of(CACHE_METHOD, name, key);
+    }
+
+    private static Method cacheMethod() {
+        try {
+            return Cache.class.getMethod("get", Object.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TTLCache[%s]".formatted(name);
+    }
+}
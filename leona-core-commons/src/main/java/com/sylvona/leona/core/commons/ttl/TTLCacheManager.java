@@ -0,0 +1,52 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CacheManager} of {@link TTLCache}s, configured from {@code leona.ttl.cache.*}. The caches listed in
+ * {@link TTLProperties.Cache#getCacheNames()} are created upfront and no others are; without such a list, caches are
+ * created on first use.
+ */
+class TTLCacheManager implements CacheManager {
+    private final Map<String, TTLCache> caches = new ConcurrentHashMap<>();
+    private final TTLStore<Object> store;
+    private final SingleFlightLoader singleFlightLoader;
+    private final TTLMetrics metrics;
+    private final TTLProperties.Cache properties;
+    private final boolean dynamic;
+
+    TTLCacheManager(TTLStore<Object> store, SingleFlightLoader singleFlightLoader, TTLMetrics metrics, TTLProperties.Cache properties) {
+        this.store = store;
+        this.singleFlightLoader = singleFlightLoader;
+        this.metrics = metrics;
+        this.properties = properties;
+        this.dynamic = properties.getCacheNames().isEmpty();
+        for (String name : properties.getCacheNames()) {
+            caches.put(name, createCache(name));
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TTLCache cache = caches.get(name);
+        if (cache != null || !dynamic) return cache;
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TTLCache createCache(String name) {
+        Duration timeToLive = properties.getTimeToLiveByCache().getOrDefault(name, properties.getTimeToLive());
+        return new TTLCache(name, store, singleFlightLoader, metrics, timeToLive, properties.getLoadTimeout(), properties.isAllowNullValues());
+    }
+}
@@ -0,0 +1,11 @@
+package com.sylvona.leona.core.commons.ttl;
+
+/**
+ * Thrown on every hit of a cached exception (see {@link TTLMethod#cacheExceptions()}), with the cached exception as its
+ * cause. It has no stack trace and records no suppressed exceptions, so a single instance is shared by all hits.
+ */
+public class TTLCachedFailureException extends RuntimeException {
+    public TTLCachedFailureException(Throwable cause) {
+        super(cause.toString(), cause, false, false);
+    }
+}
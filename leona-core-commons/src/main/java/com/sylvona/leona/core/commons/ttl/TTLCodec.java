@@ -0,0 +1,28 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts cached values to and from bytes, for {@link TTLStore}s which keep values outside the Java heap or on disk.
+ * Register a bean of this type to replace the default Java serialization codec.
+ * @param <T> the type of cached values
+ */
+public interface TTLCodec<T> {
+    /**
+     * Writes a value to a stream
+     * @param value the value to encode
+     * @param output the stream to write the value's bytes to
+     * @throws IOException if the value cannot be encoded
+     */
+    void encode(T value, OutputStream output) throws IOException;
+
+    /**
+     * Reads a value previously written by {@link #encode(Object, OutputStream)}
+     * @param input the stream holding exactly the value's bytes
+     * @return the decoded value
+     * @throws IOException if the value cannot be decoded
+     */
+    T decode(InputStream input) throws IOException;
+}
@@ -0,0 +1,49 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Invalidates cached {@link TTLMethod} values whenever the annotated (typically writing) method is invoked. Without any
+ * attribute, every value cached for the invoking object is invalidated.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TTLEvict {
+    /**
+     * Names of the {@link TTLMethod}s, declared by the same class, whose values are invalidated. Every overload of a
+     * name is invalidated.
+     * @return the names of the methods to invalidate
+     */
+    String[] methods() default {};
+
+    /**
+     * Indices of this method's parameters whose arguments make up the key to invalidate, in the order of the key
+     * parameters of the {@link #methods()}. For example {@code updateUser(long id, User user)} invalidates
+     * {@code getUser(long id)} with {@code keyParameters = 0}. Defaults to invalidating every key of the methods.
+     * @return the zero-based indices of the parameters building the key
+     */
+    int[] keyParameters() default {};
+
+    /**
+     * Tags whose values are invalidated, see {@link TTLMethod#tags()}. Tags are invalidated for every invoking object.
+     * @return the tags to invalidate
+     */
+    String[] tags() default {};
+
+    /**
+     * Whether {@link #methods()} are invalidated for every invoking object rather than only for the invoking object of
+     * the annotated method.
+     * @return true to invalidate across every invoking object
+     */
+    boolean allInstances() default false;
+
+    /**
+     * Whether values are invalidated before the annotated method is invoked. By default they are invalidated after it
+     * returns, and not at all if it throws.
+     * @return true to invalidate before invocation
+     */
+    boolean beforeInvocation() default false;
+}
@@ -0,0 +1,102 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Intercepts {@link TTLEvict} methods, invalidating the values they declare through the {@link TTLStore}. The
+ * {@link TTLMethod}s named by an eviction are resolved once per evicting method and invoking class. An eviction naming
+ * no method resolves every instance scoped {@link TTLMethod} of the invoking class, so that it invalidates through
+ * their per method index rather than scanning the whole store for the invoking object.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+class TTLEvictAspect {
+    private final TTLStore<Object> ttlStore;
+    private final Map<EvictionSite, List<Method>> targets = new ConcurrentHashMap<>();
+
+    @Pointcut("execution(@com.sylvona.leona.core.commons.ttl.TTLEvict * *(..))")
+    public void findMarkedTTLEvictMethods() {}
+
+    @Around("findMarkedTTLEvictMethods()")
+    public Object doMarkedMethodInterception(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        TTLEvict ttlEvict = method.getAnnotation(TTLEvict.class);
+
+        if (ttlEvict.beforeInvocation()) evict(joinPoint, method, ttlEvict);
+        Object result = joinPoint.proceed();
+        if (!ttlEvict.beforeInvocation()) evict(joinPoint, method, ttlEvict);
+        return result;
+    }
+
+    private void evict(ProceedingJoinPoint joinPoint, Method method, TTLEvict ttlEvict) {
+        Object source = TTLScope.INSTANCE.sourceFor(joinPoint);
+        for (String tag : ttlEvict.tags()) {
+            ttlStore.invalidateTag(tag);
+        }
+
+        if (ttlEvict.methods().length == 0 && ttlEvict.tags().length > 0) return;
+
+        // Static methods have no target, the methods they name are those of their own class
+        Object invoked = joinPoint.getTarget();
+        EvictionSite site = new EvictionSite(method, invoked != null ? invoked.getClass() : method.getDeclaringClass());
+        List<Method> resolved = targets.computeIfAbsent(site, TTLEvictAspect::resolveTargets);
+        if (ttlEvict.methods().length == 0) {
+            // Every value cached for the invoking object, found through the index of each of its methods
+            for (Method target : resolved) {
+                ttlStore.invalidateMethod(source, target);
+            }
+            return;
+        }
+
+        for (Method target : resolved) {
+            // Values of class or globally scoped methods are cached for a source other than the invoking object
+            Object targetSource = target.getAnnotation(TTLMethod.class).scope().sourceFor(joinPoint);
+            if (ttlEvict.keyParameters().length > 0) {
+                TTLKey key = TTLKey.of(target, joinPoint.getArgs(), ttlEvict.keyParameters());
+                if (ttlEvict.allInstances()) ttlStore.invalidateKey(key);
+                else ttlStore.invalidate(targetSource, key);
+            } else if (ttlEvict.allInstances()) {
+                ttlStore.invalidateMethod(target);
+            } else {
+                ttlStore.invalidateMethod(targetSource, target);
+            }
+        }
+    }
+
+    private static List<Method> resolveTargets(EvictionSite site) {
+        List<String> names = Arrays.asList(site.method.getAnnotation(TTLEvict.class).methods());
+        List<Method> resolved = new ArrayList<>();
+        for (Class<?> type = site.targetClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Method candidate : type.getDeclaredMethods()) {
+                TTLMethod ttlMethod = candidate.getAnnotation(TTLMethod.class);
+                if (ttlMethod == null) continue;
+                // A bare eviction only reaches the methods caching values for the invoking object itself
+                if (names.isEmpty() ? ttlMethod.scope() == TTLScope.INSTANCE : names.contains(candidate.getName())) {
+                    resolved.add(candidate);
+                }
+            }
+        }
+
+        if (resolved.isEmpty() && !names.isEmpty()) {
+            throw new IllegalArgumentException("@TTLEvict on %s names no @TTLMethod of %s".formatted(site.method, site.targetClass));
+        }
+        return resolved;
+    }
+
+    private record EvictionSite(Method method, Class<?> targetClass) {
+    }
+}
@@ -0,0 +1,227 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hierarchical timing wheel which proactively removes expired entries from a {@link TTLStore}, so that values which are
+ * never read again do not stay on the heap.
+ * <p>
+ * Scheduling is O(1) and lock-free: callers only append to a queue, which the wheel's single daemon thread drains into
+ * its buckets once per tick. Each level holds {@value #WHEEL_SIZE} buckets, every level spanning {@value #WHEEL_SIZE}
+ * times the range of the level below; entries cascade down a level as the wheel turns and are expired from the lowest
+ * level. Stores cancel the {@link Timeout} of an entry removed before its deadline, which releases the entry (and its
+ * value) right away rather than once the deadline passes.
+ */
+@Slf4j
+public class TTLExpirationWheel implements AutoCloseable {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final List<List<Timeout>> buckets = new ArrayList<>(LEVELS * WHEEL_SIZE);
+    private final ScheduledExecutorService executor;
+    private long currentTick;
+
+    private volatile long lastSweepNanos;
+    private volatile long maximumSweepNanos;
+    private volatile long lastSweepReclaimed;
+    private volatile long totalReclaimed;
+
+    public TTLExpirationWheel(Duration tick) {
+        this.tickNanos = Math.max(1, tick.toNanos());
+        this.startNanos = System.nanoTime();
+        for (int i = 0; i < LEVELS * WHEEL_SIZE; i++) {
+            buckets.add(new ArrayList<>());
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leona-ttl-expiration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::sweep, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Schedules an entry to be expired once {@code deadlineNanos} (in {@link System#nanoTime()} terms) has passed.
+     * @param expiring the entry to expire
+     * @param deadlineNanos the deadline of the entry
+     * @return a handle cancelling the expiration, to be used once the entry leaves its store by other means
+     */
+    public Timeout schedule(Expiring expiring, long deadlineNanos) {
+        Timeout timeout = new Timeout(expiring, deadlineNanos);
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the time taken by the most recent sweep
+     */
+    public Duration getLastSweepLatency() {
+        return Duration.ofNanos(lastSweepNanos);
+    }
+
+    /**
+     * @return the longest time taken by any sweep so far
+     */
+    public Duration getMaximumSweepLatency() {
+        return Duration.ofNanos(maximumSweepNanos);
+    }
+
+    /**
+     * @return the number of entries reclaimed by the most recent sweep
+     */
+    public long getLastSweepReclaimed() {
+        return lastSweepReclaimed;
+    }
+
+    /**
+     * @return the number of entries reclaimed by every sweep so far
+     */
+    public long getTotalReclaimed() {
+        return totalReclaimed;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void sweep() {
+        long sweepStart = System.nanoTime();
+        long reclaimed = 0;
+        try {
+            Timeout timeout;
+            while ((timeout = pending.poll()) != null) {
+                place(timeout);
+            }
+
+            // Catch up on every tick that elapsed, the executor may have run this sweep late
+            long targetTick = (sweepStart - startNanos) / tickNanos;
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                reclaimed += expire(buckets.get((int) (currentTick & WHEEL_MASK)));
+            }
+        } catch (Throwable e) {
+            log.error("TTL expiration sweep failed", e);
+        }
+
+        long sweepNanos = System.nanoTime() - sweepStart;
+        lastSweepNanos = sweepNanos;
+        if (sweepNanos > maximumSweepNanos) maximumSweepNanos = sweepNanos;
+        lastSweepReclaimed = reclaimed;
+        totalReclaimed += reclaimed;
+    }
+
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            // A level only turns once every bucket of the level below it has passed
+            if ((currentTick & ((1L << (level * WHEEL_BITS)) - 1)) != 0) return;
+
+            int index = level * WHEEL_SIZE + (int) ((currentTick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+            List<Timeout> bucket = buckets.get(index);
+            if (bucket.isEmpty()) continue;
+
+            buckets.set(index, new ArrayList<>());
+            for (Timeout timeout : bucket) {
+                if (!timeout.isCancelled()) place(timeout);
+            }
+        }
+    }
+
+    private long expire(List<Timeout> bucket) {
+        if (bucket.isEmpty()) return 0;
+
+        long reclaimed = 0;
+        List<Timeout> due = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Timeout timeout : due) {
+            Expiring expiring = timeout.expiring;
+            if (expiring == null) continue;
+
+            if (tickOf(timeout.deadlineNanos) > currentTick) {
+                place(timeout);
+            } else if (expiring.expire()) {
+                reclaimed++;
+            }
+        }
+        return reclaimed;
+    }
+
+    private void place(Timeout timeout) {
+        if (timeout.isCancelled()) return;
+
+        long deadlineTick = Math.max(tickOf(timeout.deadlineNanos), currentTick + 1);
+        long delta = deadlineTick - currentTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << ((level + 1) * WHEEL_BITS))) {
+            level++;
+        }
+
+        // Deadlines beyond the top level are parked in its furthest bucket and re-placed when it cascades
+        long levelRange = 1L << ((level + 1) * WHEEL_BITS);
+        if (delta >= levelRange) deadlineTick = currentTick + levelRange - 1;
+
+        int index = level * WHEEL_SIZE + (int) ((deadlineTick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        buckets.get(index).add(timeout);
+    }
+
+    private long tickOf(long deadlineNanos) {
+        long elapsed = deadlineNanos - startNanos;
+        return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    /**
+     * An entry which can be removed from its store once its deadline passes.
+     */
+    public interface Expiring {
+        /**
+         * Removes the entry from its store, unless it was already removed or replaced.
+         * @return true if the entry was removed by this call
+         */
+        boolean expire();
+    }
+
+    /**
+     * A scheduled expiration. Cancelling it drops the wheel's reference to the entry, the small timeout itself stays in
+     * its bucket until the wheel reaches it.
+     */
+    public static final class Timeout {
+        private final long deadlineNanos;
+        private volatile Expiring expiring;
+
+        private Timeout(Expiring expiring, long deadlineNanos) {
+            this.expiring = expiring;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancels the expiration, the entry is no longer referenced by the wheel.
+         */
+        public void cancel() {
+            expiring = null;
+        }
+
+        /**
+         * @return true once {@link #cancel()} has been called
+         */
+        public boolean isCancelled() {
+            return expiring == null;
+        }
+    }
+}
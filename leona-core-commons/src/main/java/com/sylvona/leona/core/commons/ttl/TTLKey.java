@@ -0,0 +1,175 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable key identifying a single cached invocation of a {@link TTLMethod}: the invoked {@link Method} together with
+ * the arguments that take part in the key (see {@link TTLMethod#keyParameters()}).
+ * <p>
+ * Keys are kept compact: methods without key arguments share no argument storage at all, single argument keys hold the
+ * argument directly, and only multi-argument keys keep an array. The hash code is computed once on construction.
+ */
+public final class TTLKey {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final Method method;
+    private final int arity;
+    private final Object keyData;
+    private final int hash;
+
+    private TTLKey(Method method, int arity, Object keyData, int argumentHash) {
+        this.method = method;
+        this.arity = arity;
+        this.keyData = keyData;
+        this.hash = 31 * method.hashCode() + argumentHash;
+    }
+
+    /**
+     * Creates a key for a method whose result does not depend on its arguments.
+     * @param method the cached method
+     * @return a key for the method alone
+     */
+    public static TTLKey of(Method method) {
+        return new TTLKey(Objects.requireNonNull(method, "method"), 0, null, 0);
+    }
+
+    /**
+     * Creates a key from arguments which have already been narrowed down to the key parameters.
+     * @param method the cached method
+     * @param keyArguments the arguments taking part in the key, in order, copied so the caller may reuse the array
+     * @return a key for the method and arguments
+     */
+    public static TTLKey of(Method method, Object... keyArguments) {
+        Objects.requireNonNull(method, "method");
+        if (keyArguments == null || keyArguments.length == 0) return of(method);
+        if (keyArguments.length == 1) return new TTLKey(method, 1, keyArguments[0], argumentHash(keyArguments[0]));
+
+        Object[] copy = keyArguments.clone();
+        return new TTLKey(method, copy.length, copy, Arrays.deepHashCode(copy));
+    }
+
+    /**
+     * Creates a key from the full argument list of an invocation, keeping only the arguments at {@code keyParameters}.
+     * @param method the cached method
+     * @param arguments every argument passed to the invocation, never kept by the key
+     * @param keyParameters the indices of the parameters taking part in the key, or an empty array to use all of them
+     * @return a key for the method and selected arguments
+     */
+    public static TTLKey of(Method method, Object[] arguments, int[] keyParameters) {
+        if (arguments == null) arguments = NO_ARGUMENTS;
+        if (keyParameters.length == 0) return of(method, arguments);
+
+        if (keyParameters.length == 1) {
+            Object argument = arguments[checkIndex(method, keyParameters[0], arguments.length)];
+            return new TTLKey(method, 1, argument, argumentHash(argument));
+        }
+
+        Object[] keyArguments = new Object[keyParameters.length];
+        for (int i = 0; i < keyParameters.length; i++) {
+            keyArguments[i] = arguments[checkIndex(method, keyParameters[i], arguments.length)];
+        }
+        return new TTLKey(method, keyArguments.length, keyArguments, Arrays.deepHashCode(keyArguments));
+    }
+
+    /**
+     * Computes the hash code of the key {@link #of(Method, Object[], int[])} builds, without building it.
+     * @param method the cached method
+     * @param arguments every argument passed to the invocation
+     * @param keyParameters the indices of the parameters taking part in the key, or an empty array to use all of them
+     * @return the hash code of the key for the method and selected arguments
+     */
+    static int hashOf(Method method, Object[] arguments, int[] keyParameters) {
+        if (arguments == null) arguments = NO_ARGUMENTS;
+        int arity = keyParameters.length == 0 ? arguments.length : keyParameters.length;
+        if (arity == 0) return 31 * method.hashCode();
+        if (arity == 1) return 31 * method.hashCode() + argumentHash(arguments[argumentIndex(method, arguments, keyParameters, 0)]);
+
+        // Arrays.deepHashCode of the key arguments
+        int argumentHash = 1;
+        for (int i = 0; i < arity; i++) {
+            Object argument = arguments[argumentIndex(method, arguments, keyParameters, i)];
+            int elementHash = argument == null ? 0
+                    : argument.getClass().isArray() ? Arrays.deepHashCode(new Object[] {argument}) - 31 : argument.hashCode();
+            argumentHash = 31 * argumentHash + elementHash;
+        }
+        return 31 * method.hashCode() + argumentHash;
+    }
+
+    /**
+     * Tells whether this key equals the key {@link #of(Method, Object[], int[])} builds, without building it.
+     * @param method the cached method
+     * @param arguments every argument passed to the invocation
+     * @param keyParameters the indices of the parameters taking part in the key, or an empty array to use all of them
+     * @return whether this is the key of the method and selected arguments
+     */
+    boolean matches(Method method, Object[] arguments, int[] keyParameters) {
+        if (arguments == null) arguments = NO_ARGUMENTS;
+        if (arity != (keyParameters.length == 0 ? arguments.length : keyParameters.length)) return false;
+        if (this.method != method && !this.method.equals(method)) return false;
+
+        if (arity == 1) return Objects.deepEquals(keyData, arguments[argumentIndex(method, arguments, keyParameters, 0)]);
+        for (int i = 0; i < arity; i++) {
+            if (!Objects.deepEquals(((Object[]) keyData)[i], arguments[argumentIndex(method, arguments, keyParameters, i)])) return false;
+        }
+        return true;
+    }
+
+    public Method method() {
+        return method;
+    }
+
+    /**
+     * @return a copy of the arguments taking part in this key
+     */
+    public Object[] arguments() {
+        return switch (arity) {
+            case 0 -> NO_ARGUMENTS;
+            case 1 -> new Object[] {keyData};
+            default -> ((Object[]) keyData).clone();
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TTLKey other)) return false;
+        if (hash != other.hash || arity != other.arity) return false;
+        // Keys of the same method usually share the Method instance resolved by TTLMethodDescriptor
+        if (method != other.method && !method.equals(other.method)) return false;
+
+        return switch (arity) {
+            case 0 -> true;
+            case 1 -> Objects.deepEquals(keyData, other.keyData);
+            default -> Arrays.deepEquals((Object[]) keyData, (Object[]) other.keyData);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "TTLKey[%s.%s%s]".formatted(method.getDeclaringClass().getSimpleName(), method.getName(), Arrays.deepToString(arguments()));
+    }
+
+    private static int argumentHash(Object argument) {
+        if (argument == null) return 0;
+        // Arrays are rare as key arguments, only they need to pay for the deep hash
+        return argument.getClass().isArray() ? Arrays.deepHashCode(new Object[] {argument}) : argument.hashCode();
+    }
+
+    private static int argumentIndex(Method method, Object[] arguments, int[] keyParameters, int i) {
+        return keyParameters.length == 0 ? i : checkIndex(method, keyParameters[i], arguments.length);
+    }
+
+    private static int checkIndex(Method method, int index, int argumentCount) {
+        if (index < 0 || index >= argumentCount) {
+            throw new IllegalArgumentException("@TTLMethod key parameter %d is out of range for %s".formatted(index, method));
+        }
+        return index;
+    }
+}
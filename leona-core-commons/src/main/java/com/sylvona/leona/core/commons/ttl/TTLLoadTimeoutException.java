@@ -0,0 +1,10 @@
+package com.sylvona.leona.core.commons.ttl;
+
+/**
+ * Thrown when a caller gives up waiting for another caller's in-flight load of the same {@link TTLMethod} entry.
+ */
+public class TTLLoadTimeoutException extends RuntimeException {
+    public TTLLoadTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
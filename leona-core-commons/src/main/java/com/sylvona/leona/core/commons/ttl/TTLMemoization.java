@@ -0,0 +1,101 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Scopes the results of {@link TTLMemoized} methods to a request or operation.
+ * <p>
+ * Within a Spring web request, results are memoized for the request without any setup: the arena is kept as a request
+ * attribute and dropped with the request. Other units of work, such as message listeners or batch jobs, open an
+ * operation explicitly:
+ * <pre>{@code
+ * try (TTLMemoization.Scope scope = TTLMemoization.open()) {
+ *     ...
+ * }
+ * }</pre>
+ * Operations nest: opening an operation within another one (or within a request) keeps using the outer arena, and only
+ * closing the outermost operation drops it.
+ */
+public final class TTLMemoization {
+    private static final boolean WEB_PRESENT = ClassUtils.isPresent("org.springframework.web.context.request.RequestContextHolder",
+            TTLMemoization.class.getClassLoader());
+    private static final ThreadLocal<TTLMemoizationArena> OPERATION_ARENA = new ThreadLocal<>();
+    private static final Scope NESTED_SCOPE = () -> {};
+
+    private TTLMemoization() {
+    }
+
+    /**
+     * Opens an operation on the current thread, unless one is already open.
+     * @return the scope to close once the operation completes
+     */
+    public static Scope open() {
+        if (currentArena() != null) return NESTED_SCOPE;
+
+        OPERATION_ARENA.set(new TTLMemoizationArena());
+        return OPERATION_ARENA::remove;
+    }
+
+    public static void run(Runnable operation) {
+        try (Scope ignored = open()) {
+            operation.run();
+        }
+    }
+
+    public static <T> T call(Callable<T> operation) throws Exception {
+        try (Scope ignored = open()) {
+            return operation.call();
+        }
+    }
+
+    /**
+     * @return whether {@link TTLMemoized} results are currently memoized on this thread
+     */
+    public static boolean isActive() {
+        return currentArena() != null;
+    }
+
+    static @Nullable TTLMemoizationArena currentArena() {
+        TTLMemoizationArena arena = OPERATION_ARENA.get();
+        if (arena != null || !WEB_PRESENT) return arena;
+        return RequestArenas.currentArena();
+    }
+
+    /**
+     * An open operation, see {@link TTLMemoization#open()}.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Keeps the spring-web classes out of {@link TTLMemoization} so it loads without them.
+     */
+    private static final class RequestArenas {
+        private static final String ATTRIBUTE = TTLMemoizationArena.class.getName();
+
+        static @Nullable TTLMemoizationArena currentArena() {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes == null) return null;
+
+            TTLMemoizationArena arena = (TTLMemoizationArena) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (arena != null) return arena;
+
+            // The attributes may be shared with worker threads, which must all end up with the same arena
+            synchronized (attributes) {
+                arena = (TTLMemoizationArena) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (arena == null) {
+                    arena = new TTLMemoizationArena();
+                    attributes.setAttribute(ATTRIBUTE, arena, RequestAttributes.SCOPE_REQUEST);
+                }
+                return arena;
+            }
+        }
+    }
+}
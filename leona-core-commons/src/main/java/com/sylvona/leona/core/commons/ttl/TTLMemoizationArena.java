@@ -0,0 +1,45 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The results memoized by {@link TTLMemoized} methods during a single request or operation, dropped along with it.
+ * Request attributes are commonly propagated to worker threads, so an arena may be used by several threads at once: it is
+ * thread safe, though concurrent misses of the same key are not coalesced and may each invoke the method.
+ */
+final class TTLMemoizationArena {
+    private static final Object NULL = new Object();
+
+    private final Map<ArenaKey, Object> results = new ConcurrentHashMap<>();
+
+    /**
+     * @return the memoized result, {@link #NULL} for a memoized null, or null if nothing was memoized yet
+     */
+    Object get(Object source, TTLKey key) {
+        return results.get(new ArenaKey(source, key));
+    }
+
+    void put(Object source, TTLKey key, Object result) {
+        results.put(new ArenaKey(source, key), result == null ? NULL : result);
+    }
+
+    static Object unwrap(Object memoized) {
+        return memoized == NULL ? null : memoized;
+    }
+
+    /**
+     * Sources are compared by identity, like in the shared stores.
+     */
+    private record ArenaKey(Object source, TTLKey key) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ArenaKey other && source == other.source && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(source) + key.hashCode();
+        }
+    }
+}
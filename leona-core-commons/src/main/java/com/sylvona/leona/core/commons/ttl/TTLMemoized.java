@@ -0,0 +1,25 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Memoizes a method for the duration of the current request or operation, see {@link TTLMemoization}. Within a request,
+ * repeated invocations with the same key arguments return the first result without invoking the method again; results
+ * are never shared across requests and are dropped as soon as the request completes. Outside of a request or operation,
+ * the method is invoked as usual.
+ * <p>
+ * Unlike {@link TTLMethod}, memoized results never go stale within a request and never reach the shared {@link TTLStore},
+ * so memoization suits lookups which must be consistent within a request but fresh across requests.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TTLMemoized {
+    /**
+     * Indices of the method parameters whose arguments take part in the memoization key, see {@link TTLMethod#keyParameters()}.
+     * @return the zero-based indices of the key parameters
+     */
+    int[] keyParameters() default {};
+}
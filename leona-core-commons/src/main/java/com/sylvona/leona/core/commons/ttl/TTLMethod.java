@@ -11,4 +11,128 @@ import java.util.concurrent.TimeUnit;
 public @interface TTLMethod {
     long value();
     TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * Indices of the method parameters whose arguments take part in the cache key, so that {@code getUser(1)} and
+     * {@code getUser(2)} are cached separately. Defaults to every parameter; methods without parameters cache a single value.
+     * @return the zero-based indices of the key parameters
+     */
+    int[] keyParameters() default {};
+
+    /**
+     * The longest time, in milliseconds, a caller waits for another caller which is already loading the same entry.
+     * Callers that time out fail with a {@link TTLLoadTimeoutException}.
+     * @return the load wait timeout in milliseconds
+     */
+    long loadTimeoutMillis() default 30_000;
+
+    /**
+     * Maximum number of entries cached for this method, least recently used entries are evicted first. When neither this
+     * nor {@link #maximumWeight()} is set, the method's entries count towards the store-wide {@code leona.ttl.maximum-size}.
+     * @return the maximum entry count, or -1 to use the store-wide bound
+     */
+    long maximumSize() default -1;
+
+    /**
+     * Maximum total weight, as computed by the store's {@link TTLWeigher}, of the entries cached for this method.
+     * @return the maximum weight, or -1 to use the store-wide bound
+     */
+    long maximumWeight() default -1;
+
+    /**
+     * Fraction of the TTL after which a hit starts reloading the value in the background, while the current value keeps
+     * being served. For example {@code 0.8} refreshes a 10 second entry once it is 8 seconds old. Only one refresh runs
+     * per entry at a time.
+     * @return the refresh-ahead fraction, in (0, 1], or 0 to only reload once the value has expired
+     */
+    double refreshAhead() default 0;
+
+    /**
+     * How long past its expiration a value may still be served, in {@link #unit()}, while it is being reloaded in the
+     * background (stale-while-revalidate). Callers only block when there is no value at all or it is staler than this.
+     * @return the maximum staleness, or 0 to never serve expired values
+     */
+    long maximumStaleness() default 0;
+
+    /**
+     * Randomly shortens the TTL of every stored value by up to this fraction, so that values loaded at the same time (for
+     * instance by every replica after a deploy) do not all expire, and reload, at the same time. Jitter only ever shortens
+     * the TTL, never lengthens it.
+     * @return the jitter fraction, in [0, 1), or 0 for a fixed TTL
+     */
+    double jitter() default 0;
+
+    /**
+     * Lower bound of the adaptive TTL, in {@link #unit()}. Setting both this and {@link #adaptiveMaximum()} makes the TTL
+     * adaptive: every key's TTL starts at {@link #value()}, is halved whenever a reload returns a value different from the
+     * last value loaded for the key, and grows by a quarter whenever the reloaded value is equal, so that effectively
+     * static data is reloaded less often and frequently changing data stays fresh. Values are compared by hash code, which the
+     * method's return type must implement consistently with equals; otherwise every reload counts as a change.
+     * @return the minimum adaptive TTL, or -1 for a fixed TTL
+     */
+    long adaptiveMinimum() default -1;
+
+    /**
+     * Upper bound of the adaptive TTL, in {@link #unit()}, see {@link #adaptiveMinimum()}.
+     * @return the maximum adaptive TTL, or -1 for a fixed TTL
+     */
+    long adaptiveMaximum() default -1;
+
+    /**
+     * TTL of empty results, in {@link #unit()}: null, empty {@link java.util.Optional}s, collections, maps and arrays.
+     * Usually shorter than {@link #value()}, so that a missing value shows up soon after it is created while repeated
+     * lookups of it still do not reach the backend every time.
+     * @return the TTL of empty results, or -1 to cache them like any other result
+     */
+    long emptyTtl() default -1;
+
+    /**
+     * Tags grouping the values of several methods, so that they can be invalidated together through
+     * {@link TTLStore#invalidateTag(String)} or {@link TTLEvict#tags()}.
+     * @return the tags of the method's values
+     */
+    String[] tags() default {};
+
+    /**
+     * Which invocations share cached values: those of the same invoking object (the default), of every instance of the
+     * same class, or every invocation.
+     * @return the scope of the method's values
+     */
+    TTLScope scope() default TTLScope.INSTANCE;
+
+    /**
+     * Index of a {@link java.util.Collection} parameter whose elements are cached one by one, for methods looking up many
+     * values at once and returning them as a {@link java.util.Map} keyed by those elements. Cached elements are served
+     * from the store, and the method is invoked once with only the missing elements. Elements absent from the returned
+     * map are cached as absent (with {@link #emptyTtl()}, if set). The key parameters, if any, must include this one.
+     * @return the index of the batched parameter, or -1 to cache whole invocations
+     */
+    int batchParameter() default -1;
+
+    /**
+     * Exceptions which are cached like results, so a failing dependency is not invoked again on every call. A cached
+     * exception is thrown once, then every hit until it expires throws a {@link TTLCachedFailureException} caused by it:
+     * a single wrapper per cached exception, without a stack trace, so hits pay for no stack walk and callers cannot
+     * affect each other through it. The first matching entry, in declaration order, applies; other exceptions are never
+     * cached.
+     * @return the exception caching policies of the method
+     */
+    CachedException[] cacheExceptions() default {};
+
+    /**
+     * Caches exceptions of the given types for a TTL of their own, see {@link TTLMethod#cacheExceptions()}.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({})
+    @interface CachedException {
+        /**
+         * @return the exception types to cache, including their subtypes
+         */
+        Class<? extends Throwable>[] value();
+
+        /**
+         * @return the TTL of the cached exceptions, in the {@link TTLMethod#unit()} of the method
+         */
+        long ttl();
+    }
 }
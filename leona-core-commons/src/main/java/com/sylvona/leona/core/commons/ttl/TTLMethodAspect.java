@@ -1,6 +1,6 @@
 package com.sylvona.leona.core.commons.ttl;
 
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -8,35 +8,230 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Intercepts {@link TTLMethod}s. The hit path does not allocate: the method's {@link TTLMethodDescriptor} is resolved
+ * once, expiration is checked against nanoTime deadlines, and no {@link TTLKey} is built. Methods without key parameters
+ * share a single key, methods keyed by their arguments probe the store with the arguments themselves (which only
+ * {@link ConcurrentTTLStore} can do, other stores build a key). Their join point may still copy the arguments.
+ */
 @Aspect
 @Component
-@AllArgsConstructor
+@RequiredArgsConstructor
 class TTLMethodAspect {
     private final TTLStore<Object> ttlStore;
+    private final SingleFlightLoader singleFlightLoader;
+    private final TTLMetrics metrics;
+    private final Map<Method, TTLMethodDescriptor> descriptors = new ConcurrentHashMap<>();
+    private final Map<Method, int[]> memoizedKeyParameters = new ConcurrentHashMap<>();
 
     @Pointcut("execution(@com.sylvona.leona.core.commons.ttl.TTLMethod * *(..))")
     public void findMarkedTTLMethods() {}
 
     @Around("findMarkedTTLMethods()")
     public Object doMarkedMethodInterception(ProceedingJoinPoint joinPoint) throws Throwable {
-        TTLMethod ttlMethod = ((MethodSignature) joinPoint.getSignature()).getMethod().getAnnotation(TTLMethod.class);
+        TTLMethodDescriptor descriptor = descriptorFor(((MethodSignature) joinPoint.getSignature()).getMethod());
+        if (descriptor.batch()) return doBatchInterception(joinPoint, descriptor);
 
-        Object source = joinPoint.getThis();
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        TTLValue<?> ttlValue = ttlStore.fetchValue(source, signature);
+        Object source = descriptor.annotation().scope().sourceFor(joinPoint);
+        // Join points may copy the arguments on every call, only methods keyed by them ask for them
+        Object[] arguments = descriptor.methodKey() != null ? null : joinPoint.getArgs();
+        TTLValue<?> ttlValue = descriptor.fetch(ttlStore, source, arguments);
 
-        if (ttlValue == null || ttlValue.isExpired()) {
-            Object realValue = joinPoint.proceed();
-            ttlStore.storeValue(source, signature, realValue, createDuration(ttlMethod));
-            return realValue;
+        if (ttlValue != null) {
+            long now = System.nanoTime();
+            long expiration = ttlValue.expirationNanos();
+
+            if (now - expiration < 0) {
+                if (descriptor.refreshesAhead() && now - (expiration - descriptor.refreshLeadNanos(source, arguments)) >= 0) {
+                    refreshInBackground(joinPoint, source, descriptor.keyFor(arguments), descriptor);
+                }
+                descriptor.metrics().recordHit();
+                return result(ttlValue.value(), descriptor);
+            }
+
+            // Stale-while-revalidate, only cold misses and values past the staleness bound block the caller
+            if (now - expiration < descriptor.stalenessNanos()) {
+                refreshInBackground(joinPoint, source, descriptor.keyFor(arguments), descriptor);
+                descriptor.metrics().recordHit();
+                return result(ttlValue.value(), descriptor);
+            }
         }
 
-        return ttlValue.value();
+        descriptor.metrics().recordMiss();
+        TTLKey key = descriptor.keyFor(arguments);
+
+        Object loaded = singleFlightLoader.load(source, key, descriptor.loadTimeout(), () -> {
+            // Another leader may have stored a fresh value between our fetch and winning the flight
+            TTLValue<?> current = ttlStore.fetchValue(source, key);
+            if (current != null && !current.isExpired()) return current.value();
+
+            return loadAndStore(joinPoint, source, key, descriptor, true);
+        });
+        return result(loaded, descriptor);
+    }
+
+    @Pointcut("execution(@com.sylvona.leona.core.commons.ttl.TTLMemoized * *(..))")
+    public void findMarkedMemoizedMethods() {}
+
+    /**
+     * Memoizes an invocation in the current request's arena, see {@link TTLMemoization}. Concurrent loads are not
+     * coalesced, the arena is only shared by the few threads a request may fan out to.
+     */
+    @Around("findMarkedMemoizedMethods()")
+    public Object doMemoizedMethodInterception(ProceedingJoinPoint joinPoint) throws Throwable {
+        TTLMemoizationArena arena = TTLMemoization.currentArena();
+        if (arena == null) return joinPoint.proceed();
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        int[] keyParameters = memoizedKeyParameters.computeIfAbsent(method, m -> m.getAnnotation(TTLMemoized.class).keyParameters());
+        Object source = TTLScope.INSTANCE.sourceFor(joinPoint);
+        TTLKey key = TTLKey.of(method, joinPoint.getArgs(), keyParameters);
+
+        Object memoized = arena.get(source, key);
+        if (memoized != null) return TTLMemoizationArena.unwrap(memoized);
+
+        // Not computeIfAbsent: the method may itself invoke memoized methods, which would modify the arena during the call.
+        // Failures are not memoized, a retry within the same request invokes the method again
+        Object result = joinPoint.proceed();
+        arena.put(source, key, result);
+        return result;
     }
 
-    private static Duration createDuration(TTLMethod ttlMethod) {
-        return Duration.of(ttlMethod.value(), ttlMethod.unit().toChronoUnit());
+    /**
+     * Serves the cached elements of a batch invocation from the store, and invokes the method once with only the missing
+     * elements. Batches are not coalesced with concurrent batches, as they rarely miss the same set of elements.
+     */
+    private Object doBatchInterception(ProceedingJoinPoint joinPoint, TTLMethodDescriptor descriptor) throws Throwable {
+        Object[] arguments = joinPoint.getArgs();
+        Collection<?> elements = (Collection<?>) arguments[descriptor.batchParameter()];
+        if (elements == null || elements.isEmpty()) return joinPoint.proceed();
+
+        Object source = descriptor.annotation().scope().sourceFor(joinPoint);
+        Map<Object, Object> result = new LinkedHashMap<>();
+        Map<Object, TTLKey> missing = new LinkedHashMap<>();
+        Set<Object> seen = new HashSet<>();
+        long hits = 0;
+
+        for (Object element : elements) {
+            if (!seen.add(element)) continue;
+
+            TTLKey key = descriptor.batchKeyFor(arguments, element);
+            TTLValue<?> cached = ttlStore.fetchValue(source, key);
+            if (cached != null && !cached.isExpired() && !(cached.value() instanceof CachedFailure)) {
+                hits++;
+                // Elements cached as absent stay absent from the result
+                if (cached.value() != null) result.put(element, cached.value());
+            } else {
+                missing.put(element, key);
+            }
+        }
+
+        descriptor.metrics().recordHits(hits);
+        descriptor.metrics().recordMisses(missing.size());
+        if (missing.isEmpty()) return result;
+
+        Collection<Object> batch = descriptor.newBatch(missing.size());
+        batch.addAll(missing.keySet());
+        Object[] batchArguments = arguments.clone();
+        batchArguments[descriptor.batchParameter()] = batch;
+
+        long loadStart = System.nanoTime();
+        Map<?, ?> loaded;
+        try {
+            loaded = (Map<?, ?>) joinPoint.proceed(batchArguments);
+        } catch (Throwable e) {
+            descriptor.metrics().recordLoad(System.nanoTime() - loadStart, false);
+            throw e;
+        }
+        descriptor.metrics().recordLoad(System.nanoTime() - loadStart, true);
+
+        for (Map.Entry<Object, TTLKey> entry : missing.entrySet()) {
+            Object value = loaded != null ? loaded.get(entry.getKey()) : null;
+            ttlStore.storeValue(source, entry.getValue(), value, descriptor.ttlNanosFor(source, entry.getValue(), value));
+            if (value != null) result.put(entry.getKey(), value);
+        }
+        return result;
+    }
+
+    private TTLMethodDescriptor descriptorFor(Method method) {
+        TTLMethodDescriptor descriptor = descriptors.get(method);
+        return descriptor != null ? descriptor : descriptors.computeIfAbsent(method, m -> TTLMethodDescriptor.of(m, metrics));
+    }
+
+    private void refreshInBackground(ProceedingJoinPoint joinPoint, Object source, TTLKey key, TTLMethodDescriptor descriptor) {
+        // The current value keeps being served during a refresh, so neither in-flight futures nor failures are stored
+        singleFlightLoader.refresh(source, key, () -> loadAndStore(joinPoint, source, key, descriptor, false));
+    }
+
+    private Object loadAndStore(ProceedingJoinPoint joinPoint, Object source, TTLKey key, TTLMethodDescriptor descriptor,
+                                boolean foreground) throws Throwable {
+        long loadStart = System.nanoTime();
+        Object realValue;
+        try {
+            realValue = joinPoint.proceed();
+        } catch (Throwable e) {
+            descriptor.metrics().recordLoad(System.nanoTime() - loadStart, false);
+            long failureTtl = descriptor.failureTtlNanos(e);
+            if (foreground && failureTtl >= 0) ttlStore.storeValue(source, key, new CachedFailure(e), failureTtl);
+            throw e;
+        }
+
+        if (descriptor.async() && realValue instanceof CompletionStage<?> stage) {
+            return storeAsync(source, key, descriptor, stage.toCompletableFuture(), foreground, loadStart);
+        }
+
+        descriptor.metrics().recordLoad(System.nanoTime() - loadStart, true);
+        ttlStore.storeValue(source, key, realValue, descriptor.ttlNanosFor(source, key, realValue));
+        return realValue;
+    }
+
+    /**
+     * Caches a future while it is in flight, so that concurrent callers share it, and re-stores it once complete so its
+     * TTL starts when the value is actually available. Futures completing exceptionally are dropped, unless their
+     * exception is cached (see {@link TTLMethod#cacheExceptions()}), in which case hits get a new failed future.
+     */
+    private CompletableFuture<?> storeAsync(Object source, TTLKey key, TTLMethodDescriptor descriptor, CompletableFuture<?> future,
+                                            boolean foreground, long loadStart) {
+        if (foreground && !future.isDone()) {
+            // An in-flight future is only trusted for as long as callers would wait for a blocking load
+            ttlStore.storeValue(source, key, future, descriptor.loadTimeout().toNanos());
+        }
+
+        future.whenComplete((value, error) -> {
+            // The load of an async method lasts until its future completes
+            descriptor.metrics().recordLoad(System.nanoTime() - loadStart, error == null);
+            if (error != null) {
+                Throwable failure = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                long failureTtl = descriptor.failureTtlNanos(failure);
+                if (foreground && failureTtl >= 0) {
+                    ttlStore.storeValue(source, key, new CachedFailure(failure), failureTtl);
+                } else {
+                    ttlStore.removeValue(source, key, future);
+                }
+            } else {
+                ttlStore.storeValue(source, key, CompletableFuture.completedFuture(value), descriptor.ttlNanosFor(source, key, value));
+            }
+        });
+        return future;
+    }
+
+    private static Object result(Object value, TTLMethodDescriptor descriptor) throws Throwable {
+        if (value instanceof CachedFailure cachedFailure) {
+            if (descriptor.async()) return CompletableFuture.failedFuture(cachedFailure.rethrown());
+            throw cachedFailure.rethrown();
+        }
+        // Every caller gets its own copy, so completing or cancelling it cannot affect the cached future
+        return descriptor.async() && value instanceof CompletableFuture<?> future ? future.copy() : value;
     }
 }
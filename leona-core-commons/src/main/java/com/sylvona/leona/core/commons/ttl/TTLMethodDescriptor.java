@@ -0,0 +1,220 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything {@link TTLMethodAspect} needs to know about a {@link TTLMethod}, resolved once per method so that an
+ * intercepted call neither reflects on the annotation nor converts durations.
+ * @param method the annotated method
+ * @param annotation the method's {@link TTLMethod}
+ * @param keyParameters the indices of the key parameters, empty to use every parameter
+ * @param methodKey the key shared by every call when the method has no key parameters, otherwise null
+ * @param ttlNanos the TTL of the method's values, before jitter and adaptation
+ * @param refreshAhead the fraction of the TTL after which a hit starts a background refresh, or 0 to never refresh ahead
+ * @param stalenessNanos how long past expiration a value may still be served while it is refreshed
+ * @param loadTimeout the longest time a caller waits for another caller's load
+ * @param async whether the method returns a {@link CompletionStage} which is cached as a future
+ * @param metrics the method's metrics
+ * @param jitter the fraction by which the TTL of stored values is randomly shortened
+ * @param adaptiveTtl the method's adaptive TTL, or null if its TTL is fixed
+ * @param emptyTtlNanos the TTL of empty results, or -1 to treat them like any other result
+ * @param cachedExceptions the exception types which are cached, with their TTL, in declaration order
+ * @param batchParameter the index of the collection parameter whose elements are cached one by one, or -1
+ */
+record TTLMethodDescriptor(Method method, TTLMethod annotation, int[] keyParameters, TTLKey methodKey, long ttlNanos,
+                           double refreshAhead, long stalenessNanos, Duration loadTimeout, boolean async,
+                           TTLMethodMetrics metrics, double jitter, @Nullable AdaptiveTTL adaptiveTtl, long emptyTtlNanos,
+                           CachedExceptionPolicy[] cachedExceptions, int batchParameter) {
+
+    static TTLMethodDescriptor of(Method method, TTLMetrics metrics) {
+        TTLMethod ttlMethod = method.getAnnotation(TTLMethod.class);
+        if (ttlMethod == null) throw new IllegalArgumentException("%s is not annotated with @TTLMethod".formatted(method));
+
+        int[] keyParameters = ttlMethod.keyParameters().clone();
+        for (int index : keyParameters) {
+            if (index < 0 || index >= method.getParameterCount()) {
+                throw new IllegalArgumentException("@TTLMethod key parameter %d is out of range for %s".formatted(index, method));
+            }
+        }
+
+        double refreshAhead = ttlMethod.refreshAhead();
+        if (refreshAhead < 0 || refreshAhead > 1) {
+            throw new IllegalArgumentException("@TTLMethod refreshAhead must be within [0, 1] for %s".formatted(method));
+        }
+
+        double jitter = ttlMethod.jitter();
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("@TTLMethod jitter must be within [0, 1) for %s".formatted(method));
+        }
+
+        TimeUnit unit = ttlMethod.unit();
+        long ttlNanos = ConcurrentTTLStore.saturatedNanos(unit, ttlMethod.value());
+        AdaptiveTTL adaptiveTtl = null;
+        if (ttlMethod.adaptiveMinimum() >= 0 || ttlMethod.adaptiveMaximum() >= 0) {
+            long minimumNanos = ConcurrentTTLStore.saturatedNanos(unit, ttlMethod.adaptiveMinimum());
+            long maximumNanos = ConcurrentTTLStore.saturatedNanos(unit, ttlMethod.adaptiveMaximum());
+            if (minimumNanos <= 0 || minimumNanos > ttlNanos || maximumNanos < ttlNanos) {
+                throw new IllegalArgumentException("@TTLMethod adaptive bounds must satisfy 0 < adaptiveMinimum <= value <= adaptiveMaximum for %s"
+                        .formatted(method));
+            }
+            adaptiveTtl = new AdaptiveTTL(ttlNanos, minimumNanos, maximumNanos);
+        }
+
+        List<CachedExceptionPolicy> cachedExceptions = new ArrayList<>();
+        for (TTLMethod.CachedException cachedException : ttlMethod.cacheExceptions()) {
+            if (cachedException.ttl() <= 0) {
+                throw new IllegalArgumentException("@TTLMethod cached exception TTL must be positive for %s".formatted(method));
+            }
+            for (Class<? extends Throwable> type : cachedException.value()) {
+                cachedExceptions.add(new CachedExceptionPolicy(type, ConcurrentTTLStore.saturatedNanos(unit, cachedException.ttl())));
+            }
+        }
+
+        boolean keyedByArguments = keyParameters.length > 0 || method.getParameterCount() > 0;
+        Class<?> returnType = method.getReturnType();
+        boolean async = CompletionStage.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(CompletableFuture.class);
+
+        int batchParameter = ttlMethod.batchParameter();
+        if (batchParameter >= 0) validateBatch(method, batchParameter, keyParameters);
+
+        return new TTLMethodDescriptor(method, ttlMethod, keyParameters, keyedByArguments ? null : TTLKey.of(method), ttlNanos,
+                refreshAhead, ConcurrentTTLStore.saturatedNanos(unit, ttlMethod.maximumStaleness()), Duration.ofMillis(ttlMethod.loadTimeoutMillis()), async,
+                metrics.forMethod(method), jitter, adaptiveTtl, ttlMethod.emptyTtl() >= 0 ? ConcurrentTTLStore.saturatedNanos(unit, ttlMethod.emptyTtl()) : -1,
+                cachedExceptions.toArray(CachedExceptionPolicy[]::new), batchParameter);
+    }
+
+    private static void validateBatch(Method method, int batchParameter, int[] keyParameters) {
+        if (batchParameter >= method.getParameterCount()) {
+            throw new IllegalArgumentException("@TTLMethod batch parameter %d is out of range for %s".formatted(batchParameter, method));
+        }
+
+        Class<?> parameterType = method.getParameterTypes()[batchParameter];
+        if (!parameterType.isAssignableFrom(ArrayList.class) && !parameterType.isAssignableFrom(LinkedHashSet.class)) {
+            throw new IllegalArgumentException("@TTLMethod batch parameter of %s must be a Collection, List or Set".formatted(method));
+        }
+        if (!method.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+            throw new IllegalArgumentException("@TTLMethod batch method %s must return a Map".formatted(method));
+        }
+        if (keyParameters.length > 0 && Arrays.stream(keyParameters).noneMatch(index -> index == batchParameter)) {
+            throw new IllegalArgumentException("@TTLMethod key parameters of %s must include its batch parameter".formatted(method));
+        }
+    }
+
+    boolean batch() {
+        return batchParameter >= 0;
+    }
+
+    /**
+     * Builds the key of a single element of a batch invocation, as if the method had been invoked with only that element
+     * @param arguments the arguments of the batch invocation
+     * @param element an element of the batched collection
+     * @return the key of the element
+     */
+    TTLKey batchKeyFor(Object[] arguments, Object element) {
+        Object[] elementArguments = arguments.clone();
+        elementArguments[batchParameter] = element;
+        return TTLKey.of(method, elementArguments, keyParameters);
+    }
+
+    /**
+     * @param expectedSize the number of elements which will be added
+     * @return an empty collection assignable to the batch parameter
+     */
+    Collection<Object> newBatch(int expectedSize) {
+        Class<?> parameterType = method.getParameterTypes()[batchParameter];
+        return parameterType.isAssignableFrom(ArrayList.class) ? new ArrayList<>(expectedSize) : new LinkedHashSet<>(expectedSize * 2);
+    }
+
+    /**
+     * Builds the key of an intercepted call. Only methods keyed by their arguments allocate a key (and copy the arguments).
+     * @param arguments the arguments of the call, only used by methods keyed by their arguments
+     * @return the key of the call
+     */
+    TTLKey keyFor(Object[] arguments) {
+        return methodKey != null ? methodKey : TTLKey.of(method, arguments, keyParameters);
+    }
+
+    /**
+     * Fetches the value of an intercepted call, without building a key for methods keyed by their arguments.
+     * @param store the store to fetch from
+     * @param source the invoking object
+     * @param arguments the arguments of the call, only used by methods keyed by their arguments
+     * @return the cached value, or null if there is none
+     */
+    <T> @Nullable TTLValue<T> fetch(TTLStore<T> store, Object source, Object[] arguments) {
+        return methodKey != null ? store.fetchValue(source, methodKey) : store.fetchValue(source, method, arguments, keyParameters);
+    }
+
+    boolean refreshesAhead() {
+        return refreshAhead > 0;
+    }
+
+    /**
+     * @param source the invoking object
+     * @param arguments the arguments of the hit, only used by methods keyed by their arguments
+     * @return how long before expiration a hit starts a background refresh
+     */
+    long refreshLeadNanos(Object source, Object[] arguments) {
+        if (adaptiveTtl == null) return (long) (ttlNanos * (1 - refreshAhead));
+        int keyHash = methodKey != null ? methodKey.hashCode() : TTLKey.hashOf(method, arguments, keyParameters);
+        return (long) (adaptiveTtl.ttlNanos(source, keyHash) * (1 - refreshAhead));
+    }
+
+    /**
+     * Adapts the key's TTL to whether its value changed since its last load, for methods with an adaptive TTL
+     * @param source the invoking object
+     * @param key the key of the loaded value
+     * @param value a result being stored now
+     * @return the TTL of the result, adapted (or the TTL of empty results) and jittered
+     */
+    long ttlNanosFor(Object source, TTLKey key, Object value) {
+        long ttl = adaptiveTtl != null ? adaptiveTtl.observe(source, key, value) : ttlNanos;
+        return jittered(emptyTtlNanos >= 0 && isEmpty(value) ? emptyTtlNanos : ttl);
+    }
+
+    /**
+     * @param failure an exception thrown by the method
+     * @return the jittered TTL to cache the exception for, or -1 if it is not cached
+     */
+    long failureTtlNanos(Throwable failure) {
+        for (CachedExceptionPolicy cachedException : cachedExceptions) {
+            if (cachedException.type().isInstance(failure)) return jittered(cachedException.ttlNanos());
+        }
+        return -1;
+    }
+
+    private long jittered(long ttl) {
+        return jitter > 0 ? ttl - (long) (ttl * jitter * ThreadLocalRandom.current().nextDouble()) : ttl;
+    }
+
+    private static boolean isEmpty(Object value) {
+        if (value == null) return true;
+        if (value instanceof Optional<?> optional) return optional.isEmpty();
+        if (value instanceof Collection<?> collection) return collection.isEmpty();
+        if (value instanceof Map<?, ?> map) return map.isEmpty();
+        return value.getClass().isArray() && Array.getLength(value) == 0;
+    }
+
+    /**
+     * @param type a cached exception type, matching its subtypes as well
+     * @param ttlNanos the TTL of the cached exceptions
+     */
+    record CachedExceptionPolicy(Class<? extends Throwable> type, long ttlNanos) {
+    }
+}
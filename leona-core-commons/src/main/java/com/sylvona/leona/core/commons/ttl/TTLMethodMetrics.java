@@ -0,0 +1,211 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import jakarta.annotation.Nullable;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss and load statistics of a single {@link TTLMethod}, or of a single Spring cache backed by a {@link TTLCache}.
+ * <p>
+ * Every counter is striped ({@link LongAdder}), so recording never contends between threads hitting the same method;
+ * only reading a statistic sums the stripes. Load latencies are kept in a histogram of power-of-two buckets, bucket
+ * {@code i} counting loads which took less than {@code 2^i} nanoseconds (and at least {@code 2^(i-1)}).
+ */
+public final class TTLMethodMetrics {
+    private static final int LATENCY_BUCKETS = Long.SIZE;
+
+    private final Method method;
+    private final @Nullable String cacheName;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder deduplicatedLoads = new LongAdder();
+    private final LongAdder backgroundRefreshes = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAccumulator maximumLoadNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] loadLatency = new LongAdder[LATENCY_BUCKETS];
+
+    TTLMethodMetrics(Method method) {
+        this(method, null);
+    }
+
+    TTLMethodMetrics(Method method, @Nullable String cacheName) {
+        this.method = method;
+        this.cacheName = cacheName;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            loadLatency[i] = new LongAdder();
+        }
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordHits(long count) {
+        hits.add(count);
+    }
+
+    void recordNearHit() {
+        nearHits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordMisses(long count) {
+        misses.add(count);
+    }
+
+    void recordLoad(long nanos, boolean success) {
+        (success ? loadSuccesses : loadFailures).increment();
+        long latency = Math.max(0, nanos);
+        totalLoadNanos.add(latency);
+        maximumLoadNanos.accumulate(latency);
+        loadLatency[Long.SIZE - Long.numberOfLeadingZeros(latency)].increment();
+    }
+
+    void recordDeduplicatedLoad() {
+        deduplicatedLoads.increment();
+    }
+
+    void recordBackgroundRefresh() {
+        backgroundRefreshes.increment();
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the name of the Spring cache these are the statistics of, or null for a {@link TTLMethod}
+     */
+    public @Nullable String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * @return the number of calls served from the cache, including stale values served while being refreshed
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of hits served by the per-thread near cache, see {@code leona.ttl.near-cache}
+     */
+    public long getNearHits() {
+        return nearHits.sum();
+    }
+
+    /**
+     * @return the number of hits served by the shared store, after missing the near cache (if any)
+     */
+    public long getSharedHits() {
+        return Math.max(0, getHits() - getNearHits());
+    }
+
+    /**
+     * @return the number of calls which had to wait for a load, their own or another caller's
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the share of calls served from the cache, or NaN before the first call
+     */
+    public double getHitRatio() {
+        long hits = getHits();
+        long requests = hits + getMisses();
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+
+    /**
+     * @return the number of invocations of the underlying method which returned a value, including background refreshes
+     */
+    public long getLoadSuccesses() {
+        return loadSuccesses.sum();
+    }
+
+    /**
+     * @return the number of invocations of the underlying method which failed, including background refreshes
+     */
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    public long getLoadCount() {
+        return getLoadSuccesses() + getLoadFailures();
+    }
+
+    /**
+     * @return the number of misses served by another caller's load instead of invoking the method themselves
+     */
+    public long getDeduplicatedLoads() {
+        return deduplicatedLoads.sum();
+    }
+
+    public long getBackgroundRefreshes() {
+        return backgroundRefreshes.sum();
+    }
+
+    public Duration getTotalLoadTime() {
+        return Duration.ofNanos(totalLoadNanos.sum());
+    }
+
+    public Duration getMaximumLoadTime() {
+        return Duration.ofNanos(maximumLoadNanos.get());
+    }
+
+    /**
+     * @return the number of loads per latency bucket, see {@link TTLMethodMetrics}
+     */
+    public long[] getLoadLatencyHistogram() {
+        long[] histogram = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            histogram[i] = loadLatency[i].sum();
+        }
+        return histogram;
+    }
+
+    /**
+     * Estimates a load latency percentile from the histogram. The estimate is the upper bound of the bucket holding the
+     * percentile, so it is never lower than the actual value and at most twice as high.
+     * @param percentile the percentile to estimate, within [0, 1]
+     * @return the estimated latency, or {@link Duration#ZERO} before the first load
+     */
+    public Duration getLoadLatencyPercentile(double percentile) {
+        if (percentile < 0 || percentile > 1) throw new IllegalArgumentException("Percentile must be within [0, 1]");
+
+        long[] histogram = getLoadLatencyHistogram();
+        long count = 0;
+        for (long bucket : histogram) count += bucket;
+        if (count == 0) return Duration.ZERO;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen < rank) continue;
+
+            long upperBound = i == LATENCY_BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            return Duration.ofNanos(Math.min(upperBound, maximumLoadNanos.get()));
+        }
+        return getMaximumLoadTime();
+    }
+
+    @Override
+    public String toString() {
+        if (cacheName != null) {
+            return "TTLMethodMetrics[cache %s, hits=%d, misses=%d, loads=%d]".formatted(cacheName, getHits(), getMisses(), getLoadCount());
+        }
+        return "TTLMethodMetrics[%s.%s, hits=%d, misses=%d, loads=%d]".formatted(method.getDeclaringClass().getSimpleName(),
+                method.getName(), getHits(), getMisses(), getLoadCount());
+    }
+}
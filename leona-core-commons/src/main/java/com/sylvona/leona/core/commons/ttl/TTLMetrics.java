@@ -0,0 +1,75 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Registry of the {@link TTLMethodMetrics} of every intercepted {@link TTLMethod} and of every {@link TTLCache}. Metrics
+ * of a method are created the first time it is intercepted, those of a cache when the cache is created, and both live as
+ * long as the registry.
+ */
+public class TTLMetrics {
+    private final Map<Method, TTLMethodMetrics> methods = new ConcurrentHashMap<>();
+    private final Map<String, TTLMethodMetrics> caches = new ConcurrentHashMap<>();
+    private final List<Consumer<TTLMethodMetrics>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param method a {@link TTLMethod}
+     * @return the metrics of the method, created if it was never intercepted before
+     */
+    public TTLMethodMetrics forMethod(Method method) {
+        TTLMethodMetrics metrics = methods.get(method);
+        return metrics != null ? metrics : register(methods, method, new TTLMethodMetrics(method));
+    }
+
+    /**
+     * Spring caches are all keyed by {@link TTLCache#CACHE_METHOD}, so each of them is registered under its own name.
+     * @param name the name of a Spring cache
+     * @return the metrics of the cache, created if it was never created before
+     */
+    public TTLMethodMetrics forCache(String name) {
+        TTLMethodMetrics metrics = caches.get(name);
+        return metrics != null ? metrics : register(caches, name, new TTLMethodMetrics(TTLCache.CACHE_METHOD, name));
+    }
+
+    /**
+     * @return the metrics of every method intercepted so far
+     */
+    public Collection<TTLMethodMetrics> getMethods() {
+        return Collections.unmodifiableCollection(methods.values());
+    }
+
+    /**
+     * @return the metrics of every Spring cache created so far
+     */
+    public Collection<TTLMethodMetrics> getCaches() {
+        return Collections.unmodifiableCollection(caches.values());
+    }
+
+    /**
+     * Registers a listener invoked with the metrics of every method and cache, both those already registered and those
+     * registered later. A method or cache registered concurrently with this call may be passed to the listener twice.
+     * @param listener the listener to register
+     */
+    public void onMethodRegistered(Consumer<TTLMethodMetrics> listener) {
+        listeners.add(listener);
+        methods.values().forEach(listener);
+        caches.values().forEach(listener);
+    }
+
+    private <K> TTLMethodMetrics register(Map<K, TTLMethodMetrics> registry, K key, TTLMethodMetrics created) {
+        TTLMethodMetrics existing = registry.putIfAbsent(key, created);
+        if (existing != null) return existing;
+
+        for (Consumer<TTLMethodMetrics> listener : listeners) {
+            listener.accept(created);
+        }
+        return created;
+    }
+}
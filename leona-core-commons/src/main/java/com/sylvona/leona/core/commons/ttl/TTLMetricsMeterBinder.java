@@ -0,0 +1,84 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link TTLMetrics} to Micrometer, tagging every meter with the {@link TTLMethod}'s class and name, or with
+ * Spring's {@code Cache} class and the cache's name. Meters only read the striped counters when they are polled, so
+ * publishing adds nothing to the intercepted calls.
+ */
+class TTLMetricsMeterBinder implements MeterBinder {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final TTLMetrics metrics;
+    private final TTLStore<?> ttlStore;
+
+    TTLMetricsMeterBinder(TTLMetrics metrics, TTLStore<?> ttlStore) {
+        this.metrics = metrics;
+        this.ttlStore = ttlStore;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (ttlStore.evictionCount() >= 0) {
+            FunctionCounter.builder("leona.ttl.evictions", ttlStore, TTLStore::evictionCount)
+                    .description("Entries evicted to keep the store within its bounds").register(registry);
+        }
+        metrics.onMethodRegistered(methodMetrics -> bindTo(registry, methodMetrics));
+    }
+
+    private void bindTo(MeterRegistry registry, TTLMethodMetrics methodMetrics) {
+        Method method = methodMetrics.getMethod();
+        String cacheName = methodMetrics.getCacheName();
+        Tags tags = Tags.of("class", method.getDeclaringClass().getName(), "method", cacheName != null ? cacheName : method.getName());
+
+        FunctionCounter.builder("leona.ttl.requests", methodMetrics, TTLMethodMetrics::getHits)
+                .tags(tags).tag("result", "hit").description("Calls served from the cache").register(registry);
+        FunctionCounter.builder("leona.ttl.requests", methodMetrics, TTLMethodMetrics::getMisses)
+                .tags(tags).tag("result", "miss").description("Calls waiting for a load").register(registry);
+        FunctionCounter.builder("leona.ttl.hits", methodMetrics, TTLMethodMetrics::getNearHits)
+                .tags(tags).tag("tier", "near").description("Hits served by the per-thread near cache").register(registry);
+        FunctionCounter.builder("leona.ttl.hits", methodMetrics, TTLMethodMetrics::getSharedHits)
+                .tags(tags).tag("tier", "shared").description("Hits served by the shared store").register(registry);
+        FunctionCounter.builder("leona.ttl.loads", methodMetrics, TTLMethodMetrics::getLoadSuccesses)
+                .tags(tags).tag("result", "success").description("Invocations of the cached method").register(registry);
+        FunctionCounter.builder("leona.ttl.loads", methodMetrics, TTLMethodMetrics::getLoadFailures)
+                .tags(tags).tag("result", "failure").description("Invocations of the cached method").register(registry);
+        FunctionCounter.builder("leona.ttl.loads.deduplicated", methodMetrics, TTLMethodMetrics::getDeduplicatedLoads)
+                .tags(tags).description("Misses served by another caller's load").register(registry);
+        FunctionCounter.builder("leona.ttl.refreshes", methodMetrics, TTLMethodMetrics::getBackgroundRefreshes)
+                .tags(tags).description("Background refreshes started").register(registry);
+
+        FunctionTimer.builder("leona.ttl.load", methodMetrics, TTLMethodMetrics::getLoadCount,
+                        m -> m.getTotalLoadTime().toNanos(), TimeUnit.NANOSECONDS)
+                .tags(tags).description("Time spent invoking the cached method").register(registry);
+        TimeGauge.builder("leona.ttl.load.max", methodMetrics, TimeUnit.NANOSECONDS, m -> m.getMaximumLoadTime().toNanos())
+                .tags(tags).register(registry);
+        for (double percentile : PERCENTILES) {
+            TimeGauge.builder("leona.ttl.load.percentile", methodMetrics, TimeUnit.NANOSECONDS,
+                            m -> m.getLoadLatencyPercentile(percentile).toNanos())
+                    .tags(tags).tag("percentile", String.valueOf(percentile)).register(registry);
+        }
+
+        // The store counts the entries of every Spring cache together, under their shared method
+        if (cacheName != null) return;
+        Gauge.builder("leona.ttl.entries", ttlStore, store -> unknownAsNaN(store.entryCount(method)))
+                .tags(tags).description("Entries currently cached").register(registry);
+        Gauge.builder("leona.ttl.size", ttlStore, store -> unknownAsNaN(store.estimatedBytes(method)))
+                .tags(tags).baseUnit(BaseUnits.BYTES).description("Estimated memory taken by cached entries").register(registry);
+    }
+
+    private static double unknownAsNaN(long statistic) {
+        return statistic < 0 ? Double.NaN : statistic;
+    }
+}
@@ -0,0 +1,168 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store-wide settings of the auto-configured {@link TTLStore}, bound from {@code leona.ttl.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "leona.ttl")
+public class TTLProperties {
+    /**
+     * Maximum number of entries held across all {@link TTLMethod}s without a bound of their own, or -1 for no bound.
+     */
+    private long maximumSize = -1;
+
+    /**
+     * Maximum total weight (see {@link TTLWeigher}) of entries held across all {@link TTLMethod}s without a bound of
+     * their own, or -1 for no bound.
+     */
+    private long maximumWeight = -1;
+
+    /**
+     * Number of independently locked segments of the store, rounded up to a power of two.
+     */
+    private int concurrencyLevel = Runtime.getRuntime().availableProcessors() * 4;
+
+    /**
+     * Number of daemon threads reloading entries in the background, see {@link TTLMethod#refreshAhead()}.
+     */
+    private int refreshThreads = Runtime.getRuntime().availableProcessors();
+
+    private final Expiration expiration = new Expiration();
+
+    private final OffHeap offHeap = new OffHeap();
+
+    private final Persistence persistence = new Persistence();
+
+    private final NearCache nearCache = new NearCache();
+
+    private final Cache cache = new Cache();
+
+    @Getter
+    @Setter
+    public static class Expiration {
+        /**
+         * Whether expired entries are proactively removed by a background {@link TTLExpirationWheel}, instead of only
+         * being replaced when read again.
+         */
+        private boolean enabled;
+
+        /**
+         * Resolution of the expiration wheel, entries are removed at most one tick after they expire.
+         */
+        private Duration tick = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class OffHeap {
+        /**
+         * Whether cached values are serialized outside the Java heap, keeping only small index entries on the heap.
+         * Values must be encodable by the {@link TTLCodec} bean, Java serialization by default.
+         */
+        private boolean enabled;
+
+        /**
+         * Maximum native memory taken by encoded values, allocated in slabs as needed and reused once values are evicted.
+         */
+        private DataSize memoryBudget = DataSize.ofMegabytes(256);
+
+        /**
+         * Whether encoded values are deflated, trading CPU on every store and read for a smaller footprint.
+         */
+        private boolean compression;
+    }
+
+    @Getter
+    @Setter
+    public static class Persistence {
+        /**
+         * Whether cached values are periodically snapshotted to a memory-mapped file and restored, while still valid,
+         * after a restart. Values must be encodable by the {@link TTLCodec} bean, Java serialization by default. Only
+         * values shared by a class or globally (see {@link TTLScope}) and those of Spring caches are persisted.
+         */
+        private boolean enabled;
+
+        /**
+         * Location of the snapshot file.
+         */
+        private Path file = Path.of("leona-ttl.snapshot");
+
+        /**
+         * Time between snapshots, a final snapshot is always written on shutdown.
+         */
+        private Duration snapshotInterval = Duration.ofMinutes(1);
+
+        /**
+         * Filter the values of the snapshot are decoded through when restored by the default Java serialization codec,
+         * in the pattern syntax of {@code jdk.serialFilter}. Bounds the depth and size of decoded values by default, add
+         * an allow-list (e.g. {@code com.example.**;java.base/*;!*}) to restrict their classes too.
+         */
+        private String deserializationFilter = JavaSerializationTTLCodec.DEFAULT_FILTER;
+    }
+
+    @Getter
+    @Setter
+    public static class NearCache {
+        /**
+         * Whether every thread keeps its most recently fetched values in a small table of its own, in front of the shared
+         * store. Worth it for values read millions of times per second by long-lived threads.
+         */
+        private boolean enabled;
+
+        /**
+         * Number of values kept per thread, rounded up to a power of two.
+         */
+        private int size = 64;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /**
+         * Whether Spring's cache abstraction ({@code @Cacheable} and friends) is backed by the TTL store, when no other
+         * {@link org.springframework.cache.CacheManager} is defined. Left unset, the store only backs it when caching is
+         * enabled by an {@code @EnableCaching} configuration.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Names of the caches to create upfront, no other cache is created when set. Caches are created on first use
+         * otherwise.
+         */
+        private List<String> cacheNames = new ArrayList<>();
+
+        /**
+         * Time-to-live of the entries of every cache without a time-to-live of its own.
+         */
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        /**
+         * Time-to-live of the entries of specific caches, by cache name.
+         */
+        private Map<String, Duration> timeToLiveByCache = new HashMap<>();
+
+        /**
+         * The longest time a caller of {@code @Cacheable(sync = true)} waits for another caller loading the same entry.
+         */
+        private Duration loadTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Whether null values are cached.
+         */
+        private boolean allowNullValues = true;
+    }
+}
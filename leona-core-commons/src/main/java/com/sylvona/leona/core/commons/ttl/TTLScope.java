@@ -0,0 +1,50 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.aspectj.lang.JoinPoint;
+
+/**
+ * Which invocations of a {@link TTLMethod} share cached values, see {@link TTLMethod#scope()}.
+ */
+public enum TTLScope {
+    /**
+     * Every invoking object caches its own values. Static methods, which have no invoking object, behave as {@link #CLASS}.
+     */
+    INSTANCE,
+
+    /**
+     * Every instance of the same class shares the same values, for instance prototype or request scoped beans.
+     */
+    CLASS,
+
+    /**
+     * Every invocation shares the same values, whatever the invoking object and its class.
+     */
+    GLOBAL;
+
+    private static final Object GLOBAL_SOURCE = new Object() {
+        @Override
+        public String toString() {
+            return "TTLScope.GLOBAL";
+        }
+    };
+
+    /**
+     * @param joinPoint an intercepted invocation
+     * @return the object the invocation's values are cached for
+     */
+    Object sourceFor(JoinPoint joinPoint) {
+        if (this == GLOBAL) return GLOBAL_SOURCE;
+
+        Object target = this == INSTANCE ? joinPoint.getThis() : joinPoint.getTarget();
+        if (target == null) return joinPoint.getSignature().getDeclaringType();
+        return this == INSTANCE ? target : target.getClass();
+    }
+
+    /**
+     * @param source an object values are cached for
+     * @return whether the source stands for a class or for every invocation, rather than for a single object
+     */
+    static boolean isShared(Object source) {
+        return source == GLOBAL_SOURCE || source instanceof Class<?>;
+    }
+}
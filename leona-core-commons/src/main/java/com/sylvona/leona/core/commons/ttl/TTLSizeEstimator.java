@@ -0,0 +1,65 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Cheap estimate of the heap taken by cached values, assuming a 64-bit JVM with compressed references.
+ * <p>
+ * Only the value itself is measured, never the object graph behind it: strings and arrays by their length, collections
+ * and maps by their slot count, and other objects by their fields (computed once per class). Estimating must stay cheap
+ * enough to run on every store, so the result is a lower bound for deep object graphs.
+ */
+final class TTLSizeEstimator {
+    /**
+     * A {@link ConcurrentTTLStore} entry along with its hash chain node.
+     */
+    static final long ENTRY_OVERHEAD = 88;
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) size += sizeOf(field.getType());
+                }
+            }
+            return align(size);
+        }
+    };
+
+    private TTLSizeEstimator() {
+    }
+
+    static long estimate(Object value) {
+        if (value == null) return 0;
+        // Compact strings of latin-1 text take one byte per character
+        if (value instanceof String string) return SHALLOW_SIZES.get(String.class) + align(ARRAY_HEADER + string.length());
+        if (value instanceof Collection<?> collection) return SHALLOW_SIZES.get(value.getClass()) + align(ARRAY_HEADER + (long) REFERENCE * collection.size());
+        if (value instanceof Map<?, ?> map) return SHALLOW_SIZES.get(value.getClass()) + 32L * map.size();
+
+        Class<?> type = value.getClass();
+        if (type.isArray()) return align(ARRAY_HEADER + (long) sizeOf(type.getComponentType()) * Array.getLength(value));
+        return SHALLOW_SIZES.get(type);
+    }
+
+    private static int sizeOf(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
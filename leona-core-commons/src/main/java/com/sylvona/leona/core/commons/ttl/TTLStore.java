@@ -3,24 +3,206 @@ package com.sylvona.leona.core.commons.ttl;
 import jakarta.annotation.Nullable;
 import org.aspectj.lang.reflect.MethodSignature;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
 
 public interface TTLStore<T> {
     /**
-     * Fetches a {@link TTLValue<T>} based on the invoking object and method (obtained via point-cut)
+     * Fetches a {@link TTLValue<T>} based on the invoking object and the invocation's {@link TTLKey}
      * @param source the object intercepted by the point-cut
-     * @param signature the method signature intercepted by the point-cut
+     * @param key the key built from the intercepted method and its key arguments
      * @return a cached {@link TTLValue<T>} or null if not present.
      */
-    @Nullable TTLValue<T> fetchValue(Object source, MethodSignature signature);
+    @Nullable TTLValue<T> fetchValue(Object source, TTLKey key);
+
+    /**
+     * Fetches the value of an invocation like {@link #fetchValue(Object, TTLKey)} fetches the value of the key
+     * {@link TTLKey#of(Method, Object[], int[])} builds. Stores which can match their entries against the arguments
+     * themselves override it, so that hits of methods keyed by their arguments do not build a key.
+     * @param source the object intercepted by the point-cut
+     * @param method the intercepted method
+     * @param arguments every argument of the invocation
+     * @param keyParameters the indices of the parameters taking part in the key, or an empty array to use all of them
+     * @return a cached {@link TTLValue<T>} or null if not present.
+     */
+    default @Nullable TTLValue<T> fetchValue(Object source, Method method, Object[] arguments, int[] keyParameters) {
+        return fetchValue(source, TTLKey.of(method, arguments, keyParameters));
+    }
+
+    /**
+     * Stores the result of a method's invocation for caching
+     * @param source the invoking object
+     * @param key the key built from the invoked method and its key arguments
+     * @param value the value returned by the invoked method
+     * @param lifetime a {@link Duration} until the returned value expires, and should be fetched again
+     * @return a previously associated {@link TTLValue<T>} or null if none existed
+     */
+    TTLValue<T> storeValue(Object source, TTLKey key, T value, Duration lifetime);
 
     /**
      * Stores the result of a method's invocation for caching
      * @param source the invoking object
+     * @param key the key built from the invoked method and its key arguments
+     * @param value the value returned by the invoked method
+     * @param lifetimeNanos the number of nanoseconds until the returned value expires, and should be fetched again
+     * @return a previously associated {@link TTLValue<T>} or null if none existed
+     */
+    default TTLValue<T> storeValue(Object source, TTLKey key, T value, long lifetimeNanos) {
+        return storeValue(source, key, value, Duration.ofNanos(lifetimeNanos));
+    }
+
+    /**
+     * Removes a cached value, but only while it is still the exact (identical) value which was stored
+     * @param source the invoking object
+     * @param key the key built from the invoked method and its key arguments
+     * @param expectedValue the value expected to be cached
+     * @return true if the value was removed, false if another value (or none) is cached for the key
+     */
+    default boolean removeValue(Object source, TTLKey key, T expectedValue) {
+        // Without an atomic removal, the value is replaced by an expired copy: racing with a new value costs a reload at worst
+        TTLValue<T> current = peekValue(source, key);
+        if (current == null || current.value() != expectedValue) return false;
+        storeValue(source, key, expectedValue, 0);
+        return true;
+    }
+
+    /**
+     * Removes a cached value, whatever it is
+     * @param source the invoking object
+     * @param key the key built from the invoked method and its key arguments
+     * @return true if a value was removed
+     */
+    default boolean invalidate(Object source, TTLKey key) {
+        TTLValue<T> current = peekValue(source, key);
+        if (current == null) return false;
+        storeValue(source, key, current.value(), 0);
+        return true;
+    }
+
+    /**
+     * Removes the values cached for a key, for every invoking object
+     * @param key the key built from the invoked method and its key arguments
+     * @return the number of values removed
+     * @throws UnsupportedOperationException if this store cannot enumerate its values
+     */
+    default long invalidateKey(TTLKey key) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support invalidateKey");
+    }
+
+    /**
+     * Removes every value cached for an invoking object
+     * @param source the invoking object
+     * @return the number of values removed
+     * @throws UnsupportedOperationException if this store cannot enumerate its values
+     */
+    default long invalidateSource(Object source) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support invalidateSource");
+    }
+
+    /**
+     * Removes every value cached for a method, for every invoking object
+     * @param method the cached method
+     * @return the number of values removed
+     * @throws UnsupportedOperationException if this store cannot enumerate its values
+     */
+    default long invalidateMethod(Method method) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support invalidateMethod");
+    }
+
+    /**
+     * Removes every value cached for a method, for a single invoking object
+     * @param source the invoking object
+     * @param method the cached method
+     * @return the number of values removed
+     * @throws UnsupportedOperationException if this store cannot enumerate its values
+     */
+    default long invalidateMethod(Object source, Method method) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support invalidateMethod");
+    }
+
+    /**
+     * Removes every value cached for the methods declaring a tag, see {@link TTLMethod#tags()}
+     * @param tag the tag to invalidate
+     * @return the number of values removed
+     * @throws UnsupportedOperationException if this store cannot enumerate its values
+     */
+    default long invalidateTag(String tag) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support invalidateTag");
+    }
+
+    /**
+     * Fetches a {@link TTLValue<T>} like {@link #fetchValue(Object, TTLKey)}, without recording an access, for maintenance
+     * tasks which must not make every entry they visit look recently used to the eviction policy
+     * @param source the invoking object
+     * @param key the key built from the invoked method and its key arguments
+     * @return a cached {@link TTLValue<T>} or null if not present.
+     */
+    default @Nullable TTLValue<T> peekValue(Object source, TTLKey key) {
+        return fetchValue(source, key);
+    }
+
+    /**
+     * Records a hit on a value previously fetched from this store and served again without fetching it, for instance by a
+     * {@link NearCacheTTLStore}, so the store's eviction policy still sees the access
+     * @param value a value fetched from this store
+     */
+    default void recordAccess(TTLValue<T> value) {
+    }
+
+    /**
+     * Tells whether the values fetched from this store implement {@link TTLValue#isCurrent()}, that is stop being current
+     * as soon as they are replaced, invalidated, evicted or expired. Values of stores which do not are always current.
+     * @return true if {@link TTLValue#isCurrent()} can be relied upon
+     */
+    default boolean tracksCurrentValues() {
+        return false;
+    }
+
+    /**
+     * Counts the entries cached for a method, across every invoking object
+     * @param method the cached method
+     * @return the number of entries, or -1 if this store does not track it
+     */
+    default long entryCount(Method method) {
+        return -1;
+    }
+
+    /**
+     * Estimates the memory taken by the entries cached for a method, across every invoking object
+     * @param method the cached method
+     * @return the estimated number of bytes, or -1 if this store does not track it
+     */
+    default long estimatedBytes(Method method) {
+        return -1;
+    }
+
+    /**
+     * Counts the entries evicted to keep this store within its bounds, since it was created
+     * @return the number of evictions, or -1 if this store does not track it
+     */
+    default long evictionCount() {
+        return -1;
+    }
+
+    /**
+     * Fetches a {@link TTLValue<T>} based on the invoking object and method (obtained via point-cut), ignoring its arguments
+     * @param source the object intercepted by the point-cut
+     * @param signature the method signature intercepted by the point-cut
+     * @return a cached {@link TTLValue<T>} or null if not present.
+     */
+    default @Nullable TTLValue<T> fetchValue(Object source, MethodSignature signature) {
+        return fetchValue(source, TTLKey.of(signature.getMethod()));
+    }
+
+    /**
+     * Stores the result of a method's invocation for caching, ignoring its arguments
+     * @param source the invoking object
      * @param signature the invoked method signature
      * @param value the value returned by the invoked method
      * @param lifetime a {@link Duration} until the returned value expires, and should be fetched again
      * @return a previously associated {@link TTLValue<T>} or null if none existed
      */
-    TTLValue<T> storeValue(Object source, MethodSignature signature, T value, Duration lifetime);
+    default TTLValue<T> storeValue(Object source, MethodSignature signature, T value, Duration lifetime) {
+        return storeValue(source, TTLKey.of(signature.getMethod()), value, lifetime);
+    }
 }
@@ -1,5 +1,6 @@
 package com.sylvona.leona.core.commons.ttl;
 
+import java.time.Duration;
 import java.time.Instant;
 
 public interface TTLValue<T> {
@@ -7,7 +8,23 @@ public interface TTLValue<T> {
 
     Instant expiration();
 
+    /**
+     * @return the expiration as a {@link System#nanoTime()} deadline, which stores keep natively to avoid wall clock reads
+     */
+    default long expirationNanos() {
+        return System.nanoTime() + Duration.between(Instant.now(), expiration()).toNanos();
+    }
+
     default boolean isExpired() {
         return Instant.now().isAfter(expiration());
     }
+
+    /**
+     * Tells whether this value is still the one held by its store, as opposed to having been replaced, invalidated or
+     * evicted since it was fetched. Stores which cannot tell always return true.
+     * @return false once the value has left its store
+     */
+    default boolean isCurrent() {
+        return true;
+    }
 }
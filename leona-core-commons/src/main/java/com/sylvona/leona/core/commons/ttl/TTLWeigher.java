@@ -0,0 +1,24 @@
+package com.sylvona.leona.core.commons.ttl;
+
+/**
+ * Computes the weight of a cached value, used to bound a {@link TTLStore} by total weight instead of entry count.
+ * Register a bean of this type to have it picked up by the auto-configured store.
+ * @param <T> the type of cached values
+ */
+@FunctionalInterface
+public interface TTLWeigher<T> {
+    /**
+     * @param key the key of the cached entry
+     * @param value the cached value
+     * @return the non-negative weight of the entry
+     */
+    int weigh(TTLKey key, T value);
+
+    /**
+     * @return a weigher giving every entry a weight of one, making the weight bound equivalent to the size bound
+     * @param <T> the type of cached values
+     */
+    static <T> TTLWeigher<T> singleton() {
+        return (key, value) -> 1;
+    }
+}
@@ -0,0 +1,32 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoubleHashSetTest {
+
+    @Test
+    void comparesElementsLikeDoubleEquals() {
+        DoubleHashSet set = DoubleHashSet.of(Double.NaN, 0.0);
+
+        assertFalse(set.add(0.0 / 0.0));
+        assertTrue(set.contains(Double.NaN));
+        assertFalse(set.contains(-0.0));
+        assertTrue(set.add(-0.0));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void hashesLikeASetOfDoubles() {
+        DoubleHashSet set = DoubleHashSet.of(1.5, -2.25, 0.0, Double.MAX_VALUE);
+
+        assertEquals(Set.of(1.5, -2.25, 0.0, Double.MAX_VALUE).hashCode(), set.hashCode());
+        assertEquals(DoubleHashSet.of(Double.MAX_VALUE, 0.0, -2.25, 1.5), set);
+        assertEquals(4, set.stream().count());
+    }
+}
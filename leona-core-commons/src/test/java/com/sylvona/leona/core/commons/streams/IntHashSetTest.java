@@ -0,0 +1,79 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntHashSetTest {
+
+    @Test
+    void zeroIsAnElementLikeAnyOther() {
+        IntHashSet set = new IntHashSet();
+
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+        assertEquals(0, set.iterator().nextInt());
+        assertTrue(set.remove(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void behavesLikeAHashSetUnderRandomOperations() {
+        Random random = new Random(42);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // A narrow range makes adds, removes and long probe runs collide often
+            int value = random.nextInt(4_096) - 2_048;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(value), set.add(value));
+                case 1 -> assertEquals(expected.remove(value), set.remove(value));
+                default -> assertEquals(expected.contains(value), set.contains(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(expected, Arrays.stream(set.toArray()).boxed().collect(Collectors.toSet()));
+        assertEquals(expected.hashCode(), set.hashCode());
+    }
+
+    @Test
+    void setsWithTheSameElementsAreEqual() {
+        IntHashSet grown = new IntHashSet();
+        for (int i = 1_000; i >= 0; i--) grown.add(i);
+        IntHashSet presized = new IntHashSet(1_001);
+        for (int i = 0; i <= 1_000; i++) presized.add(i);
+
+        assertEquals(grown, presized);
+        assertEquals(grown.hashCode(), presized.hashCode());
+        presized.remove(0);
+        assertFalse(grown.equals(presized));
+    }
+
+    @Test
+    void iteratesEveryElementOnce() {
+        IntHashSet set = IntHashSet.of(0, 5, -5, 5, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        assertEquals(Set.of(0, 5, -5, Integer.MIN_VALUE, Integer.MAX_VALUE), set.stream().boxed().collect(Collectors.toSet()));
+        assertEquals(5, set.stream().count());
+        set.clear();
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    void rejectsNegativeExpectedSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new IntHashSet(-1));
+    }
+}
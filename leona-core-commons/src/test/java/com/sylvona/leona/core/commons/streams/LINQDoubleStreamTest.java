@@ -0,0 +1,58 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LINQDoubleStreamTest {
+
+    @Test
+    void firstAndLastFallBackOnEmptyStreams() {
+        assertEquals(0.0, LINQ.stream(new double[0]).firstOrDefault());
+        assertEquals(-1.0, LINQ.stream(new double[]{1, 2}).firstOrDefault(d -> d > 2, -1));
+        assertEquals(7.0, LINQ.stream(new double[0]).firstOrGet(d -> true, () -> 7));
+        assertEquals(0.0, LINQ.stream(new double[]{1, 2}).lastOrDefault(d -> d > 2));
+        assertEquals(-1.0, LINQ.stream(new double[0]).lastOrDefault(-1));
+        assertEquals(7.0, LINQ.stream(new double[]{1, 2}).lastOrGet(d -> d > 2, () -> 7));
+        assertThrows(NoSuchElementException.class, () -> LINQ.stream(new double[0]).first());
+        assertThrows(NoSuchElementException.class, () -> LINQ.stream(new double[]{1}).last(d -> d > 1));
+
+        assertEquals(2.5, LINQ.stream(new double[]{1, 2.5, 3, 4}).first(d -> d > 2));
+        assertEquals(Double.NaN, LINQ.stream(new double[]{1, Double.NaN, 4}).last(d -> d != 4));
+    }
+
+    @Test
+    void findLastTakesTheLastElementInParallel() {
+        assertEquals(OptionalDouble.of(99_999), new LINQDoubleStream(IntStream.range(0, 100_000).asDoubleStream()).parallel().findLast());
+        assertEquals(OptionalDouble.of(99_995), new LINQDoubleStream(IntStream.range(0, 100_000).asDoubleStream()).parallel()
+                .findLast(d -> d % 7 == 0));
+        assertEquals(OptionalDouble.empty(), new LINQDoubleStream(IntStream.range(0, 100_000).asDoubleStream()).parallel()
+                .findLast(d -> d < 0));
+    }
+
+    @Test
+    void reverseKeepsCloseHandlersAndParallelism() {
+        boolean[] closed = new boolean[1];
+        LINQDoubleStream reversed = new LINQDoubleStream(DoubleStream.of(0, 0.5, 1, 1.5).onClose(() -> closed[0] = true)).parallel().reverse();
+
+        assertTrue(reversed.isParallel());
+        assertArrayEquals(new double[]{1.5, 1, 0.5, 0}, reversed.toArray());
+        reversed.close();
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    void toSetKeepsEveryDistinctElement() {
+        assertEquals(DoubleHashSet.of(Double.NaN, 0.0, -0.0), LINQ.stream(new double[]{0.0, Double.NaN, -0.0, 0.0, Double.NaN}).toSet());
+        assertEquals(10_000, new LINQDoubleStream(IntStream.range(0, 100_000).mapToDouble(i -> i % 10_000)).parallel().toSet().size());
+        assertEquals(DoubleHashSet.of(2, 4), LINQ.stream(new double[]{1, 2, 3, 4}).toSet(d -> d % 2 == 0));
+    }
+}
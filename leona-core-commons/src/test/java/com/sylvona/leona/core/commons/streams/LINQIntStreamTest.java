@@ -0,0 +1,55 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LINQIntStreamTest {
+
+    @Test
+    void firstAndLastFallBackOnEmptyStreams() {
+        assertEquals(0, LINQ.stream(new int[0]).firstOrDefault());
+        assertEquals(-1, LINQ.stream(new int[]{1, 2}).firstOrDefault(i -> i > 2, -1));
+        assertEquals(7, LINQ.stream(new int[0]).firstOrGet(i -> true, () -> 7));
+        assertEquals(0, LINQ.stream(new int[]{1, 2}).lastOrDefault(i -> i > 2));
+        assertEquals(-1, LINQ.stream(new int[0]).lastOrDefault(-1));
+        assertEquals(7, LINQ.stream(new int[]{1, 2}).lastOrGet(i -> i > 2, () -> 7));
+        assertThrows(NoSuchElementException.class, () -> LINQ.stream(new int[0]).first());
+        assertThrows(NoSuchElementException.class, () -> LINQ.stream(new int[]{1}).last(i -> i > 1));
+
+        assertEquals(2, LINQ.stream(new int[]{1, 2, 3, 4}).first(i -> i % 2 == 0));
+        assertEquals(3, LINQ.stream(new int[]{1, 2, 3, 4}).last(i -> i % 2 != 0));
+    }
+
+    @Test
+    void findLastTakesTheLastElementInParallel() {
+        assertEquals(OptionalInt.of(99_999), new LINQIntStream(IntStream.range(0, 100_000)).parallel().findLast());
+        assertEquals(OptionalInt.of(99_995), new LINQIntStream(IntStream.range(0, 100_000)).parallel().findLast(i -> i % 7 == 0));
+        assertEquals(OptionalInt.empty(), new LINQIntStream(IntStream.range(0, 100_000)).parallel().findLast(i -> i < 0));
+    }
+
+    @Test
+    void reverseKeepsCloseHandlersAndParallelism() {
+        boolean[] closed = new boolean[1];
+        LINQIntStream reversed = new LINQIntStream(IntStream.range(0, 5).onClose(() -> closed[0] = true)).parallel().reverse();
+
+        assertTrue(reversed.isParallel());
+        assertArrayEquals(new int[]{4, 3, 2, 1, 0}, reversed.toArray());
+        reversed.close();
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    void toSetKeepsEveryDistinctElement() {
+        assertEquals(IntHashSet.of(0, 1, 2), LINQ.stream(new int[]{2, 0, 1, 2, 0}).toSet());
+        assertEquals(10_000, new LINQIntStream(IntStream.range(0, 100_000).map(i -> i % 10_000)).parallel().toSet().size());
+        assertEquals(IntHashSet.of(2, 4), LINQ.stream(new int[]{1, 2, 3, 4}).toSet(i -> i % 2 == 0));
+    }
+}
@@ -0,0 +1,55 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LINQLongStreamTest {
+
+    @Test
+    void firstAndLastFallBackOnEmptyStreams() {
+        assertEquals(0L, LINQ.stream(new long[0]).firstOrDefault());
+        assertEquals(-1L, LINQ.stream(new long[]{1, 2}).firstOrDefault(l -> l > 2, -1));
+        assertEquals(7L, LINQ.stream(new long[0]).firstOrGet(l -> true, () -> 7));
+        assertEquals(0L, LINQ.stream(new long[]{1, 2}).lastOrDefault(l -> l > 2));
+        assertEquals(-1L, LINQ.stream(new long[0]).lastOrDefault(-1));
+        assertEquals(7L, LINQ.stream(new long[]{1, 2}).lastOrGet(l -> l > 2, () -> 7));
+        assertThrows(NoSuchElementException.class, () -> LINQ.stream(new long[0]).first());
+        assertThrows(NoSuchElementException.class, () -> LINQ.stream(new long[]{1}).last(l -> l > 1));
+
+        assertEquals(2L, LINQ.stream(new long[]{1, 2, 3, 4}).first(l -> l % 2 == 0));
+        assertEquals(Long.MAX_VALUE, LINQ.stream(new long[]{1, Long.MAX_VALUE, 4}).last(l -> l % 2 != 0));
+    }
+
+    @Test
+    void findLastTakesTheLastElementInParallel() {
+        assertEquals(OptionalLong.of(99_999), new LINQLongStream(LongStream.range(0, 100_000)).parallel().findLast());
+        assertEquals(OptionalLong.of(99_995), new LINQLongStream(LongStream.range(0, 100_000)).parallel().findLast(l -> l % 7 == 0));
+        assertEquals(OptionalLong.empty(), new LINQLongStream(LongStream.range(0, 100_000)).parallel().findLast(l -> l < 0));
+    }
+
+    @Test
+    void reverseKeepsCloseHandlersAndParallelism() {
+        boolean[] closed = new boolean[1];
+        LINQLongStream reversed = new LINQLongStream(LongStream.range(0, 5).onClose(() -> closed[0] = true)).parallel().reverse();
+
+        assertTrue(reversed.isParallel());
+        assertArrayEquals(new long[]{4, 3, 2, 1, 0}, reversed.toArray());
+        reversed.close();
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    void toSetKeepsEveryDistinctElement() {
+        assertEquals(LongHashSet.of(0, 1, Long.MIN_VALUE), LINQ.stream(new long[]{Long.MIN_VALUE, 0, 1, Long.MIN_VALUE, 0}).toSet());
+        assertEquals(10_000, new LINQLongStream(LongStream.range(0, 100_000).map(l -> l % 10_000)).parallel().toSet().size());
+        assertEquals(LongHashSet.of(2, 4), LINQ.stream(new long[]{1, 2, 3, 4}).toSet(l -> l % 2 == 0));
+    }
+}
@@ -0,0 +1,87 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the fused pipelines of {@link LINQStream} with the same pipelines on plain JDK streams, for the short lists of
+ * a single request and for larger ones. Run {@link #main(String[])} from the test classpath, adding {@code -prof gc} to
+ * the JMH options (or {@code addProfiler(GCProfiler.class)}) to compare the allocations per pipeline as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LINQStreamBenchmark {
+    @Param({"16", "1024"})
+    int size;
+
+    private List<Integer> source;
+
+    @Setup
+    public void createSource() {
+        source = IntStream.range(0, size).boxed().toList();
+    }
+
+    @Benchmark
+    public List<String> filterMapChainJdk() {
+        return source.stream().filter(i -> i % 2 == 0).map(i -> i * 3).filter(i -> i % 5 != 0).map(String::valueOf).toList();
+    }
+
+    @Benchmark
+    public List<String> filterMapChainLinq() {
+        return LINQ.stream(source).filter(i -> i % 2 == 0).map(i -> i * 3).filter(i -> i % 5 != 0).map(String::valueOf).toList();
+    }
+
+    @Benchmark
+    public List<Integer> mapChainJdk() {
+        return source.stream().map(i -> i + 1).map(i -> i * 2).map(i -> i - 3).toList();
+    }
+
+    @Benchmark
+    public List<Integer> mapChainLinq() {
+        return LINQ.stream(source).map(i -> i + 1).map(i -> i * 2).map(i -> i - 3).toList();
+    }
+
+    @Benchmark
+    public long countAfterMapsJdk() {
+        return source.stream().map(i -> i * 3).map(String::valueOf).count();
+    }
+
+    @Benchmark
+    public long countAfterMapsLinq() {
+        return LINQ.stream(source).map(i -> i * 3).map(String::valueOf).count();
+    }
+
+    @Benchmark
+    public Integer lastAfterMapJdk() {
+        return source.stream().map(i -> i * 3).reduce((first, second) -> second).orElseThrow();
+    }
+
+    @Benchmark
+    public Integer lastAfterMapLinq() {
+        return LINQ.stream(source).map(i -> i * 3).last();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LINQStreamBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,341 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LINQStreamTest {
+    private static final List<Integer> ELEMENTS = List.of(5, 3, 8, 1, 9, 2, 7, 4, 6, 3);
+
+    // Operators left pending in front of a source-aware operator
+    private static final List<UnaryOperator<LINQStream<Integer>>> PENDING = List.of(
+            stream -> stream,
+            stream -> stream.map(i -> i * 10),
+            stream -> stream.filter(i -> i % 3 != 0),
+            stream -> stream.map(i -> i + 1).filter(i -> i % 2 == 0).map(i -> -i),
+            stream -> stream.peek(i -> {}));
+
+    private static final List<Function<LINQStream<Integer>, Object>> SOURCE_AWARE = List.of(
+            LINQStream::count,
+            stream -> stream.skip(3).toList(),
+            stream -> stream.skip(0).toList(),
+            stream -> stream.skip(ELEMENTS.size() + 1).toList(),
+            stream -> stream.reverse().toList(),
+            stream -> stream.reverse().skip(2).toList(),
+            LINQStream::findLast,
+            stream -> stream.findLast(i -> i % 2 != 0),
+            stream -> stream.lastOrDefault(i -> i > 100, -1),
+            LINQStream::lastOrDefault);
+
+    @Test
+    void fusedMapsKeepTheSizeKnown() {
+        Spliterator<String> spliterator = LINQ.stream(List.of(1, 2, 3)).map(i -> i * 2).map(String::valueOf).spliterator();
+
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(3, spliterator.getExactSizeIfKnown());
+    }
+
+    @Test
+    void fusedPeeksAndMapsKeepTheSizeKnown() {
+        List<Integer> seen = new ArrayList<>();
+        Spliterator<Integer> spliterator = LINQ.stream(List.of(1, 2, 3)).peek(seen::add).map(i -> i * 2).peek(seen::add).spliterator();
+
+        assertEquals(3, spliterator.getExactSizeIfKnown());
+        spliterator.forEachRemaining(i -> {});
+        assertEquals(List.of(1, 2, 2, 4, 3, 6), seen);
+    }
+
+    @Test
+    void fusedRunsWithAFilterApplyEveryOperatorInOrder() {
+        List<Integer> seen = new ArrayList<>();
+        LINQStream<String> stream = LINQ.stream(List.of(1, 2, 3, 4)).map(i -> i * 3).peek(seen::add).filter(i -> i % 2 == 0).map(String::valueOf);
+        Spliterator<String> spliterator = stream.spliterator();
+
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        List<String> result = new ArrayList<>();
+        spliterator.forEachRemaining(result::add);
+        assertEquals(List.of("6", "12"), result);
+        assertEquals(List.of(3, 6, 9, 12), seen);
+    }
+
+    @Test
+    void joinFollowsTheOrderOfTheSmallerOuterSide() {
+        List<String> joined = LINQ.stream(List.of(3, 1, 2))
+                .join(List.of(1, 2, 3, 1, 2, 3), outer -> outer, inner -> inner, (outer, inner) -> outer + ":" + inner)
+                .toList();
+
+        assertEquals(List.of("3:3", "3:3", "1:1", "1:1", "2:2", "2:2"), joined);
+    }
+
+    @Test
+    void joinFollowsTheOrderOfTheLargerOuterSide() {
+        List<String> joined = LINQ.stream(List.of(3, 1, 2, 3))
+                .join(List.of(2, 3), outer -> outer, inner -> inner, (outer, inner) -> outer + ":" + inner)
+                .toList();
+
+        assertEquals(List.of("3:3", "2:2", "3:3"), joined);
+    }
+
+    @Test
+    void unorderedJoinMatchesEveryPair() {
+        List<String> joined = LINQ.stream(List.of(3, 1, 2)).unordered()
+                .join(List.of(1, 2, 3, 1, 2, 3), outer -> outer, inner -> inner, (outer, inner) -> outer + ":" + inner)
+                .sorted()
+                .collect(Collectors.toList());
+
+        assertEquals(List.of("1:1", "1:1", "2:2", "2:2", "3:3", "3:3"), joined);
+    }
+
+    @Test
+    void joinMatchesNoNullKeys() {
+        List<String> joined = LINQ.stream(Arrays.asList("a", null, "b"))
+                .join(Arrays.asList(null, "b", "c"), outer -> outer, inner -> inner, (outer, inner) -> outer + inner)
+                .toList();
+
+        assertEquals(List.of("bb"), joined);
+    }
+
+    @Test
+    void parallelJoinMatchesTheSequentialJoin() {
+        List<Integer> outer = IntStream.range(0, 20_000).boxed().toList();
+        List<Integer> inner = IntStream.range(0, 40_000).map(i -> i / 2).boxed().toList();
+
+        List<Long> sequential = LINQ.stream(outer).join(inner, i -> i % 5_000, i -> i, (o, i) -> (long) o << 32 | i).toList();
+        List<Long> parallel = LINQ.stream(outer).parallel().join(inner, i -> i % 5_000, i -> i, (o, i) -> (long) o << 32 | i).toList();
+
+        assertEquals(40_000, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void joinClosesTheInnerStream() {
+        boolean[] closed = new boolean[1];
+        LINQStream<Integer> joined = LINQ.stream(List.of(1)).join(Stream.of(1).onClose(() -> closed[0] = true), o -> o, i -> i, Integer::sum);
+
+        assertEquals(List.of(2), joined.toList());
+        joined.close();
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    void groupJoinKeepsOuterElementsWithoutMatches() {
+        List<String> joined = LINQ.stream(Arrays.asList(1, 2, null))
+                .groupJoin(List.of("a1", "b1", "c3", "d2"), outer -> outer, inner -> inner.charAt(1) - '0', (outer, inners) -> outer + "=" + inners)
+                .toList();
+
+        assertEquals(List.of("1=[a1, b1]", "2=[d2]", "null=[]"), joined);
+    }
+
+    @Test
+    void groupByKeepsTheOrderKeysWereFirstEncountered() {
+        List<Grouping<Integer, String>> groups = LINQ.stream(List.of("bb", "a", "ccc", "dd", "e")).groupBy(String::length).toList();
+
+        assertEquals(List.of(2, 1, 3), groups.stream().map(Grouping::key).toList());
+        assertEquals(List.of("bb", "dd"), groups.get(0).elements());
+        assertEquals(List.of("a", "e"), groups.get(1).elements());
+        assertEquals(List.of("ccc"), groups.get(2).elements());
+    }
+
+    @Test
+    void parallelGroupByKeepsTheOrderKeysWereFirstEncountered() {
+        // Large enough for parallel lookups to be hash partitioned
+        List<Integer> elements = IntStream.range(0, 100_000).map(i -> 99_999 - i).boxed().toList();
+
+        List<Grouping<Integer, Integer>> sequential = LINQ.stream(elements).groupBy(i -> i % 1_000).toList();
+        List<Grouping<Integer, Integer>> parallel = LINQ.stream(elements).parallel().groupBy(i -> i % 1_000).toList();
+
+        assertTrue(LINQ.stream(elements).parallel().groupBy(i -> i % 1_000).spliterator().hasCharacteristics(Spliterator.ORDERED));
+        assertEquals(IntStream.range(0, 1_000).map(i -> 999 - i).boxed().toList(), parallel.stream().map(Grouping::key).toList());
+        assertTrue(sequential.equals(parallel), "the parallel groups differ from the sequential groups");
+    }
+
+    @Test
+    void chunkSplitsListsAndStreamsAlike() {
+        List<Integer> list = IntStream.range(0, 10).boxed().toList();
+        List<List<Integer>> expected = List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9));
+
+        assertEquals(expected, LINQ.stream(list).chunk(4).toList());
+        assertEquals(expected, LINQ.stream(list.stream()).chunk(4).toList());
+        assertEquals(expected, LINQ.stream(list).parallel().chunk(4).toList());
+        assertEquals(List.of(List.of(0, 2, 4), List.of(6, 8, 10), List.of(12, 14, 16), List.of(18)),
+                LINQ.stream(list).map(i -> i * 2).chunk(3).toList());
+    }
+
+    @Test
+    void windowSlidesOverListsAndStreamsAlike() {
+        List<Integer> list = List.of(1, 2, 3, 4, 5);
+        List<List<Integer>> sliding = List.of(List.of(1, 2, 3), List.of(2, 3, 4), List.of(3, 4, 5));
+        List<List<Integer>> skipping = List.of(List.of(1, 2), List.of(4, 5));
+
+        assertEquals(sliding, LINQ.stream(list).window(3, 1).toList());
+        assertEquals(sliding, LINQ.stream(new ArrayDeque<>(list)).window(3, 1).toList());
+        assertEquals(skipping, LINQ.stream(list).window(2, 3).toList());
+        assertEquals(skipping, LINQ.stream(new ArrayDeque<>(list)).window(2, 3).toList());
+        assertEquals(List.of(), LINQ.stream(list).window(6, 1).toList());
+    }
+
+    @Test
+    void windowRejectsNonPositiveSizes() {
+        assertThrows(IllegalArgumentException.class, () -> LINQ.stream(List.of(1)).window(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> LINQ.stream(List.of(1)).chunk(-1));
+        assertThrows(IllegalArgumentException.class, () -> LINQ.stream(List.of(1)).buffer(0, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void bufferBatchesUpToTheMaximumSize() {
+        List<List<Integer>> batches = LINQ.stream(IntStream.range(0, 7).boxed()).buffer(3, Duration.ofMinutes(1)).toList();
+
+        assertEquals(List.of(List.of(0, 1, 2), List.of(3, 4, 5), List.of(6)), batches);
+    }
+
+    @Test
+    void bufferClosesBatchesOnceTheWaitIsOver() {
+        Stream<Integer> slow = IntStream.range(0, 4).boxed().peek(i -> sleep(20));
+
+        List<List<Integer>> batches = LINQ.stream(slow).buffer(100, Duration.ofMillis(5)).toList();
+
+        assertEquals(List.of(0, 1, 2, 3), batches.stream().flatMap(List::stream).toList());
+        assertTrue(batches.size() > 1, "expected several batches but was " + batches);
+    }
+
+    @Test
+    void forEachChunkReusesOneListForSequentialStreams() {
+        List<List<Integer>> chunks = new ArrayList<>();
+        List<Object> lists = new ArrayList<>();
+        LINQ.stream(List.of(1, 2, 3, 4, 5)).forEachChunk(2, chunk -> {
+            chunks.add(List.copyOf(chunk));
+            lists.add(chunk);
+        });
+
+        assertEquals(List.of(List.of(1, 2), List.of(3, 4), List.of(5)), chunks);
+        assertTrue(lists.stream().allMatch(list -> list == lists.get(0)));
+    }
+
+    @Test
+    void toLookupGroupsElementsByKey() {
+        Lookup<Boolean, Integer> lookup = LINQ.stream(List.of(1, 2, 3, 4, 5)).toLookup(i -> i % 2 == 0);
+        Map<Boolean, List<Integer>> expected = Map.of(false, List.of(1, 3, 5), true, List.of(2, 4));
+
+        assertEquals(2, lookup.size());
+        expected.forEach((key, elements) -> assertEquals(elements, lookup.get(key)));
+    }
+
+    @Test
+    void sourceAwareOperatorsMatchATraversal() {
+        for (UnaryOperator<LINQStream<Integer>> pending : PENDING) {
+            for (Function<LINQStream<Integer>, Object> operator : SOURCE_AWARE) {
+                Object expected = operator.apply(pending.apply(LINQ.stream(ELEMENTS.stream())));
+                for (LINQStream<Integer> stream : sources()) {
+                    assertEquals(expected, operator.apply(pending.apply(stream)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void sourceAwareOperatorsOfEmptySourcesMatchATraversal() {
+        assertEquals(0, LINQ.stream(new Integer[0]).map(i -> i * 2).count());
+        assertEquals(List.of(), LINQ.stream(new ArrayDeque<Integer>()).reverse().toList());
+        assertEquals(List.of(), LINQ.stream(List.<Integer>of()).skip(1).toList());
+        assertThrows(NoSuchElementException.class, () -> LINQ.stream(new ArrayList<Integer>()).filter(i -> i > 0).last());
+    }
+
+    @Test
+    void countAndSkipTakeTheSizeOfTheSourceWithoutApplyingMaps() {
+        AtomicInteger mapped = new AtomicInteger();
+        Function<Integer, Integer> counted = i -> {
+            mapped.incrementAndGet();
+            return i;
+        };
+        for (LINQStream<Integer> stream : sources()) {
+            assertEquals(ELEMENTS.size(), stream.map(counted).count());
+        }
+        assertEquals(List.of(6, 3), LINQ.stream(ELEMENTS).map(counted).skip(8).toList());
+
+        assertEquals(2, mapped.get());
+    }
+
+    @Test
+    void lastElementsAreTakenFromTheEndOfTheSource() {
+        AtomicInteger mapped = new AtomicInteger();
+        Function<Integer, Integer> counted = i -> {
+            mapped.incrementAndGet();
+            return i;
+        };
+        for (LINQStream<Integer> stream : sources()) {
+            int last = stream.map(counted).last(i -> i % 2 == 0);
+            assertEquals(6, last);
+        }
+
+        // Only the last two elements, 3 then 6, are mapped for each of the three sources
+        assertEquals(6, mapped.get());
+    }
+
+    @Test
+    void peeksTraverseEveryElementOfTheSource() {
+        for (Function<LINQStream<Integer>, Object> operator : SOURCE_AWARE) {
+            for (LINQStream<Integer> stream : sources()) {
+                List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+                operator.apply(stream.peek(seen::add).map(i -> i * 2));
+
+                assertEquals(ELEMENTS.size(), seen.size(), "peeked " + seen);
+            }
+        }
+    }
+
+    @Test
+    void sourcesAreNoLongerTrackedAfterSortedLimitOrDistinct() {
+        List<UnaryOperator<LINQStream<Integer>>> untracking = List.of(
+                stream -> stream.sorted(),
+                stream -> stream.sorted(Comparator.reverseOrder()),
+                stream -> stream.limit(4),
+                stream -> stream.distinct(),
+                stream -> stream.map(i -> i % 4).distinct(),
+                stream -> stream.filter(i -> i > 2).sorted().limit(3));
+
+        for (UnaryOperator<LINQStream<Integer>> operators : untracking) {
+            for (Function<LINQStream<Integer>, Object> operator : SOURCE_AWARE) {
+                Object expected = operator.apply(operators.apply(LINQ.stream(ELEMENTS.stream())));
+                for (LINQStream<Integer> stream : sources()) {
+                    assertEquals(expected, operator.apply(operators.apply(stream)));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a stream of {@link #ELEMENTS} tracking each kind of source: a list, an array and a deque
+     */
+    private static List<LINQStream<Integer>> sources() {
+        return List.of(LINQ.stream(new ArrayList<>(ELEMENTS)), LINQ.stream(ELEMENTS.toArray(Integer[]::new)),
+                LINQ.stream(new ArrayDeque<>(ELEMENTS)));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
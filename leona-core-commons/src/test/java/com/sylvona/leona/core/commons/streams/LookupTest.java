@@ -0,0 +1,65 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LookupTest {
+
+    @Test
+    void groupsKeepTheirFirstEncounterOrder() {
+        Lookup<Character, String> lookup = LINQ.stream(List.of("banana", "apple", "blueberry", "cherry", "avocado"))
+                .toLookup(fruit -> fruit.charAt(0));
+
+        assertEquals(3, lookup.size());
+        assertEquals(List.of('b', 'a', 'c'), lookup.stream().map(Grouping::key).toList());
+        assertEquals(List.of("banana", "blueberry"), lookup.get('b'));
+        assertEquals("{b=[banana, blueberry], a=[apple, avocado], c=[cherry]}", lookup.toString());
+    }
+
+    @Test
+    void nullKeysFormAGroup() {
+        Lookup<String, String> lookup = LINQ.stream(Arrays.asList("a", null, "b", null)).toLookup(Function.identity());
+
+        assertTrue(lookup.contains(null));
+        assertEquals(Arrays.asList(null, null), lookup.get(null));
+    }
+
+    @Test
+    void missingKeysHaveNoElements() {
+        Lookup<Integer, Integer> lookup = LINQ.stream(List.of(1, 2)).toLookup(Function.identity());
+
+        assertFalse(lookup.contains(3));
+        assertEquals(List.of(), lookup.get(3));
+        assertTrue(LINQ.stream(List.<Integer>of()).toLookup(Function.identity()).isEmpty());
+    }
+
+    @Test
+    void groupsAreUnmodifiable() {
+        Lookup<Integer, Integer> lookup = LINQ.stream(List.of(1, 2)).toLookup(i -> i % 2);
+
+        assertThrows(UnsupportedOperationException.class, () -> lookup.get(1).add(3));
+        assertThrows(UnsupportedOperationException.class, () -> lookup.groupings().clear());
+    }
+
+    @Test
+    void partitionedLookupsHoldTheSameGroups() {
+        List<Integer> elements = IntStream.range(0, 100_000).boxed().toList();
+
+        Lookup<Integer, Integer> sequential = LINQ.stream(elements).toLookup(i -> i % 1_000, i -> i / 1_000);
+        Lookup<Integer, Integer> parallel = LINQ.stream(elements).parallel().toLookup(i -> i % 1_000, i -> i / 1_000);
+
+        assertEquals(1_000, parallel.size());
+        for (int key = 0; key < 1_000; key++) {
+            assertEquals(sequential.get(key), parallel.get(key));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.sylvona.leona.core.commons.streams;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WindowSpliteratorTest {
+
+    @Test
+    void listAndStreamWindowsMatchEveryWindowOfTheList() {
+        for (int elements = 0; elements <= 12; elements++) {
+            List<Integer> list = IntStream.range(0, elements).boxed().toList();
+            for (int size = 1; size <= 5; size++) {
+                for (int step = 1; step <= 6; step++) {
+                    for (boolean partial : new boolean[] {false, true}) {
+                        String description = "%d elements, size %d, step %d, partial %b".formatted(elements, size, step, partial);
+                        List<List<Integer>> expected = windows(list, size, step, partial);
+
+                        assertEquals(expected, collect(new ListWindowSpliterator<>(list, size, step, partial)), description);
+                        assertEquals(expected, collect(new WindowSpliterator<>(list.spliterator(), size, step, partial)), description);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void listWindowsSplitOnWindowBoundaries() {
+        List<Integer> list = IntStream.range(0, 100).boxed().toList();
+        ListWindowSpliterator<Integer> suffix = new ListWindowSpliterator<>(list, 7, 3, true);
+        assertEquals(34, suffix.estimateSize());
+
+        Spliterator<List<Integer>> prefix = suffix.trySplit();
+        assertNotNull(prefix);
+        assertEquals(34, prefix.estimateSize() + suffix.estimateSize());
+
+        List<List<Integer>> windows = collect(prefix);
+        windows.addAll(collect(suffix));
+        assertEquals(windows(list, 7, 3, true), windows);
+    }
+
+    @Test
+    void listWindowsAreUnmodifiableViews() {
+        List<Integer> list = new ArrayList<>(List.of(1, 2, 3, 4));
+        List<List<Integer>> windows = collect(new ListWindowSpliterator<>(list, 2, 2, false));
+
+        list.set(0, 10);
+        assertEquals(List.of(10, 2), windows.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> windows.get(0).add(5));
+    }
+
+    @Test
+    void slidingWindowsReadEveryElementOnce() {
+        AtomicInteger reads = new AtomicInteger();
+        Spliterator<Integer> upstream = IntStream.range(0, 100).boxed().peek(i -> reads.incrementAndGet()).spliterator();
+
+        List<List<Integer>> windows = collect(new WindowSpliterator<>(upstream, 10, 1, false));
+
+        assertEquals(91, windows.size());
+        assertEquals(100, reads.get());
+    }
+
+    @Test
+    void windowsKeepTheOrderOfTheirUpstream() {
+        List<Integer> list = List.of(1, 2, 3);
+
+        assertTrue(new WindowSpliterator<>(list.spliterator(), 2, 1, false).hasCharacteristics(Spliterator.ORDERED));
+        assertTrue(new BufferSpliterator<>(list.spliterator(), 2, Long.MAX_VALUE).hasCharacteristics(Spliterator.ORDERED));
+    }
+
+    @Test
+    void buffersHoldUpToTheMaximumSize() {
+        List<Integer> list = IntStream.range(0, 10).boxed().toList();
+
+        List<List<Integer>> batches = collect(new BufferSpliterator<>(list.spliterator(), 4, Long.MAX_VALUE));
+
+        assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9)), batches);
+    }
+
+    @Test
+    void buffersWithoutWaitHoldOneElementEach() {
+        List<List<Integer>> batches = collect(new BufferSpliterator<>(List.of(1, 2, 3).spliterator(), 10, 0));
+
+        assertEquals(List.of(List.of(1), List.of(2), List.of(3)), batches);
+    }
+
+    private static <T> List<T> collect(Spliterator<T> spliterator) {
+        List<T> elements = new ArrayList<>();
+        spliterator.forEachRemaining(elements::add);
+        return elements;
+    }
+
+    private static List<List<Integer>> windows(List<Integer> list, int size, int step, boolean partial) {
+        List<List<Integer>> windows = new ArrayList<>();
+        for (int start = 0; start < list.size(); start += step) {
+            int end = Math.min(start + size, list.size());
+            if (end - start == size || partial) windows.add(list.subList(start, end));
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,53 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveTTLTest {
+    private static final Method METHOD = ConcurrentTTLStoreTest.method("unbounded");
+
+    private final AdaptiveTTL ttl = new AdaptiveTTL(1_000, 100, 2_000);
+    private final Object source = new Object();
+
+    @Test
+    void onlyAdaptsOnceAKeyIsReloaded() {
+        assertEquals(1_000, ttl.observe(source, TTLKey.of(METHOD, 1), "value"));
+        assertEquals(1_000, ttl.observe(source, TTLKey.of(METHOD, 2), "other"));
+        assertEquals(1_000, ttl.ttlNanos(source, TTLKey.of(METHOD, 1).hashCode()));
+    }
+
+    @Test
+    void growsWhileReloadsReturnEqualValues() {
+        ttl.observe(source, TTLKey.of(METHOD, 1), List.of("a", "b"));
+        assertEquals(1_250, ttl.observe(source, TTLKey.of(METHOD, 1), List.of("a", "b")));
+
+        for (int i = 0; i < 10; i++) {
+            ttl.observe(source, TTLKey.of(METHOD, 1), new int[]{1, 2});
+        }
+        assertEquals(2_000, ttl.ttlNanos(source, TTLKey.of(METHOD, 1).hashCode()));
+    }
+
+    @Test
+    void shrinksWhenReloadsReturnDifferentValues() {
+        for (int i = 0; i < 10; i++) {
+            ttl.observe(source, TTLKey.of(METHOD, 1), i);
+        }
+        assertEquals(100, ttl.ttlNanos(source, TTLKey.of(METHOD, 1).hashCode()));
+    }
+
+    @Test
+    void everyKeyAdaptsItsOwnTTL() {
+        for (int i = 0; i < 10; i++) {
+            ttl.observe(source, TTLKey.of(METHOD, 1), "static");
+            ttl.observe(source, TTLKey.of(METHOD, 2), i);
+            ttl.observe(new Object(), TTLKey.of(METHOD, 1), i);
+        }
+        assertEquals(2_000, ttl.ttlNanos(source, TTLKey.of(METHOD, 1).hashCode()));
+        assertEquals(100, ttl.ttlNanos(source, TTLKey.of(METHOD, 2).hashCode()));
+        assertEquals(1_000, ttl.ttlNanos(source, TTLKey.of(METHOD, 3).hashCode()));
+    }
+}
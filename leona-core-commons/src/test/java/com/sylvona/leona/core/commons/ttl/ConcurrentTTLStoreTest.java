@@ -0,0 +1,418 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentTTLStoreTest {
+    private static final Method UNBOUNDED = method("unbounded");
+    private static final Method BOUNDED = method("bounded");
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final TTLExpirationWheel wheel = new TTLExpirationWheel(Duration.ofMillis(1));
+    private final Object source = new Object();
+
+    @AfterEach
+    void closeWheel() {
+        wheel.close();
+    }
+
+    @Test
+    void keepsEveryWriteUnderContention() throws Exception {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(16, ConcurrentTTLStore.UNBOUNDED, ConcurrentTTLStore.UNBOUNDED,
+                TTLWeigher.singleton(), null);
+        int threads = 16;
+        int keys = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < keys; i++) {
+                        // Every thread writes keys of its own, and hammers a few keys shared with every other thread
+                        store.storeValue(source, TTLKey.of(UNBOUNDED, thread, i), i, MINUTE);
+                        store.storeValue(source, TTLKey.of(UNBOUNDED, i % 8), thread, MINUTE);
+                        TTLValue<Object> own = store.fetchValue(source, TTLKey.of(UNBOUNDED, thread, i));
+                        if (own == null || !Integer.valueOf(i).equals(own.value())) throw new AssertionError("lost write " + i);
+                        if (i % 2 == 1) store.invalidate(source, TTLKey.of(UNBOUNDED, thread, i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * keys / 2 + 8, store.size());
+        assertEquals(threads * keys / 2 + 8, store.entryCount(UNBOUNDED));
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < keys; i++) {
+                TTLValue<Object> value = store.fetchValue(source, TTLKey.of(UNBOUNDED, t, i));
+                if (i % 2 == 1) {
+                    assertNull(value);
+                } else {
+                    assertEquals(i, value.value());
+                }
+            }
+        }
+    }
+
+    @Test
+    void writesToOtherSegmentsProceedWhileOneSegmentIsHeld() throws Exception {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(16, ConcurrentTTLStore.UNBOUNDED, ConcurrentTTLStore.UNBOUNDED,
+                TTLWeigher.singleton(), null);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        store.storeValue(source, TTLKey.of(UNBOUNDED, new HoldingArgument(held, release)), "first", MINUTE);
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            // Replacing the entry compares its keys under the segment's lock, which the argument then keeps
+            Future<?> holder = executor.submit(() -> store.storeValue(source, TTLKey.of(UNBOUNDED, new HoldingArgument(held, release)), "second", MINUTE));
+            assertTrue(held.await(10, TimeUnit.SECONDS));
+
+            int writes = 256;
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < writes; i++) {
+                int key = i;
+                writers.add(executor.submit(() -> store.storeValue(source, TTLKey.of(UNBOUNDED, key), key, MINUTE)));
+            }
+            Thread.sleep(200);
+            long completed = writers.stream().filter(Future::isDone).count();
+
+            // Only the writes hashed to the held segment, about one in sixteen, wait for it
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+            assertTrue(completed >= writes / 2, completed + " of " + writes + " writes completed while one segment was held");
+            assertEquals(writes + 1, store.size());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void comparesInvokingObjectsByIdentity() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+        TTLKey key = TTLKey.of(UNBOUNDED, 1);
+        store.storeValue(List.of(1), key, "first", MINUTE);
+
+        assertNull(store.fetchValue(List.of(1), key));
+    }
+
+    @Test
+    void fetchesInvocationsByTheirArgumentsWithoutAKey() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+        Object[][] invocations = {{}, {1}, {null}, {new int[]{1, 2}}, {"a", 1}, {"a", null, new String[]{"b"}}, {new Object[]{1, "c"}, 2L}};
+        for (Object[] arguments : invocations) {
+            store.storeValue(source, TTLKey.of(UNBOUNDED, arguments.clone()), arguments.length, MINUTE);
+            TTLValue<Object> value = store.fetchValue(source, UNBOUNDED, arguments, new int[0]);
+            assertNotNull(value, Arrays.deepToString(arguments));
+            assertEquals(arguments.length, value.value());
+        }
+
+        store.storeValue(source, TTLKey.of(UNBOUNDED, new Object[]{"a", "stored", 2}, new int[]{2, 0}), "selected", MINUTE);
+        assertEquals("selected", store.fetchValue(source, UNBOUNDED, new Object[]{"a", "ignored", 2}, new int[]{2, 0}).value());
+        assertNull(store.fetchValue(source, UNBOUNDED, new Object[]{"a", "ignored", 2}, new int[]{0, 2}));
+        assertNull(store.fetchValue(source, UNBOUNDED, new Object[]{"a", 2, 3}, new int[0]));
+        assertNull(store.fetchValue(source, BOUNDED, new Object[]{"a", 1}, new int[0]));
+    }
+
+    @Test
+    void invalidatesByKeySourceMethodAndTag() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+        Object otherSource = new Object();
+        Method tagged = method("tagged");
+        for (int i = 0; i < 10; i++) {
+            store.storeValue(source, TTLKey.of(UNBOUNDED, i), i, MINUTE);
+            store.storeValue(otherSource, TTLKey.of(UNBOUNDED, i), i, MINUTE);
+            store.storeValue(source, TTLKey.of(tagged, i), i, MINUTE);
+        }
+
+        assertEquals(2, store.invalidateKey(TTLKey.of(UNBOUNDED, 0)));
+        assertEquals(9, store.invalidateMethod(otherSource, UNBOUNDED));
+        assertEquals(10, store.invalidateTag("tagged"));
+        assertEquals(0, store.invalidateTag("unknown"));
+        assertEquals(9, store.invalidateSource(source));
+        assertEquals(0, store.size());
+        assertEquals(0, store.entryCount(UNBOUNDED));
+        assertEquals(0, store.estimatedBytes(tagged));
+    }
+
+    @Test
+    void removesOnlyTheExpectedValue() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+        TTLKey key = TTLKey.of(UNBOUNDED, 1);
+        Object value = new Object();
+        store.storeValue(source, key, value, MINUTE);
+
+        assertFalse(store.removeValue(source, key, new Object()));
+        assertTrue(store.removeValue(source, key, value));
+        assertNull(store.fetchValue(source, key));
+    }
+
+    @Test
+    void clockGivesReferencedEntriesASecondChance() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+        for (int i = 0; i < 4; i++) {
+            store.storeValue(source, TTLKey.of(BOUNDED, i), i, MINUTE);
+        }
+        store.fetchValue(source, TTLKey.of(BOUNDED, 0));
+
+        store.storeValue(source, TTLKey.of(BOUNDED, 4), 4, MINUTE);
+        assertNotNull(store.peekValue(source, TTLKey.of(BOUNDED, 0)));
+        assertNull(store.peekValue(source, TTLKey.of(BOUNDED, 1)));
+
+        // The second chance is spent, the entry is evicted once the sweep comes round again unless it is read meanwhile
+        for (int i = 5; i < 8; i++) {
+            store.storeValue(source, TTLKey.of(BOUNDED, i), i, MINUTE);
+        }
+        assertNotNull(store.peekValue(source, TTLKey.of(BOUNDED, 0)));
+        store.storeValue(source, TTLKey.of(BOUNDED, 8), 8, MINUTE);
+        assertNull(store.peekValue(source, TTLKey.of(BOUNDED, 0)));
+        assertEquals(5, store.evictionCount());
+    }
+
+    @Test
+    void clockEvictsExpiredEntriesFirst() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+        for (int i = 0; i < 4; i++) {
+            store.storeValue(source, TTLKey.of(BOUNDED, i), i, i == 2 ? 0 : MINUTE);
+            store.fetchValue(source, TTLKey.of(BOUNDED, i));
+        }
+
+        store.storeValue(source, TTLKey.of(BOUNDED, 4), 4, MINUTE);
+        assertNull(store.peekValue(source, TTLKey.of(BOUNDED, 2)));
+        assertEquals(4, store.entryCount(BOUNDED));
+    }
+
+    @Test
+    void boundsMethodsWithTheirOwnBoundSeparately() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(4, 10, ConcurrentTTLStore.UNBOUNDED, TTLWeigher.singleton(), null);
+        for (int i = 0; i < 100; i++) {
+            store.storeValue(source, TTLKey.of(UNBOUNDED, i), i, MINUTE);
+            store.storeValue(source, TTLKey.of(BOUNDED, i), i, MINUTE);
+        }
+
+        assertEquals(10, store.entryCount(UNBOUNDED));
+        assertEquals(4, store.entryCount(BOUNDED));
+        assertEquals(186, store.evictionCount());
+    }
+
+    @Test
+    void boundsTheTotalWeight() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(4, ConcurrentTTLStore.UNBOUNDED, 100,
+                (key, value) -> ((String) value).length(), null);
+        for (int i = 0; i < 100; i++) {
+            store.storeValue(source, TTLKey.of(UNBOUNDED, i), "x".repeat(30), MINUTE);
+        }
+
+        assertEquals(90, store.weight(UNBOUNDED));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void reclaimsEntriesOfCollectedInvokingObjects() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+        store.storeValue(new Object(), TTLKey.of(UNBOUNDED, 1), "orphan", MINUTE);
+
+        for (int i = 0; i < 50 && store.size() > 0; i++) {
+            System.gc();
+            store.cleanUp();
+        }
+        assertEquals(0, store.size());
+        assertEquals(0, store.entryCount(UNBOUNDED));
+    }
+
+    @Test
+    void expiresEntriesOnTheWheel() throws InterruptedException {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(4, ConcurrentTTLStore.UNBOUNDED, ConcurrentTTLStore.UNBOUNDED,
+                TTLWeigher.singleton(), wheel);
+        store.storeValue(source, TTLKey.of(UNBOUNDED, 1), "short", TimeUnit.MILLISECONDS.toNanos(5));
+        store.storeValue(source, TTLKey.of(UNBOUNDED, 2), "long", MINUTE);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (store.size() > 1 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(5);
+        }
+        assertNull(store.peekValue(source, TTLKey.of(UNBOUNDED, 1)));
+        assertNotNull(store.peekValue(source, TTLKey.of(UNBOUNDED, 2)));
+    }
+
+    @Test
+    void keepsEntriesWithUnboundedLifetimesOnTheWheel() throws InterruptedException {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(4, ConcurrentTTLStore.UNBOUNDED, ConcurrentTTLStore.UNBOUNDED,
+                TTLWeigher.singleton(), wheel);
+        // Deadlines past Long.MAX_VALUE would wrap around and expire on the next tick
+        store.storeValue(source, TTLKey.of(method("forever"), 1), "stale forever", MINUTE);
+        store.storeValue(source, TTLKey.of(UNBOUNDED, 2), "forever", Long.MAX_VALUE);
+        store.storeValue(source, TTLKey.of(UNBOUNDED, 3), "short", TimeUnit.MILLISECONDS.toNanos(5));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (store.size() > 2 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(20);
+        assertNotNull(store.peekValue(source, TTLKey.of(method("forever"), 1)));
+        assertNotNull(store.peekValue(source, TTLKey.of(UNBOUNDED, 2)));
+        assertFalse(store.peekValue(source, TTLKey.of(UNBOUNDED, 2)).isExpired());
+        assertNull(store.peekValue(source, TTLKey.of(UNBOUNDED, 3)));
+    }
+
+    @Test
+    void replacedValuesAreNotRetainedByTheWheel() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(4, ConcurrentTTLStore.UNBOUNDED, ConcurrentTTLStore.UNBOUNDED,
+                TTLWeigher.singleton(), wheel);
+        TTLKey key = TTLKey.of(UNBOUNDED, 1);
+
+        WeakReference<Object> replaced = storeUnreachable(store, key);
+        store.storeValue(source, key, new Object(), MINUTE);
+
+        assertCollected(replaced);
+    }
+
+    @Test
+    void invalidatedAndEvictedValuesAreNotRetained() {
+        // Bounded to 4 entries by its annotation, with a CLOCK queue of its own
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(4, ConcurrentTTLStore.UNBOUNDED, ConcurrentTTLStore.UNBOUNDED,
+                TTLWeigher.singleton(), wheel);
+
+        WeakReference<Object> invalidated = storeUnreachable(store, TTLKey.of(BOUNDED, 0));
+        store.invalidate(source, TTLKey.of(BOUNDED, 0));
+        WeakReference<Object> evicted = storeUnreachable(store, TTLKey.of(BOUNDED, 1));
+        for (int i = 2; i < 100; i++) {
+            store.storeValue(source, TTLKey.of(BOUNDED, i), new Object(), MINUTE);
+        }
+
+        assertNull(store.fetchValue(source, TTLKey.of(BOUNDED, 1)));
+        assertCollected(invalidated);
+        assertCollected(evicted);
+    }
+
+    @Test
+    void replacingAHotKeyUnderItsBoundDoesNotRetainOldValues() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>(4, ConcurrentTTLStore.UNBOUNDED, ConcurrentTTLStore.UNBOUNDED,
+                TTLWeigher.singleton(), null);
+        TTLKey key = TTLKey.of(BOUNDED, 1);
+
+        WeakReference<Object> first = storeUnreachable(store, key);
+        for (int i = 0; i < 1_000; i++) {
+            store.storeValue(source, key, new Object(), MINUTE);
+        }
+
+        assertEquals(1, store.size());
+        assertEquals(0, store.evictionCount());
+        assertCollected(first);
+    }
+
+    @Test
+    void retiredEntriesAreNoLongerCurrent() {
+        ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+        TTLKey key = TTLKey.of(BOUNDED, 1);
+
+        store.storeValue(source, key, "first", MINUTE);
+        TTLValue<Object> first = store.fetchValue(source, key);
+        assertTrue(first.isCurrent());
+
+        store.storeValue(source, key, "second", MINUTE);
+        assertFalse(first.isCurrent());
+        assertSame("first", first.value());
+        assertEquals("second", store.fetchValue(source, key).value());
+    }
+
+    private WeakReference<Object> storeUnreachable(ConcurrentTTLStore<Object> store, TTLKey key) {
+        Object value = new Object();
+        store.storeValue(source, key, value, MINUTE);
+        return new WeakReference<>(value);
+    }
+
+    static void assertCollected(WeakReference<?> reference) {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        assertNull(reference.get(), "value is still reachable");
+    }
+
+    /**
+     * A key argument whose comparison blocks until released, holding the lock of the segment comparing it.
+     */
+    private record HoldingArgument(CountDownLatch held, CountDownLatch release) {
+        @Override
+        public boolean equals(Object o) {
+            held.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS) && o instanceof HoldingArgument;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    static Method method(String name) {
+        try {
+            return ConcurrentTTLStoreTest.class.getDeclaredMethod(name);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TTLMethod(60)
+    private Object unbounded() {
+        return null;
+    }
+
+    @TTLMethod(value = 60, tags = "tagged")
+    private Object tagged() {
+        return null;
+    }
+
+    @TTLMethod(value = 60, maximumStaleness = Long.MAX_VALUE)
+    private Object forever() {
+        return null;
+    }
+
+    @TTLMethod(value = 60, maximumSize = 4)
+    private Object bounded() {
+        return null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NearCacheTTLStoreTest {
+    private static final Method BOUNDED = ConcurrentTTLStoreTest.method("bounded");
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentTTLStore<Object> delegate = new ConcurrentTTLStore<>();
+    private final NearCacheTTLStore<Object> store = new NearCacheTTLStore<>(delegate, 64, null);
+    private final Object source = new Object();
+
+    @Test
+    void servesRepeatedFetchesFromTheSameValue() {
+        TTLKey key = TTLKey.of(BOUNDED, 1);
+        store.storeValue(source, key, "value", MINUTE);
+
+        TTLValue<Object> first = store.fetchValue(source, key);
+        assertSame(first, store.fetchValue(source, key));
+    }
+
+    @Test
+    void neverServesReplacedOrInvalidatedValues() {
+        TTLKey key = TTLKey.of(BOUNDED, 1);
+        store.storeValue(source, key, "first", MINUTE);
+        assertEquals("first", store.fetchValue(source, key).value());
+
+        store.storeValue(source, key, "second", MINUTE);
+        assertEquals("second", store.fetchValue(source, key).value());
+
+        store.invalidate(source, key);
+        assertNull(store.fetchValue(source, key));
+    }
+
+    @Test
+    void nearHitsKeepTheSharedEntryFromBeingEvicted() {
+        // The method is bounded to 4 entries, the hot key must survive a stream of colder ones
+        TTLKey hot = TTLKey.of(BOUNDED, -1);
+        store.storeValue(source, hot, "hot", MINUTE);
+
+        for (int i = 0; i < 100; i++) {
+            store.storeValue(source, TTLKey.of(BOUNDED, i), i, MINUTE);
+            assertNotNull(store.fetchValue(source, hot), "hot key evicted after " + i + " insertions");
+        }
+        assertEquals(4, delegate.entryCount(BOUNDED));
+        assertEquals(97, store.evictionCount());
+    }
+
+    @Test
+    void refusesStoresWhichDoNotTrackCurrentValues() {
+        assertThrows(IllegalArgumentException.class, () -> new NearCacheTTLStore<>(new CdsoTTLStore<>(), 64, null));
+        assertEquals(-1, new CdsoTTLStore<>().evictionCount());
+    }
+}
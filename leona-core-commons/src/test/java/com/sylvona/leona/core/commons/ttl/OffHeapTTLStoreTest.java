@@ -0,0 +1,123 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapTTLStoreTest {
+    private static final Method METHOD = ConcurrentTTLStoreTest.method("unbounded");
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final Object source = new Object();
+
+    @Test
+    void decodesACopyOfEveryStoredValue() {
+        for (boolean compression : new boolean[]{false, true}) {
+            OffHeapTTLStore<Object> store = store(ConcurrentTTLStore.UNBOUNDED, compression);
+            List<String> value = List.of("a".repeat(1_000), "b");
+            store.storeValue(source, TTLKey.of(METHOD, 1), value, MINUTE);
+
+            Object fetched = store.fetchValue(source, TTLKey.of(METHOD, 1)).value();
+            assertEquals(value, fetched);
+            assertNotSame(value, fetched);
+            assertTrue(store.removeValue(source, TTLKey.of(METHOD, 1), List.of("a".repeat(1_000), "b")));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    void keepsInFlightFuturesOnTheHeap() {
+        OffHeapTTLStore<Object> store = store(ConcurrentTTLStore.UNBOUNDED, false);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        store.storeValue(source, TTLKey.of(METHOD, 1), future, MINUTE);
+
+        // Concurrent callers must share the very same future
+        assertSame(future, store.fetchValue(source, TTLKey.of(METHOD, 1)).value());
+        assertFalse(store.removeValue(source, TTLKey.of(METHOD, 1), new CompletableFuture<>()));
+        assertTrue(store.removeValue(source, TTLKey.of(METHOD, 1), future));
+    }
+
+    @Test
+    void storesCompletedFuturesByTheirResult() {
+        OffHeapTTLStore<Object> store = store(ConcurrentTTLStore.UNBOUNDED, false);
+        store.storeValue(source, TTLKey.of(METHOD, 1), CompletableFuture.completedFuture("value"), MINUTE);
+
+        Object fetched = store.fetchValue(source, TTLKey.of(METHOD, 1)).value();
+        assertTrue(fetched instanceof CompletableFuture<?> future && future.isDone() && "value".equals(future.join()));
+    }
+
+    @Test
+    void cachesUnencodableValuesOnTheHeap() {
+        OffHeapTTLStore<Object> store = store(ConcurrentTTLStore.UNBOUNDED, false);
+        Object unserializable = new Object();
+        store.storeValue(source, TTLKey.of(METHOD, 1), unserializable, MINUTE);
+        store.storeValue(source, TTLKey.of(METHOD, 2), new Object(), MINUTE);
+
+        assertSame(unserializable, store.fetchValue(source, TTLKey.of(METHOD, 1)).value());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void evictsToStayWithinItsMemoryBudget() {
+        OffHeapTTLStore<Object> store = store(10_000, false);
+        for (int i = 0; i < 100; i++) {
+            store.storeValue(source, TTLKey.of(METHOD, i), "v".repeat(1_000) + i, MINUTE);
+        }
+
+        assertTrue(store.size() < 10, "size " + store.size());
+        assertTrue(store.estimatedBytes(METHOD) > 0);
+    }
+
+    @Test
+    void reusesThePagesOfRetiredValuesWithinItsMemoryBudget() {
+        OffHeapTTLStore<Object> store = store(10_000, false);
+        for (int i = 0; i < 1_000; i++) {
+            store.storeValue(source, TTLKey.of(METHOD, i % 50), "v".repeat(1_500) + i, MINUTE);
+        }
+
+        assertTrue(store.reservedBytes() <= 10 * OffHeapArena.PAGE_SIZE, "reserved " + store.reservedBytes());
+        int live = 0;
+        for (int i = 950; i < 1_000; i++) {
+            TTLValue<Object> value = store.fetchValue(source, TTLKey.of(METHOD, i % 50));
+            if (value == null) continue;
+            assertEquals("v".repeat(1_500) + i, value.value());
+            live++;
+        }
+        assertTrue(live > 0);
+    }
+
+    @Test
+    void valuesWhosePagesWereReusedAreNoLongerRead() {
+        OffHeapArena arena = new OffHeapArena(2 * OffHeapArena.PAGE_SIZE);
+        byte[] first = new byte[1_500];
+        byte[] second = new byte[1_500];
+        Arrays.fill(first, (byte) 1);
+        Arrays.fill(second, (byte) 2);
+
+        OffHeapArena.Allocation allocation = arena.allocate(first, first.length);
+        assertArrayEquals(first, arena.read(allocation));
+        assertNull(arena.allocate(second, second.length));
+
+        arena.free(allocation);
+        OffHeapArena.Allocation reused = arena.allocate(second, second.length);
+        assertNull(arena.read(allocation));
+        assertArrayEquals(second, arena.read(reused));
+        assertEquals(2 * OffHeapArena.PAGE_SIZE, arena.reservedBytes());
+    }
+
+    private static OffHeapTTLStore<Object> store(long memoryBudget, boolean compression) {
+        return new OffHeapTTLStore<>(4, ConcurrentTTLStore.UNBOUNDED, memoryBudget, new JavaSerializationTTLCodec(), compression, null);
+    }
+}
@@ -0,0 +1,168 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PersistentTTLStoreTest {
+    private static final Method UNBOUNDED = ConcurrentTTLStoreTest.method("unbounded");
+    private static final Method BOUNDED = ConcurrentTTLStoreTest.method("bounded");
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+    // Entries cached for a class, as by class scoped methods, are the ones persisted
+    private static final Object SOURCE = PersistentTTLStoreTest.class;
+
+    private final Path file;
+
+    PersistentTTLStoreTest() throws IOException {
+        file = Files.createTempFile("leona-ttl", ".snapshot");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    void deleteSnapshot() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void restoresClassScopedEntries() {
+        PersistentTTLStore<Object> store = store(new ConcurrentTTLStore<>());
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, 1), "one", MINUTE);
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, 2), "two", MINUTE);
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, 3), "expired", 0);
+        store.close();
+
+        PersistentTTLStore<Object> restored = store(new ConcurrentTTLStore<>());
+        assertEquals("one", restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 1)).value());
+        assertEquals("two", restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 2)).value());
+        assertNull(restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 3)));
+        restored.close();
+    }
+
+    @Test
+    void neverPersistsEntriesCachedForASingleObject() {
+        PersistentTTLStore<Object> store = store(new ConcurrentTTLStore<>());
+        store.storeValue(new Service(), TTLKey.of(UNBOUNDED, 1), "instance", MINUTE);
+        store.close();
+
+        PersistentTTLStore<Object> restored = store(new ConcurrentTTLStore<>());
+        assertNull(restored.fetchValue(new Service(), TTLKey.of(UNBOUNDED, 1)));
+        assertNull(restored.fetchValue(Service.class, TTLKey.of(UNBOUNDED, 1)));
+        restored.close();
+    }
+
+    @Test
+    void restoresSnapshotsSpanningSeveralMappedRegions() {
+        PersistentTTLStore<Object> store = store(new ConcurrentTTLStore<>());
+        for (int i = 0; i < 2_000; i++) {
+            store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, i), new byte[i], MINUTE);
+        }
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, -1), new byte[5 << 20], MINUTE);
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, -2), new Object(), MINUTE);
+        store.close();
+
+        PersistentTTLStore<Object> restored = store(new ConcurrentTTLStore<>());
+        for (int i = 0; i < 2_000; i++) {
+            assertEquals(i, ((byte[]) restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, i)).value()).length);
+        }
+        assertEquals(5 << 20, ((byte[]) restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, -1)).value()).length);
+        assertNull(restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, -2)));
+        restored.close();
+    }
+
+    @Test
+    void decodesRestoredValuesThroughTheDeserializationFilter() {
+        PersistentTTLStore<Object> store = store(new ConcurrentTTLStore<>());
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, 1), new ArrayList<>(List.of("one")), MINUTE);
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, 2), nested(10), MINUTE);
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, 3), "three", MINUTE);
+        store.close();
+
+        PersistentTTLStore<Object> restored = new PersistentTTLStore<>(new ConcurrentTTLStore<>(),
+                new JavaSerializationTTLCodec("maxdepth=5;!java.util.ArrayList"), file, Duration.ofHours(1));
+        assertNull(restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 1)));
+        assertNull(restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 2)));
+        assertEquals("three", restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 3)).value());
+        restored.close();
+    }
+
+    @Test
+    void discardsSnapshotsWithCorruptedLengths() throws IOException {
+        for (int length : new int[]{-1, Integer.MAX_VALUE, 1 << 30}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(0x4C54544C);
+            output.writeInt(1);
+            output.writeInt(length);
+            output.write(new byte[16]);
+            Files.write(file, bytes.toByteArray());
+
+            PersistentTTLStore<Object> store = store(new ConcurrentTTLStore<>());
+            assertNull(store.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 1)));
+            store.close();
+        }
+    }
+
+    @Test
+    void discardsTruncatedSnapshotsAsAWhole() throws IOException {
+        PersistentTTLStore<Object> store = store(new ConcurrentTTLStore<>());
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, 1), "one", MINUTE);
+        store.storeValue(SOURCE, TTLKey.of(UNBOUNDED, 2), "two", MINUTE);
+        store.close();
+
+        byte[] snapshot = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(snapshot, snapshot.length - 3));
+
+        PersistentTTLStore<Object> restored = store(new ConcurrentTTLStore<>());
+        assertNull(restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 1)));
+        assertNull(restored.fetchValue(SOURCE, TTLKey.of(UNBOUNDED, 2)));
+        restored.close();
+    }
+
+    @Test
+    void snapshotsDoNotMarkEntriesAsReferenced() throws IOException {
+        // The method is bounded to 4 entries, only the second of which has been read
+        ConcurrentTTLStore<Object> delegate = new ConcurrentTTLStore<>();
+        PersistentTTLStore<Object> store = store(delegate);
+        for (int i = 0; i < 4; i++) {
+            store.storeValue(SOURCE, TTLKey.of(BOUNDED, i), i, MINUTE);
+        }
+        store.fetchValue(SOURCE, TTLKey.of(BOUNDED, 1));
+
+        store.snapshot();
+        store.storeValue(SOURCE, TTLKey.of(BOUNDED, 4), 4, MINUTE);
+        store.storeValue(SOURCE, TTLKey.of(BOUNDED, 5), 5, MINUTE);
+
+        assertNotNull(delegate.peekValue(SOURCE, TTLKey.of(BOUNDED, 1)));
+        assertNull(delegate.peekValue(SOURCE, TTLKey.of(BOUNDED, 0)));
+        assertNull(delegate.peekValue(SOURCE, TTLKey.of(BOUNDED, 2)));
+        store.close();
+    }
+
+    static class Service {
+    }
+
+    private static Object[] nested(int depth) {
+        Object[] value = new Object[0];
+        for (int i = 0; i < depth; i++) value = new Object[]{value};
+        return value;
+    }
+
+    private PersistentTTLStore<Object> store(TTLStore<Object> delegate) {
+        return new PersistentTTLStore<>(delegate, new JavaSerializationTTLCodec(), file, Duration.ofHours(1));
+    }
+}
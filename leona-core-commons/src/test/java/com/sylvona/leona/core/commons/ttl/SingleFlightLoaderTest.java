@@ -0,0 +1,187 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightLoaderTest {
+    private static final Method METHOD = ConcurrentTTLStoreTest.method("unbounded");
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final SingleFlightLoader loader = new SingleFlightLoader(2);
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+    private final Object source = new Object();
+
+    @AfterEach
+    void shutDown() {
+        loader.close();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareASingleLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Object>> results = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> {
+                try {
+                    return loader.load(source, TTLKey.of(METHOD, 1), TIMEOUT, () -> {
+                        loads.incrementAndGet();
+                        release.await();
+                        return "loaded";
+                    });
+                } catch (Throwable e) {
+                    throw new AssertionError(e);
+                }
+            }));
+        }
+        awaitDeduplicated(7);
+        release.countDown();
+
+        for (Future<Object> result : results) {
+            assertEquals("loaded", result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, loader.getInFlightLoads());
+    }
+
+    @Test
+    void differentKeysAndSourcesLoadIndependently() throws Throwable {
+        AtomicInteger loads = new AtomicInteger();
+        loader.load(source, TTLKey.of(METHOD, 1), TIMEOUT, loads::incrementAndGet);
+        loader.load(source, TTLKey.of(METHOD, 2), TIMEOUT, loads::incrementAndGet);
+        loader.load(new Object(), TTLKey.of(METHOD, 1), TIMEOUT, loads::incrementAndGet);
+
+        assertEquals(3, loads.get());
+        assertEquals(0, loader.getDeduplicatedLoads());
+    }
+
+    @Test
+    void sharesTheLeadersFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("down");
+        Future<Object> leader = callers.submit(() -> {
+            try {
+                return loader.load(source, TTLKey.of(METHOD, 1), TIMEOUT, () -> {
+                    release.await();
+                    throw failure;
+                });
+            } catch (Throwable e) {
+                return e;
+            }
+        });
+        awaitInFlight();
+
+        Future<Object> follower = callers.submit(() -> {
+            try {
+                return loader.load(source, TTLKey.of(METHOD, 1), TIMEOUT, () -> "never invoked");
+            } catch (Throwable e) {
+                return e;
+            }
+        });
+        awaitDeduplicated(1);
+        release.countDown();
+
+        assertSame(failure, leader.get(10, TimeUnit.SECONDS));
+        assertSame(failure, follower.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void joiningCallersGiveUpAfterTheirTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        callers.submit(() -> {
+            try {
+                return loader.load(source, TTLKey.of(METHOD, 1), TIMEOUT, () -> release.await(10, TimeUnit.SECONDS));
+            } catch (Throwable e) {
+                throw new AssertionError(e);
+            }
+        });
+        awaitInFlight();
+
+        assertThrows(TTLLoadTimeoutException.class,
+                () -> loader.load(source, TTLKey.of(METHOD, 1), Duration.ofMillis(20), () -> "never invoked"));
+        release.countDown();
+    }
+
+    @Test
+    void refreshesOnlyOnceWhileInFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        SingleFlightLoader.Loader refresh = () -> {
+            loads.incrementAndGet();
+            release.await();
+            return "refreshed";
+        };
+
+        assertTrue(loader.refresh(source, TTLKey.of(METHOD, 1), refresh));
+        assertFalse(loader.refresh(source, TTLKey.of(METHOD, 1), refresh));
+        // Callers needing the value join the refresh
+        Future<Object> joined = callers.submit(() -> {
+            try {
+                return loader.load(source, TTLKey.of(METHOD, 1), TIMEOUT, () -> "never invoked");
+            } catch (Throwable e) {
+                throw new AssertionError(e);
+            }
+        });
+        awaitDeduplicated(1);
+        release.countDown();
+
+        assertEquals("refreshed", joined.get(10, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, loader.getBackgroundRefreshes());
+    }
+
+    @Test
+    void asyncRefreshesStayInFlightUntilTheirStageCompletes() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        assertTrue(loader.refresh(source, TTLKey.of(METHOD, 1), () -> pending));
+
+        Thread.sleep(20);
+        assertFalse(loader.refresh(source, TTLKey.of(METHOD, 1), () -> "never invoked"));
+
+        pending.complete("done");
+        awaitIdle();
+        assertTrue(loader.refresh(source, TTLKey.of(METHOD, 1), () -> "again"));
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loader.getInFlightLoads() == 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loader.getInFlightLoads() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitDeduplicated(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loader.getDeduplicatedLoads() < count && System.nanoTime() - deadline < 0) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, loader.getDeduplicatedLoads());
+    }
+}
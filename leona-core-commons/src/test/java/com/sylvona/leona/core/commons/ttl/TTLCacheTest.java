@@ -0,0 +1,44 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class TTLCacheTest {
+    private final ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+    private final SingleFlightLoader singleFlightLoader = new SingleFlightLoader(4);
+    private final TTLMetrics metrics = new TTLMetrics();
+
+    @AfterEach
+    void closeLoader() {
+        singleFlightLoader.close();
+    }
+
+    @Test
+    void everyCacheHasItsOwnMetrics() {
+        TTLCache users = cache("users");
+        TTLCache orders = cache("orders");
+        users.get(1, () -> "user");
+        users.get(1, () -> "user");
+        orders.get(1, () -> "order");
+
+        TTLMethodMetrics userMetrics = metrics.forCache("users");
+        TTLMethodMetrics orderMetrics = metrics.forCache("orders");
+        assertNotSame(userMetrics, orderMetrics);
+        assertEquals("users", userMetrics.getCacheName());
+        assertEquals(1, userMetrics.getHits());
+        assertEquals(1, userMetrics.getMisses());
+        assertEquals(0, orderMetrics.getHits());
+        assertEquals(1, orderMetrics.getMisses());
+        assertEquals(2, metrics.getCaches().size());
+        assertEquals(0, metrics.getMethods().size());
+    }
+
+    private TTLCache cache(String name) {
+        return new TTLCache(name, store, singleFlightLoader, metrics, Duration.ofMinutes(1), Duration.ofSeconds(5), false);
+    }
+}
@@ -0,0 +1,89 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TTLEvictAspectTest {
+    private static final AtomicInteger staticCalls = new AtomicInteger();
+
+    private final SingleFlightLoader singleFlightLoader = new SingleFlightLoader(4);
+    private final ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>() {
+        @Override
+        public long invalidateSource(Object source) {
+            throw new AssertionError("Evictions go through the method indices rather than scanning the store");
+        }
+    };
+    private final TTLMethodAspect methodAspect = new TTLMethodAspect(store, singleFlightLoader, new TTLMetrics());
+    private final TTLEvictAspect evictAspect = new TTLEvictAspect(store);
+
+    @AfterEach
+    void closeLoader() {
+        singleFlightLoader.close();
+    }
+
+    @Test
+    void staticMethodsEvictTheMethodsOfTheirOwnClass() throws Throwable {
+        int before = staticCalls.get();
+        methodAspect.doMarkedMethodInterception(TestJoinPoints.ofStatic(Service.class, "staticValue"));
+        methodAspect.doMarkedMethodInterception(TestJoinPoints.ofStatic(Service.class, "staticValue"));
+        assertEquals(before + 1, staticCalls.get());
+
+        evictAspect.doMarkedMethodInterception(TestJoinPoints.ofStatic(Service.class, "staticUpdate"));
+        methodAspect.doMarkedMethodInterception(TestJoinPoints.ofStatic(Service.class, "staticValue"));
+        assertEquals(before + 2, staticCalls.get());
+    }
+
+    @Test
+    void bareEvictionsInvalidateTheInstanceScopedValuesOfTheInvokingObject() throws Throwable {
+        Service service = new Service();
+        Service other = new Service();
+        call(service, "value");
+        call(service, "shared");
+        call(other, "value");
+
+        evictAspect.doMarkedMethodInterception(TestJoinPoints.of(service, "update"));
+        call(service, "value");
+        call(service, "shared");
+        call(other, "value");
+        assertEquals(2, service.calls.get());
+        assertEquals(1, service.sharedCalls.get());
+        assertEquals(1, other.calls.get());
+    }
+
+    private void call(Service service, String method) throws Throwable {
+        methodAspect.doMarkedMethodInterception(TestJoinPoints.of(service, method));
+    }
+
+    static class Service {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger sharedCalls = new AtomicInteger();
+
+        @TTLMethod(60)
+        String value() {
+            return "value " + calls.incrementAndGet();
+        }
+
+        @TTLMethod(value = 60, scope = TTLScope.CLASS)
+        String shared() {
+            return "shared " + sharedCalls.incrementAndGet();
+        }
+
+        @TTLEvict
+        void update() {
+        }
+
+        @TTLMethod(60)
+        static String staticValue() {
+            staticCalls.incrementAndGet();
+            return "static";
+        }
+
+        @TTLEvict(methods = "staticValue")
+        static void staticUpdate() {
+        }
+    }
+}
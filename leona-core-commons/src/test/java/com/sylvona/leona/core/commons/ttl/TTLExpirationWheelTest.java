@@ -0,0 +1,73 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TTLExpirationWheelTest {
+    private final TTLExpirationWheel wheel = new TTLExpirationWheel(Duration.ofMillis(1));
+
+    @AfterEach
+    void closeWheel() {
+        wheel.close();
+    }
+
+    @Test
+    void expiresEntriesOnceTheirDeadlinePasses() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(3);
+        long now = System.nanoTime();
+        wheel.schedule(() -> { expired.countDown(); return true; }, now + TimeUnit.MILLISECONDS.toNanos(5));
+        wheel.schedule(() -> { expired.countDown(); return true; }, now + TimeUnit.MILLISECONDS.toNanos(100));
+        // Beyond the first level, the entry cascades down before expiring
+        wheel.schedule(() -> { expired.countDown(); return true; }, now + TimeUnit.MILLISECONDS.toNanos(300));
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - now >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test
+    void doesNotExpireEntriesBeforeTheirDeadline() throws InterruptedException {
+        AtomicInteger expirations = new AtomicInteger();
+        wheel.schedule(() -> expirations.incrementAndGet() > 0, System.nanoTime() + TimeUnit.SECONDS.toNanos(30));
+
+        Thread.sleep(50);
+        assertEquals(0, expirations.get());
+    }
+
+    @Test
+    void cancelledTimeoutsNeverExpire() throws InterruptedException {
+        AtomicInteger expirations = new AtomicInteger();
+        CountDownLatch sentinel = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+
+        TTLExpirationWheel.Timeout timeout = wheel.schedule(() -> expirations.incrementAndGet() > 0, deadline);
+        wheel.schedule(() -> { sentinel.countDown(); return true; }, deadline);
+        timeout.cancel();
+
+        assertTrue(timeout.isCancelled());
+        assertTrue(sentinel.await(5, TimeUnit.SECONDS));
+        assertEquals(0, expirations.get());
+    }
+
+    @Test
+    void countsReclaimedEntries() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(2);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5);
+        wheel.schedule(() -> { expired.countDown(); return true; }, deadline);
+        // Entries already removed from their store are not reclaimed by the wheel
+        wheel.schedule(() -> { expired.countDown(); return false; }, deadline);
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        assertEquals(1, wheel.getTotalReclaimed());
+        assertFalse(wheel.getMaximumSweepLatency().isNegative());
+    }
+}
@@ -0,0 +1,26 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TTLKeyTest {
+    private static final Method METHOD = ConcurrentTTLStoreTest.method("unbounded");
+
+    @Test
+    void keysDoNotKeepTheCallersArguments() {
+        Object[] keyArguments = {"a", 1};
+        Object[] invocationArguments = {"a", 1};
+        TTLKey key = TTLKey.of(METHOD, keyArguments);
+        TTLKey invocationKey = TTLKey.of(METHOD, invocationArguments, new int[0]);
+
+        // Callers such as join points may reuse their argument arrays once the key is built
+        keyArguments[1] = 2;
+        invocationArguments[1] = 2;
+        assertEquals(TTLKey.of(METHOD, "a", 1), key);
+        assertEquals(TTLKey.of(METHOD, "a", 1).hashCode(), key.hashCode());
+        assertEquals(TTLKey.of(METHOD, "a", 1), invocationKey);
+    }
+}
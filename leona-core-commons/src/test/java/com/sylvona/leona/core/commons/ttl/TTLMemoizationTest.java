@@ -0,0 +1,135 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TTLMemoizationTest {
+    private static final Method METHOD = ConcurrentTTLStoreTest.method("unbounded");
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void memoizesWithinAnOperationOnly() {
+        assertFalse(TTLMemoization.isActive());
+        try (TTLMemoization.Scope outer = TTLMemoization.open()) {
+            TTLMemoizationArena arena = TTLMemoization.currentArena();
+            arena.put(this, TTLKey.of(METHOD, 1), null);
+
+            try (TTLMemoization.Scope nested = TTLMemoization.open()) {
+                assertSame(arena, TTLMemoization.currentArena());
+            }
+            // Closing a nested operation keeps the outer arena
+            assertNull(TTLMemoizationArena.unwrap(arena.get(this, TTLKey.of(METHOD, 1))));
+            assertNotNull(arena.get(this, TTLKey.of(METHOD, 1)));
+        }
+        assertFalse(TTLMemoization.isActive());
+    }
+
+    @Test
+    void threadsSharingARequestShareOneArena() throws Exception {
+        RequestAttributes attributes = new MapRequestAttributes();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<TTLMemoizationArena> arenas = ConcurrentHashMap.newKeySet();
+
+        try {
+            Future<?>[] workers = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                workers[t] = executor.submit(() -> {
+                    // As propagated by a task decorator
+                    RequestContextHolder.setRequestAttributes(attributes);
+                    start.await();
+                    TTLMemoizationArena arena = TTLMemoization.currentArena();
+                    arenas.add(arena);
+                    for (int i = 0; i < 10_000; i++) {
+                        arena.put(this, TTLKey.of(METHOD, thread, i), i);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, arenas.size());
+        TTLMemoizationArena arena = arenas.iterator().next();
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(i, arena.get(this, TTLKey.of(METHOD, t, i)));
+            }
+        }
+        RequestContextHolder.setRequestAttributes(attributes);
+        assertTrue(TTLMemoization.isActive());
+    }
+
+    private static final class MapRequestAttributes implements RequestAttributes {
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        @Override
+        public Object getAttribute(String name, int scope) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value, int scope) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name, int scope) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public String[] getAttributeNames(int scope) {
+            return attributes.keySet().toArray(String[]::new);
+        }
+
+        @Override
+        public void registerDestructionCallback(String name, Runnable callback, int scope) {
+        }
+
+        @Override
+        public Object resolveReference(String key) {
+            return null;
+        }
+
+        @Override
+        public String getSessionId() {
+            return "session";
+        }
+
+        @Override
+        public Object getSessionMutex() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import com.sun.management.ThreadMXBean;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TTLMethodAspectTest {
+    private final SingleFlightLoader singleFlightLoader = new SingleFlightLoader(4);
+    private final ConcurrentTTLStore<Object> store = new ConcurrentTTLStore<>();
+    private final TTLMethodAspect aspect = new TTLMethodAspect(store, singleFlightLoader, new TTLMetrics());
+    private final Service service = new Service();
+
+    @AfterEach
+    void closeLoader() {
+        singleFlightLoader.close();
+    }
+
+    @Test
+    void refreshesAPendingAsyncValueOnlyOnce() throws Throwable {
+        service.next = CompletableFuture.completedFuture("first");
+        assertEquals("first", join("slowAsync"));
+
+        // Past its TTL but still within its staleness, every hit serves the stale value and asks for a refresh
+        Thread.sleep(60);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        service.next = pending;
+        for (int i = 0; i < 50; i++) {
+            assertEquals("first", join("slowAsync"));
+            Thread.sleep(1);
+        }
+        assertEquals(2, service.calls.get());
+
+        pending.complete("second");
+        awaitValue("slowAsync", "second");
+        assertEquals(2, service.calls.get());
+    }
+
+    @Test
+    void rethrowsOneStacklessWrapperOfACachedException() throws Throwable {
+        IllegalStateException first = assertThrows(IllegalStateException.class, () -> call("failing"));
+        TTLCachedFailureException second = assertThrows(TTLCachedFailureException.class, () -> call("failing"));
+        TTLCachedFailureException third = assertThrows(TTLCachedFailureException.class, () -> call("failing"));
+
+        assertEquals(1, service.calls.get());
+        assertSame(second, third);
+        assertSame(first, second.getCause());
+        assertEquals(0, second.getStackTrace().length);
+        second.fillInStackTrace();
+        second.addSuppressed(new RuntimeException());
+        assertEquals(0, third.getStackTrace().length);
+        assertEquals(0, third.getSuppressed().length);
+    }
+
+    @Test
+    void failsEveryAsyncHitWithTheWrapperOfACachedException() throws Throwable {
+        service.next = CompletableFuture.failedFuture(new IllegalStateException("down"));
+        CompletionException first = assertThrows(CompletionException.class, () -> join("failingAsync"));
+        CompletionException second = assertThrows(CompletionException.class, () -> join("failingAsync"));
+
+        assertEquals(1, service.calls.get());
+        assertTrue(second.getCause() instanceof TTLCachedFailureException);
+        assertSame(first.getCause(), second.getCause().getCause());
+        assertEquals(0, second.getCause().getStackTrace().length);
+    }
+
+    @Test
+    void adaptsTheTTLEvenOnceTheReloadedValueLeftTheStore() throws Throwable {
+        TTLKey key = TTLKey.of(Service.class.getDeclaredMethod("adaptive"));
+        call("adaptive");
+        long initialTtl = store.fetchValue(service, key).expirationNanos() - System.nanoTime();
+
+        // The previous value is gone by the time the method is invoked again, as if evicted
+        store.invalidate(service, key);
+        call("adaptive");
+        long adaptedTtl = store.fetchValue(service, key).expirationNanos() - System.nanoTime();
+
+        assertEquals(2, service.calls.get());
+        assertTrue(adaptedTtl > initialTtl + TimeUnit.SECONDS.toNanos(10), "TTL was not extended: " + adaptedTtl);
+    }
+
+    @Test
+    void adaptsTheTTLOfEveryElementOfABatch() throws Throwable {
+        TTLKey unchanged = TTLKey.of(Service.class.getDeclaredMethod("adaptiveBatch", List.class), 1);
+        TTLKey changed = TTLKey.of(Service.class.getDeclaredMethod("adaptiveBatch", List.class), 2);
+        call("adaptiveBatch", List.of(1, 2));
+        long initialTtl = store.fetchValue(service, unchanged).expirationNanos() - System.nanoTime();
+
+        store.invalidate(service, unchanged);
+        store.invalidate(service, changed);
+        call("adaptiveBatch", List.of(1, 2));
+
+        assertEquals(2, service.calls.get());
+        long unchangedTtl = store.fetchValue(service, unchanged).expirationNanos() - System.nanoTime();
+        long changedTtl = store.fetchValue(service, changed).expirationNanos() - System.nanoTime();
+        assertTrue(unchangedTtl > initialTtl + TimeUnit.SECONDS.toNanos(10), "TTL was not extended: " + unchangedTtl);
+        assertTrue(changedTtl < initialTtl - TimeUnit.SECONDS.toNanos(10), "TTL was not shortened: " + changedTtl);
+    }
+
+    @Test
+    void hitsOfMethodsWithoutKeyParametersDoNotAllocate() throws Throwable {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "the JVM does not count allocated bytes per thread");
+
+        ProceedingJoinPoint joinPoint = TestJoinPoints.of(service, "constant");
+        for (int i = 0; i < 100_000; i++) {
+            aspect.doMarkedMethodInterception(joinPoint);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            aspect.doMarkedMethodInterception(joinPoint);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(1, service.calls.get());
+        // A single allocation per hit would already amount to 1.6MB, what remains is the measurement's own noise
+        assertTrue(allocated < 100_000, allocated + " bytes allocated by 100000 hits");
+    }
+
+    @Test
+    void hitsOfMethodsWithKeyParametersDoNotBuildKeys() throws Throwable {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "the JVM does not count allocated bytes per thread");
+
+        // Spring's join points copy the arguments once, every hit then reads the same array
+        ProceedingJoinPoint keyed = TestJoinPoints.of(service, "keyed", "region", 7);
+        ProceedingJoinPoint selected = TestJoinPoints.of(service, "selected", "region", 7, 42L);
+        for (int i = 0; i < 100_000; i++) {
+            aspect.doMarkedMethodInterception(keyed);
+            aspect.doMarkedMethodInterception(selected);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            aspect.doMarkedMethodInterception(keyed);
+            aspect.doMarkedMethodInterception(selected);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(2, service.calls.get());
+        assertTrue(allocated < 100_000, allocated + " bytes allocated by 200000 hits");
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T call(String method, Object... arguments) throws Throwable {
+        return (T) aspect.doMarkedMethodInterception(TestJoinPoints.of(service, method, arguments));
+    }
+
+    private Object join(String method, Object... arguments) throws Throwable {
+        return ((CompletableFuture<?>) call(method, arguments)).join();
+    }
+
+    private void awaitValue(String method, Object expected) throws Throwable {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Object value = null;
+        while (System.nanoTime() - deadline < 0) {
+            Object result = call(method);
+            value = result instanceof CompletableFuture<?> future ? future.join() : result;
+            if (expected.equals(value)) return;
+            Thread.sleep(5);
+        }
+        assertEquals(expected, value);
+    }
+
+    static class Service {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile CompletableFuture<String> next;
+
+        @TTLMethod(value = 50, unit = TimeUnit.MILLISECONDS, maximumStaleness = 60_000)
+        CompletableFuture<String> slowAsync() {
+            calls.incrementAndGet();
+            return next;
+        }
+
+        @TTLMethod(60)
+        String constant() {
+            calls.incrementAndGet();
+            return "constant";
+        }
+
+        @TTLMethod(60)
+        String keyed(String region, int page) {
+            calls.incrementAndGet();
+            return region + page;
+        }
+
+        @TTLMethod(value = 60, keyParameters = {0, 1})
+        String selected(String region, int page, long requestId) {
+            calls.incrementAndGet();
+            return region + page;
+        }
+
+        @TTLMethod(value = 60, adaptiveMinimum = 10, adaptiveMaximum = 600)
+        String adaptive() {
+            calls.incrementAndGet();
+            return "unchanged";
+        }
+
+        @TTLMethod(value = 60, adaptiveMinimum = 10, adaptiveMaximum = 600, batchParameter = 0)
+        Map<Integer, String> adaptiveBatch(List<Integer> ids) {
+            int call = calls.incrementAndGet();
+            // The first element never changes, the second changes on every call
+            return ids.stream().collect(Collectors.toMap(id -> id, id -> id == 1 ? "unchanged" : "changed " + call));
+        }
+
+        @TTLMethod(value = 60, cacheExceptions = @TTLMethod.CachedException(value = IllegalStateException.class, ttl = 60))
+        String failing() {
+            throw new IllegalStateException("down " + calls.incrementAndGet());
+        }
+
+        @TTLMethod(value = 60, cacheExceptions = @TTLMethod.CachedException(value = IllegalStateException.class, ttl = 60))
+        CompletableFuture<String> failingAsync() {
+            calls.incrementAndGet();
+            return next;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TTLStoreTest {
+    private static final Method METHOD = ConcurrentTTLStoreTest.method("unbounded");
+
+    private final MapTTLStore store = new MapTTLStore();
+
+    @Test
+    void removesOnlyTheExpectedValueByExpiringIt() {
+        TTLKey key = TTLKey.of(METHOD, 1);
+        String value = new String("value");
+        store.storeValue("source", key, value, Duration.ofMinutes(1));
+
+        assertFalse(store.removeValue("source", key, new String("value")));
+        assertTrue(store.fetchValue("source", key).expiration().isAfter(Instant.now()));
+        assertTrue(store.removeValue("source", key, value));
+        assertFalse(store.fetchValue("source", key).expiration().isAfter(Instant.now()));
+    }
+
+    @Test
+    void invalidatesByExpiring() {
+        TTLKey key = TTLKey.of(METHOD, 1);
+        store.storeValue("source", key, "value", Duration.ofMinutes(1));
+
+        assertTrue(store.invalidate("source", key));
+        assertFalse(store.fetchValue("source", key).expiration().isAfter(Instant.now()));
+        assertFalse(store.invalidate("source", TTLKey.of(METHOD, 2)));
+    }
+
+    @Test
+    void rejectsBulkInvalidationsItCannotPerform() {
+        assertThrows(UnsupportedOperationException.class, () -> store.invalidateSource("source"));
+        assertThrows(UnsupportedOperationException.class, () -> store.invalidateTag("tag"));
+    }
+
+    /**
+     * A store implementing only what every store must, as user-supplied stores may.
+     */
+    static class MapTTLStore implements TTLStore<Object> {
+        private final Map<TTLKey, TTLValue<Object>> values = new HashMap<>();
+
+        @Override
+        public TTLValue<Object> fetchValue(Object source, TTLKey key) {
+            return values.get(key);
+        }
+
+        @Override
+        public TTLValue<Object> storeValue(Object source, TTLKey key, Object value, Duration lifetime) {
+            return values.put(key, new TTLValueRecord<>(value, Instant.now().plus(lifetime)));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.sylvona.leona.core.commons.ttl;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+/**
+ * Builds the {@link ProceedingJoinPoint} of a direct invocation, so aspects can be tested without a Spring context.
+ */
+final class TestJoinPoints {
+    private TestJoinPoints() {
+    }
+
+    static ProceedingJoinPoint of(Object target, String methodName, Object... arguments) {
+        return of(target.getClass(), target, methodName, arguments);
+    }
+
+    /**
+     * Builds the join point of a static method, which has neither a this nor a target.
+     */
+    static ProceedingJoinPoint ofStatic(Class<?> type, String methodName, Object... arguments) {
+        return of(type, null, methodName, arguments);
+    }
+
+    private static ProceedingJoinPoint of(Class<?> type, Object target, String methodName, Object... invocationArguments) {
+        Object[] arguments = invocationArguments.clone();
+        Method method = Arrays.stream(type.getDeclaredMethods())
+                .filter(candidate -> candidate.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No method " + methodName));
+        method.setAccessible(true);
+
+        MethodSignature signature = (MethodSignature) Proxy.newProxyInstance(TestJoinPoints.class.getClassLoader(),
+                new Class<?>[]{MethodSignature.class}, (proxy, invoked, invokedArguments) -> switch (invoked.getName()) {
+                    case "getMethod" -> method;
+                    case "getDeclaringType" -> method.getDeclaringClass();
+                    case "getName" -> method.getName();
+                    case "getReturnType" -> method.getReturnType();
+                    case "getParameterTypes" -> method.getParameterTypes();
+                    default -> method.toString();
+                });
+
+        return (ProceedingJoinPoint) Proxy.newProxyInstance(TestJoinPoints.class.getClassLoader(),
+                new Class<?>[]{ProceedingJoinPoint.class}, (proxy, invoked, invokedArguments) -> switch (invoked.getName()) {
+                    case "getThis", "getTarget" -> target;
+                    // Like Spring's join points, the arguments are copied once rather than on every call
+                    case "getArgs" -> arguments;
+                    case "getSignature" -> signature;
+                    case "proceed" -> proceed(target, method, invokedArguments != null ? (Object[]) invokedArguments[0] : arguments);
+                    case "toString" -> "execution(" + method + ")";
+                    default -> throw new UnsupportedOperationException(invoked.getName());
+                });
+    }
+
+    private static Object proceed(Object target, Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}